@@ -0,0 +1,21 @@
+package dds.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks beans that need PostgreSQL, so they are left out with {@code ilp.data.source=memory}.
+ * The {@code memory} profile sets that and also drops the DataSource and JPA auto-configuration,
+ * so such a node starts without a database.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@ConditionalOnExpression("!'${ilp.data.source:postgres}'.equalsIgnoreCase('memory')")
+public @interface ConditionalOnDatabase {
+}
@@ -0,0 +1,39 @@
+package dds.configuration;
+
+import dds.service.ReferenceDataStore;
+import dds.service.UnifiedDataService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint showing which data source reads currently go to.
+ * A POST forces the decision to be made again, and reloads the reference data from whichever source
+ * it picks.
+ */
+@Component
+@Endpoint(id = "datasource")
+public class DataSourceEndpoint {
+
+    private final UnifiedDataService unifiedDataService;
+    private final ReferenceDataStore referenceDataStore;
+
+    public DataSourceEndpoint(UnifiedDataService unifiedDataService, ReferenceDataStore referenceDataStore) {
+        this.unifiedDataService = unifiedDataService;
+        this.referenceDataStore = referenceDataStore;
+    }
+
+    @ReadOperation
+    public UnifiedDataService.Resolution dataSource() {
+        return unifiedDataService.resolve();
+    }
+
+    @WriteOperation
+    public UnifiedDataService.Resolution reevaluate() {
+        unifiedDataService.invalidate();
+        UnifiedDataService.Resolution resolution = unifiedDataService.resolve();
+        referenceDataStore.refresh();
+        return resolution;
+    }
+}
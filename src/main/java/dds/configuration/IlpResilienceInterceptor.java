@@ -0,0 +1,179 @@
+package dds.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Retries and circuit breaking for calls to the ILP service.
+ *
+ * <p>GET requests that fail with an I/O error (including timeouts) or a 5xx response are retried with a
+ * short backoff, but only while the retry budget allows: every request earns a fraction of a retry, so
+ * retries can never multiply the load on an upstream that is already struggling.
+ *
+ * <p>Each endpoint has its own circuit breaker. After enough consecutive failures it opens and calls fail
+ * fast with a {@link ResourceAccessException} (callers serve their last known good data) until the open
+ * period has passed; then a single trial call decides whether it closes again.
+ */
+@Slf4j
+public class IlpResilienceInterceptor implements ClientHttpRequestInterceptor {
+
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final RetryBudget retryBudget;
+    private final int failureThreshold;
+    private final long openMs;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public IlpResilienceInterceptor(int maxAttempts, long backoffMs, double retryRatio, int minRetries,
+                                    int failureThreshold, long openMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = backoffMs;
+        this.retryBudget = new RetryBudget(retryRatio, minRetries);
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String endpoint = request.getURI().getPath();
+        CircuitBreaker breaker = breakers.computeIfAbsent(endpoint, e -> new CircuitBreaker());
+        if (!breaker.allowRequest()) {
+            throw new ResourceAccessException("Circuit open for ILP endpoint " + endpoint);
+        }
+
+        boolean retryable = request.getMethod() == HttpMethod.GET;
+        retryBudget.deposit();
+        boolean succeeded = false;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                boolean canRetry = retryable && attempt < maxAttempts;
+                try {
+                    ClientHttpResponse response = execution.execute(request, body);
+                    if (!response.getStatusCode().is5xxServerError()) {
+                        succeeded = true;
+                        return response;
+                    }
+                    if (!canRetry || !retryBudget.tryWithdraw()) {
+                        return response;
+                    }
+                    log.debug("ILP endpoint {} returned {}, retrying (attempt {})", endpoint, response.getStatusCode(), attempt);
+                    response.close();
+                } catch (IOException e) {
+                    if (!canRetry || !retryBudget.tryWithdraw()) {
+                        throw e;
+                    }
+                    log.debug("ILP endpoint {} failed ({}), retrying (attempt {})", endpoint, e.getMessage(), attempt);
+                }
+                sleep(backoffMs * attempt);
+            }
+        } finally {
+            // every way out settles the breaker, so a half-open trial that throws anything reopens it
+            if (succeeded) {
+                breaker.onSuccess();
+            } else {
+                breaker.onFailure();
+            }
+        }
+    }
+
+    /**
+     * State of the breaker for one endpoint, for monitoring and tests.
+     */
+    public String state(String endpoint) {
+        CircuitBreaker breaker = breakers.get(endpoint);
+        return breaker == null ? "CLOSED" : breaker.state.name();
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    /**
+     * Token bucket of retries: each request adds {@code ratio} of a token, each retry takes a whole one.
+     * It starts full and holds at most {@code minRetries} tokens, so a burst of failures gets that many
+     * retries at most before requests have to earn more.
+     */
+    private static final class RetryBudget {
+
+        private final double ratio;
+        private final double capacity;
+        private double tokens;
+
+        RetryBudget(double ratio, int minRetries) {
+            this.ratio = ratio;
+            this.capacity = Math.max(1, minRetries);
+            this.tokens = capacity;
+        }
+
+        synchronized void deposit() {
+            tokens = Math.min(capacity, tokens + ratio);
+        }
+
+        synchronized boolean tryWithdraw() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final class CircuitBreaker {
+
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+
+        synchronized boolean allowRequest() {
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> {
+                    if (System.currentTimeMillis() - openedAt < openMs) {
+                        yield false;
+                    }
+                    // let exactly one trial call through
+                    state = State.HALF_OPEN;
+                    yield true;
+                }
+                case HALF_OPEN -> false;
+            };
+        }
+
+        synchronized void onSuccess() {
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+        }
+
+        synchronized void onFailure() {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                if (state != State.OPEN) {
+                    log.warn("Circuit opened for ILP endpoint after {} consecutive failures", consecutiveFailures);
+                }
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+            }
+        }
+    }
+}
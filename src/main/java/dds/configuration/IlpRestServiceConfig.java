@@ -1,10 +1,22 @@
 package dds.configuration;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Map;
+
 @Configuration
 public class IlpRestServiceConfig {
 
@@ -13,8 +25,72 @@ public class IlpRestServiceConfig {
         return url;
     }
 
+    /**
+     * Pooled keep-alive client for the ILP service. Responses are decompressed transparently (the client
+     * asks for gzip), connects and reads are bounded, and idle or expired connections are evicted.
+     * Retries are left to {@link IlpResilienceInterceptor}, which keeps them within a budget.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient ilpHttpClient(@Value("${ilp.http.max-connections:20}") int maxConnections,
+                                             @Value("${ilp.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                             @Value("${ilp.http.keep-alive-ms:30000}") long keepAliveMs) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAliveMs))
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAliveMs))
+                .evictExpiredConnections()
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /**
+     * RestTemplate for the ILP service. Each endpoint gets its own read deadline: the default, unless
+     * {@code ilp.http.endpoint-read-timeouts-ms} maps the endpoint path to another one
+     * (e.g. <code>{'/drones-for-service-points': 10000}</code>).
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient ilpHttpClient,
+                                     @Value("${ilp.http.read-timeout-ms:5000}") long readTimeoutMs,
+                                     @Value("#{${ilp.http.endpoint-read-timeouts-ms:{:}}}") Map<String, Long> endpointReadTimeoutsMs,
+                                     @Value("${ilp.http.retry.max-attempts:3}") int maxAttempts,
+                                     @Value("${ilp.http.retry.backoff-ms:100}") long backoffMs,
+                                     @Value("${ilp.http.retry.budget-ratio:0.2}") double retryRatio,
+                                     @Value("${ilp.http.retry.min-retries:10}") int minRetries,
+                                     @Value("${ilp.http.breaker.failure-threshold:5}") int failureThreshold,
+                                     @Value("${ilp.http.breaker.open-ms:30000}") long openMs) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(ilpHttpClient);
+        requestFactory.setHttpContextFactory((method, uri) -> {
+            long timeoutMs = readTimeoutFor(uri.getPath(), endpointReadTimeoutsMs, readTimeoutMs);
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(RequestConfig.custom()
+                    .setResponseTimeout(Timeout.ofMilliseconds(timeoutMs))
+                    .build());
+            return context;
+        });
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new IlpResilienceInterceptor(
+                maxAttempts, backoffMs, retryRatio, minRetries, failureThreshold, openMs));
+        return restTemplate;
+    }
+
+    // the service URL may carry a base path, so endpoints are matched on the end of the path
+    private static long readTimeoutFor(String path, Map<String, Long> endpointReadTimeoutsMs, long defaultMs) {
+        for (Map.Entry<String, Long> entry : endpointReadTimeoutsMs.entrySet()) {
+            if (path != null && path.endsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return defaultMs;
     }
 }
@@ -0,0 +1,50 @@
+package dds.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedicated thread pools for planning work that should not run on servlet threads.
+ */
+@Configuration
+public class PlannerExecutorConfig {
+
+    /**
+     * Pool for asynchronous planning jobs. The queue is bounded so that a flood of
+     * submissions is rejected instead of piling up in memory.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor plannerExecutor(@Value("${planner.jobs.pool-size:2}") int poolSize,
+                                              @Value("${planner.jobs.queue-capacity:50}") int queueCapacity) {
+        return new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("planner-"),
+                new ThreadPoolExecutor.AbortPolicy()  // reject when the queue is full
+        );
+    }
+
+    /**
+     * Pool for the large-neighbourhood-search workers. Workers stop at their request's
+     * deadline, so queued workers from concurrent requests drain quickly.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor lnsExecutor(@Value("${planner.lns.workers:2}") int workers) {
+        return new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("lns-")
+        );
+    }
+}
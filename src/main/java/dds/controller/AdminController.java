@@ -3,17 +3,28 @@ package dds.controller;
 import dds.dto.*;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import dds.service.AdminDataStore;
 import dds.service.DataSeederService;
+import dds.service.InMemoryDataService;
 import dds.service.PostgresDataService;
+import dds.service.ReferenceDataStore;
+import dds.service.UnifiedDataService;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
  * Admin controller for CRUD operations on DDS data.
  * Allows creating, reading, updating, and deleting drones, service points,
  * restricted areas, and drone availability.
+ * Operations go to PostgreSQL, or to the in-memory store when that is the configured data source.
  */
 @RestController
 @RequestMapping("/api/v1/admin")
@@ -21,10 +32,23 @@ public class AdminController {
 
     private final PostgresDataService postgresDataService;
     private final DataSeederService dataSeederService;
+    private final ReferenceDataStore referenceDataStore;
+    private final UnifiedDataService unifiedDataService;
+    private final InMemoryDataService inMemoryDataService;
 
-    public AdminController(PostgresDataService postgresDataService, DataSeederService dataSeederService) {
+    public AdminController(@Nullable PostgresDataService postgresDataService,
+                           @Nullable DataSeederService dataSeederService,
+                           ReferenceDataStore referenceDataStore, UnifiedDataService unifiedDataService,
+                           InMemoryDataService inMemoryDataService) {
         this.postgresDataService = postgresDataService;
         this.dataSeederService = dataSeederService;
+        this.referenceDataStore = referenceDataStore;
+        this.unifiedDataService = unifiedDataService;
+        this.inMemoryDataService = inMemoryDataService;
+    }
+
+    private AdminDataStore store() {
+        return unifiedDataService.resolve().memory() ? inMemoryDataService : postgresDataService;
     }
 
     // ==================== DRONE ENDPOINTS ====================
@@ -32,13 +56,13 @@ public class AdminController {
     @Operation(summary = "List drones", description = "Get all drones stored in PostgreSQL", tags = {"Admin - Drones"})
     @GetMapping("/drones")
     public ResponseEntity<List<Drone>> getAllDrones() {
-        return ResponseEntity.ok(postgresDataService.getAllDrones());
+        return ResponseEntity.ok(store().getAllDrones());
     }
 
     @Operation(summary = "Get drone", description = "Get a specific drone by ID", tags = {"Admin - Drones"})
     @GetMapping("/drones/{id}")
     public ResponseEntity<Drone> getDrone(@PathVariable String id) {
-        Drone drone = postgresDataService.getDroneById(id);
+        Drone drone = store().getDroneById(id);
         if (drone == null) {
             return ResponseEntity.notFound().build();
         }
@@ -48,30 +72,30 @@ public class AdminController {
     @Operation(summary = "Create drone (basic)", description = "Create a drone without availability. Use /drones/full for the one-step workflow.", tags = {"Admin - Drones"})
     @PostMapping("/drones")
     public ResponseEntity<Drone> createDrone(@RequestBody @Valid Drone drone) {
-        Drone saved = postgresDataService.saveDrone(drone);
+        Drone saved = store().saveDrone(drone);
         return ResponseEntity.ok(saved);
     }
 
     @Operation(summary = "Update drone", description = "Update an existing drone by ID", tags = {"Admin - Drones"})
     @PutMapping("/drones/{id}")
     public ResponseEntity<Drone> updateDrone(@PathVariable String id, @RequestBody Drone drone) {
-        if (postgresDataService.getDroneById(id) == null) {
+        if (store().getDroneById(id) == null) {
             return ResponseEntity.notFound().build();
         }
         drone.setId(id);  // Ensure ID matches path
-        Drone saved = postgresDataService.saveDrone(drone);
+        Drone saved = store().saveDrone(drone);
         return ResponseEntity.ok(saved);
     }
 
     @Operation(summary = "Delete drone", description = "Delete a drone and its availability", tags = {"Admin - Drones"})
     @DeleteMapping("/drones/{id}")
     public ResponseEntity<Void> deleteDrone(@PathVariable String id) {
-        if (postgresDataService.getDroneById(id) == null) {
+        if (store().getDroneById(id) == null) {
             return ResponseEntity.notFound().build();
         }
         // Also delete availability for this drone
-        postgresDataService.deleteAvailabilityByDroneId(id);
-        postgresDataService.deleteDrone(id);
+        store().deleteAvailabilityByDroneId(id);
+        store().deleteDrone(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -91,7 +115,7 @@ public class AdminController {
             @Valid @RequestBody CreateDroneWithAvailabilityRequest request) {
         
         // Check if service point exists
-        if (postgresDataService.getServicePointById(request.getServicePointId()) == null) {
+        if (store().getServicePointById(request.getServicePointId()) == null) {
             return ResponseEntity.badRequest().build();
         }
         
@@ -101,10 +125,10 @@ public class AdminController {
             request.getName(),
             request.getCapability()
         );
-        Drone saved = postgresDataService.saveDrone(drone);
+        Drone saved = store().saveDrone(drone);
         
         // Set the availability
-        postgresDataService.saveAvailability(
+        store().saveAvailability(
             request.getId(),
             request.getServicePointId(),
             request.getAvailability()
@@ -118,13 +142,13 @@ public class AdminController {
     @Operation(summary = "List service points", description = "Get all service points stored in PostgreSQL", tags = {"Admin - Service Points"})
     @GetMapping("/servicePoints")
     public ResponseEntity<List<ServicePoint>> getAllServicePoints() {
-        return ResponseEntity.ok(postgresDataService.getServicePoints());
+        return ResponseEntity.ok(store().getServicePoints());
     }
 
     @Operation(summary = "Get service point", description = "Get a specific service point by ID", tags = {"Admin - Service Points"})
     @GetMapping("/servicePoints/{id}")
     public ResponseEntity<ServicePoint> getServicePoint(@PathVariable Integer id) {
-        ServicePoint sp = postgresDataService.getServicePointById(id);
+        ServicePoint sp = store().getServicePointById(id);
         if (sp == null) {
             return ResponseEntity.notFound().build();
         }
@@ -134,28 +158,28 @@ public class AdminController {
     @Operation(summary = "Create service point", description = "Create a new service point", tags = {"Admin - Service Points"})
     @PostMapping("/servicePoints")
     public ResponseEntity<ServicePoint> createServicePoint(@RequestBody @Valid ServicePoint servicePoint) {
-        ServicePoint saved = postgresDataService.saveServicePoint(servicePoint);
+        ServicePoint saved = store().saveServicePoint(servicePoint);
         return ResponseEntity.ok(saved);
     }
 
     @Operation(summary = "Update service point", description = "Update an existing service point", tags = {"Admin - Service Points"})
     @PutMapping("/servicePoints/{id}")
     public ResponseEntity<ServicePoint> updateServicePoint(@PathVariable Integer id, @RequestBody @Valid ServicePoint servicePoint) {
-        if (postgresDataService.getServicePointById(id) == null) {
+        if (store().getServicePointById(id) == null) {
             return ResponseEntity.notFound().build();
         }
         servicePoint.setId(id);  // Ensure ID matches path
-        ServicePoint saved = postgresDataService.saveServicePoint(servicePoint);
+        ServicePoint saved = store().saveServicePoint(servicePoint);
         return ResponseEntity.ok(saved);
     }
 
     @Operation(summary = "Delete service point", description = "Delete a service point", tags = {"Admin - Service Points"})
     @DeleteMapping("/servicePoints/{id}")
     public ResponseEntity<Void> deleteServicePoint(@PathVariable Integer id) {
-        if (postgresDataService.getServicePointById(id) == null) {
+        if (store().getServicePointById(id) == null) {
             return ResponseEntity.notFound().build();
         }
-        postgresDataService.deleteServicePoint(id);
+        store().deleteServicePoint(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -164,13 +188,13 @@ public class AdminController {
     @Operation(summary = "List restricted areas", description = "Get all restricted areas", tags = {"Admin - Restricted Areas"})
     @GetMapping("/restrictedAreas")
     public ResponseEntity<List<RestrictedArea>> getAllRestrictedAreas() {
-        return ResponseEntity.ok(postgresDataService.getRestrictedAreas());
+        return ResponseEntity.ok(store().getRestrictedAreas());
     }
 
     @Operation(summary = "Get restricted area", description = "Get a specific restricted area by ID", tags = {"Admin - Restricted Areas"})
     @GetMapping("/restrictedAreas/{id}")
     public ResponseEntity<RestrictedArea> getRestrictedArea(@PathVariable Integer id) {
-        RestrictedArea area = postgresDataService.getRestrictedAreaById(id);
+        RestrictedArea area = store().getRestrictedAreaById(id);
         if (area == null) {
             return ResponseEntity.notFound().build();
         }
@@ -180,28 +204,28 @@ public class AdminController {
     @Operation(summary = "Create restricted area", description = "Create a new restricted area", tags = {"Admin - Restricted Areas"})
     @PostMapping("/restrictedAreas")
     public ResponseEntity<RestrictedArea> createRestrictedArea(@RequestBody @Valid RestrictedArea area) {
-        RestrictedArea saved = postgresDataService.saveRestrictedArea(area);
+        RestrictedArea saved = store().saveRestrictedArea(area);
         return ResponseEntity.ok(saved);
     }
 
     @Operation(summary = "Update restricted area", description = "Update an existing restricted area", tags = {"Admin - Restricted Areas"})
     @PutMapping("/restrictedAreas/{id}")
     public ResponseEntity<RestrictedArea> updateRestrictedArea(@PathVariable Integer id, @RequestBody @Valid RestrictedArea area) {
-        if (postgresDataService.getRestrictedAreaById(id) == null) {
+        if (store().getRestrictedAreaById(id) == null) {
             return ResponseEntity.notFound().build();
         }
         area.setId(id);  // Ensure ID matches path
-        RestrictedArea saved = postgresDataService.saveRestrictedArea(area);
+        RestrictedArea saved = store().saveRestrictedArea(area);
         return ResponseEntity.ok(saved);
     }
 
     @Operation(summary = "Delete restricted area", description = "Delete a restricted area", tags = {"Admin - Restricted Areas"})
     @DeleteMapping("/restrictedAreas/{id}")
     public ResponseEntity<Void> deleteRestrictedArea(@PathVariable Integer id) {
-        if (postgresDataService.getRestrictedAreaById(id) == null) {
+        if (store().getRestrictedAreaById(id) == null) {
             return ResponseEntity.notFound().build();
         }
-        postgresDataService.deleteRestrictedArea(id);
+        store().deleteRestrictedArea(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -210,7 +234,7 @@ public class AdminController {
     @Operation(summary = "List availability", description = "Get all drone availability grouped by service point", tags = {"Admin - Availability"})
     @GetMapping("/availability")
     public ResponseEntity<List<DroneForServicePoint>> getAllAvailability() {
-        return ResponseEntity.ok(postgresDataService.getDronesForServicePoints());
+        return ResponseEntity.ok(store().getDronesForServicePoints());
     }
 
     @Operation(summary = "Set availability", description = "Set availability for a drone at a service point (replaces existing)", tags = {"Admin - Availability"})
@@ -219,14 +243,20 @@ public class AdminController {
             @PathVariable String droneId,
             @PathVariable Integer servicePointId,
             @RequestBody List<@Valid DroneAvailabilityWindow> windows) {
-        postgresDataService.saveAvailability(droneId, servicePointId, windows);
+        store().saveAvailability(droneId, servicePointId, windows);
         return ResponseEntity.ok().build();
     }
 
+    @Operation(summary = "Upload availability schedule", description = "Replace the whole fleet's availability with the given schedule. Only windows that differ from the stored ones are written; drone and service point pairs not in the schedule are cleared.", tags = {"Admin - Availability"})
+    @PutMapping("/availability")
+    public ResponseEntity<AvailabilityUpdateResult> uploadAvailability(@RequestBody List<DroneForServicePoint> schedule) {
+        return ResponseEntity.ok(store().applyAvailability(schedule, true));
+    }
+
     @Operation(summary = "Delete availability", description = "Delete all availability entries for a drone", tags = {"Admin - Availability"})
     @DeleteMapping("/availability/{droneId}")
     public ResponseEntity<Void> deleteAvailability(@PathVariable String droneId) {
-        postgresDataService.deleteAvailabilityByDroneId(droneId);
+        store().deleteAvailabilityByDroneId(droneId);
         return ResponseEntity.noContent().build();
     }
 
@@ -235,8 +265,46 @@ public class AdminController {
     @Operation(summary = "Re-seed database", description = "Clear all fleet data (drones, service points, restricted areas, availability) and re-populate from Azure API. Note: delivery_attempts analytics are preserved.", tags = {"Admin - Utilities"})
     @PostMapping("/reseed")
     public ResponseEntity<String> reseedDatabase() {
+        if (unifiedDataService.resolve().memory()) {
+            inMemoryDataService.reload();
+            return ResponseEntity.ok("In-memory data reloaded");
+        }
         dataSeederService.reseedAllData();
         return ResponseEntity.ok("Database re-seeded from Azure API");
     }
-}
 
+    @Operation(summary = "Download reference snapshot", description = "Download the current reference data snapshot in the binary form the service can boot from (reference.snapshot.file)", tags = {"Admin - Utilities"})
+    @GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> downloadSnapshot() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        referenceDataStore.export(out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reference-snapshot.bin\"")
+                .body(out.toByteArray());
+    }
+
+    @Operation(summary = "Export reference snapshot", description = "Write the current reference data snapshot to the configured snapshot file, so the next start serves it straight away", tags = {"Admin - Utilities"})
+    @PostMapping("/snapshot/export")
+    public ResponseEntity<String> exportSnapshot() throws IOException {
+        try {
+            Path path = referenceDataStore.exportToFile();
+            return ResponseEntity.ok("Reference snapshot exported to " + path);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Upload reference snapshot", description = "Replace the in-memory reference data with a snapshot downloaded from another instance (only with ilp.data.source=memory)", tags = {"Admin - Utilities"})
+    @PutMapping(value = "/snapshot", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<String> uploadSnapshot(@RequestBody byte[] snapshot) {
+        if (!unifiedDataService.resolve().memory()) {
+            return ResponseEntity.badRequest().body("Snapshots can only be uploaded to the in-memory data source");
+        }
+        try {
+            inMemoryDataService.replaceAll(snapshot);
+            return ResponseEntity.ok("In-memory data replaced from snapshot");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package dds.controller;
+
+import dds.configuration.ConditionalOnDatabase;
+import dds.dto.DeliveryPathResponse;
+import dds.dto.MedDispatchRec;
+import dds.dto.PlanningJobStatus;
+import dds.entity.PlanningJobState;
+import dds.service.PlanningJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Controller for asynchronous delivery planning.
+ * Large dispatch uploads are submitted as jobs and polled for status and result,
+ * instead of holding a request open for the whole planning run.
+ */
+@ConditionalOnDatabase
+@RestController
+@RequestMapping("/api/v1/planningJobs")
+@Tag(name = "Planning Jobs", description = "Asynchronous delivery planning for large dispatch uploads")
+public class PlanningJobController {
+
+    private final PlanningJobService planningJobService;
+
+    public PlanningJobController(PlanningJobService planningJobService) {
+        this.planningJobService = planningJobService;
+    }
+
+    @Operation(summary = "Submit planning job", description = "Queue a delivery planning job and return its ID immediately. Returns 503 if the planner queue is full.")
+    @PostMapping
+    public ResponseEntity<PlanningJobStatus> submitJob(
+            @Valid @RequestBody List<MedDispatchRec> dispatches,
+            @RequestParam(required = false) String droneIdToBeUsed) {
+        try {
+            PlanningJobStatus status = planningJobService.submit(dispatches, droneIdToBeUsed);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @Operation(summary = "Get job status", description = "Get the state, progress (planning stage and deliveries planned so far) and timings of a planning job")
+    @GetMapping("/{id}")
+    public ResponseEntity<PlanningJobStatus> getJobStatus(@PathVariable String id) {
+        PlanningJobStatus status = planningJobService.getStatus(id);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    @Operation(summary = "Get job result", description = "Get the delivery path of a completed planning job. Returns 409 while the job is still queued or running, or if it failed.")
+    @GetMapping("/{id}/result")
+    public ResponseEntity<DeliveryPathResponse> getJobResult(@PathVariable String id) {
+        PlanningJobStatus status = planningJobService.getStatus(id);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (status.getState() != PlanningJobState.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(planningJobService.getResult(id));
+    }
+}
@@ -7,9 +7,14 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.net.URL;
 import java.util.List;
 
@@ -17,6 +22,7 @@ import jakarta.validation.Valid;
 
 import dds.service.DeliveryHistoryService;
 import dds.service.DeliveryPlanningService;
+import dds.service.DispatchStreamService;
 import dds.service.DroneService;
 import dds.service.GeoJsonService;
 import dds.service.LocationService;
@@ -35,12 +41,17 @@ public class ServiceController {
     @Value("${ilp.service.url}")
     public URL serviceUrl;
 
+    // a streamed plan runs as one async request, which would otherwise get the container's default (30s on Tomcat)
+    @Value("${planner.stream.timeout-ms:1800000}")
+    private long streamTimeoutMs = 1800000;
+
     private final LocationService locationService;
     private final DroneService droneService;
     private final DeliveryPlanningService deliveryPlanningService;
     private final GeoJsonService geoJsonService;
     private final RouteComparisonService routeComparisonService;
     private final DeliveryHistoryService deliveryHistoryService;
+    private final DispatchStreamService dispatchStreamService;
 
     @Autowired
     public ServiceController(LocationService locationService,
@@ -48,13 +59,15 @@ public class ServiceController {
             DeliveryPlanningService deliveryPlanningService,
             GeoJsonService geoJsonService,
             RouteComparisonService routeComparisonService,
-            DeliveryHistoryService deliveryHistoryService) {
+            DeliveryHistoryService deliveryHistoryService,
+            DispatchStreamService dispatchStreamService) {
         this.locationService = locationService;
         this.droneService = droneService;
         this.deliveryPlanningService = deliveryPlanningService;
         this.geoJsonService = geoJsonService;
         this.routeComparisonService = routeComparisonService;
         this.deliveryHistoryService = deliveryHistoryService;
+        this.dispatchStreamService = dispatchStreamService;
     }
 
     @GetMapping("/")
@@ -128,11 +141,20 @@ public class ServiceController {
         return ResponseEntity.ok(droneService.queryAvailableDrones(dispatches));
     }
 
+    @PostMapping("/queryAvailableDrones/batch")
+    @Operation(summary = "Query available drones for many dispatch groups", description = "Checks every dispatch group against the same fleet snapshot and returns the available drone IDs for each group, in request order.")
+    public ResponseEntity<List<List<String>>> queryAvailableDronesBatch(
+            @Valid @RequestBody List<@Valid List<@Valid MedDispatchRec>> groups) {
+        return ResponseEntity.ok(droneService.queryAvailableDronesBatch(groups));
+    }
+
+    @Operation(summary = "Calculate delivery path", description = "Plan a delivery and get the flight path. Set timeBudgetMs to let the optimizer improve the plan's total cost for up to that many milliseconds.")
     @PostMapping("/calcDeliveryPath")
     public ResponseEntity<DeliveryPathResponse> calcDeliveryPath(
             @Valid @RequestBody List<MedDispatchRec> dispatches,
-            @RequestParam(required = false) String droneIdToBeUsed) {
-        DeliveryPathResponse response = deliveryPlanningService.calcDeliveryPath(dispatches, droneIdToBeUsed);
+            @RequestParam(required = false) String droneIdToBeUsed,
+            @RequestParam(required = false) Long timeBudgetMs) {
+        DeliveryPathResponse response = deliveryPlanningService.calcDeliveryPath(dispatches, droneIdToBeUsed, timeBudgetMs);
 
         // Log the delivery attempt
         if (response != null && response.getDronePaths() != null && !response.getDronePaths().isEmpty()) {
@@ -145,6 +167,21 @@ public class ServiceController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Stream delivery paths", description = "Accepts newline-delimited MedDispatchRec JSON and plans it in micro-batches. Each completed DronePath is streamed back as one NDJSON line as soon as it is ready; rejected lines (with their line number) and unplanned dispatches (with their ID) are streamed back as error lines.")
+    @PostMapping(value = "/calcDeliveryPath/stream",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> calcDeliveryPathStream(
+            InputStream dispatchStream,
+            @RequestParam(required = false) String droneIdToBeUsed,
+            NativeWebRequest request) {
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(streamTimeoutMs);
+        StreamingResponseBody body = out -> dispatchStreamService.planStream(dispatchStream, out, droneIdToBeUsed);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @PostMapping("/calcDeliveryPathAsGeoJson")
     public ResponseEntity<GeoJsonLineString> calcDeliveryPathAsGeoJson(
             @Valid @RequestBody List<MedDispatchRec> dispatches) {
@@ -0,0 +1,21 @@
+package dds.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "What an availability update changed")
+public class AvailabilityUpdateResult {
+    @Schema(description = "Windows added", example = "3")
+    private int inserted;
+
+    @Schema(description = "Windows removed", example = "1")
+    private int deleted;
+
+    @Schema(description = "Windows that were already stored and kept as they were", example = "20")
+    private int unchanged;
+}
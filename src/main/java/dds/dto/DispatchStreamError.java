@@ -0,0 +1,35 @@
+package dds.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * NDJSON line written by the streaming planner for an input line it rejected
+ * or a dispatch it could not plan, in place of a drone path.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)  // only one of line and dispatchId is set
+@Schema(description = "A rejected input line or an unplanned dispatch in a streamed plan")
+public class DispatchStreamError {
+    @Schema(description = "Input line that was rejected", example = "12")
+    private Integer line;
+
+    @Schema(description = "Dispatch that could not be planned", example = "7")
+    private Integer dispatchId;
+
+    @Schema(description = "Why the line was rejected or the dispatch not planned", example = "not planned")
+    private String error;
+
+    public static DispatchStreamError rejectedLine(int line, String reason) {
+        return new DispatchStreamError(line, null, reason);
+    }
+
+    public static DispatchStreamError unplanned(Integer dispatchId) {
+        return new DispatchStreamError(null, dispatchId, "not planned");
+    }
+}
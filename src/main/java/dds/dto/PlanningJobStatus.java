@@ -0,0 +1,41 @@
+package dds.dto;
+
+import dds.entity.PlanningJobState;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status and progress of an asynchronous planning job.
+ * Returned on submission and by the status endpoint.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Status of an asynchronous planning job")
+public class PlanningJobStatus {
+    @Schema(description = "Job identifier", example = "3f9c1e2a-8d4b-4c1e-9a55-0c2b7f5e6d10")
+    private String jobId;
+
+    @Schema(description = "Current state of the job", example = "RUNNING")
+    private PlanningJobState state;
+
+    @Schema(description = "Number of dispatches submitted", example = "2500")
+    private Integer dispatchCount;
+
+    @Schema(description = "Planning stage the job has reached", example = "MULTI_DRONE")
+    private String phase;
+
+    @Schema(description = "Dispatches with a planned flight path so far", example = "1800")
+    private Integer plannedDeliveries;
+
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+
+    @Schema(description = "Failure reason, only set when state is FAILED")
+    private String errorMessage;
+}
@@ -0,0 +1,83 @@
+package dds.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing an asynchronous delivery planning job.
+ * Maps to the 'planning_jobs' table in PostgreSQL.
+ * Both the request and the result are stored as JSON so jobs survive a restart.
+ * A queued or running job is leased by the instance executing it, so other instances only take it
+ * over once the lease has run out.
+ */
+@Entity
+@Table(name = "planning_jobs")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlanningJobEntity {
+
+    @Id
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PlanningJobState state;
+
+    @Column(name = "submitted_at", nullable = false)
+    private LocalDateTime submittedAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "dispatch_count")
+    private Integer dispatchCount;
+
+    @Column(name = "drone_id_to_be_used")
+    private String droneIdToBeUsed;
+
+    @Column(name = "request_payload", columnDefinition = "TEXT")
+    private String requestPayload;  // JSON of the submitted dispatches
+
+    @Column(name = "result_payload", columnDefinition = "TEXT")
+    private String resultPayload;  // JSON of the DeliveryPathResponse, null until completed
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "phase")
+    private String phase;  // planning stage reached, for progress reporting
+
+    @Column(name = "planned_deliveries")
+    private Integer plannedDeliveries;  // deliveries with a flight path so far
+
+    @Column(name = "owner")
+    private String owner;  // instance executing the job
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    /**
+     * Create a new job entity in the QUEUED state.
+     */
+    public static PlanningJobEntity queued(String id, String requestPayload, int dispatchCount, String droneIdToBeUsed,
+                                           String owner, LocalDateTime leaseExpiresAt) {
+        PlanningJobEntity entity = new PlanningJobEntity();
+        entity.setId(id);
+        entity.setState(PlanningJobState.QUEUED);
+        entity.setSubmittedAt(LocalDateTime.now());
+        entity.setRequestPayload(requestPayload);
+        entity.setDispatchCount(dispatchCount);
+        entity.setDroneIdToBeUsed(droneIdToBeUsed);
+        entity.setOwner(owner);
+        entity.setLeaseExpiresAt(leaseExpiresAt);
+        return entity;
+    }
+}
@@ -0,0 +1,11 @@
+package dds.entity;
+
+/**
+ * Lifecycle states of an asynchronous planning job.
+ */
+public enum PlanningJobState {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
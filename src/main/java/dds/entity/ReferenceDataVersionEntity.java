@@ -0,0 +1,23 @@
+package dds.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity holding the current version of one reference dataset, bumped on every write to it.
+ * Maps to the 'reference_data_versions' table in PostgreSQL.
+ */
+@Entity
+@Table(name = "reference_data_versions")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReferenceDataVersionEntity {
+
+    @Id
+    private String dataset;
+
+    private Long version;
+}
@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 /**
  * Entity representing a restricted (no-fly) area.
  * Maps to the 'restricted_areas' table in PostgreSQL.
- * Vertices are stored as JSON string.
+ * Vertices are stored packed as binary doubles (older rows: as a JSON string).
  */
 @Entity
 @Table(name = "restricted_areas")
@@ -26,7 +26,11 @@ public class RestrictedAreaEntity {
     private Integer lowerLimit;
     private Integer upperLimit;
     
-    // Vertices stored as JSON array string
+    // Vertices stored as little-endian doubles, lng then lat per vertex (see GeometryCodec)
+    @Column(name = "vertices_packed")
+    private byte[] verticesPacked;
+
+    // Vertices stored as JSON array string, only for rows written before vertices_packed existed
     // Format: [{"lng": -3.19, "lat": 55.94, "alt": null}, ...]
     @Column(columnDefinition = "TEXT")
     private String verticesJson;
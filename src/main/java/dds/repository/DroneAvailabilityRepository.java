@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import dds.entity.DroneAvailabilityEntity;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -15,4 +16,6 @@ public interface DroneAvailabilityRepository extends JpaRepository<DroneAvailabi
     List<DroneAvailabilityEntity> findByDroneId(String droneId);
 
     List<DroneAvailabilityEntity> findByDroneIdAndServicePointId(String droneId, Integer servicePointId);
+
+    List<DroneAvailabilityEntity> findByDroneIdIn(Collection<String> droneIds);
 }
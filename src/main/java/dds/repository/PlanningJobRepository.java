@@ -0,0 +1,88 @@
+package dds.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import dds.entity.PlanningJobEntity;
+import dds.entity.PlanningJobState;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for asynchronous planning jobs.
+ * State changes of a leased job are conditional updates on its owner, so an instance that has lost
+ * the lease can never overwrite the work of the one that took the job over.
+ */
+@Repository
+public interface PlanningJobRepository extends JpaRepository<PlanningJobEntity, String> {
+
+    /**
+     * Find jobs in any of the given states, oldest first (used to resume jobs after a restart).
+     */
+    List<PlanningJobEntity> findByStateInOrderBySubmittedAtAsc(Collection<PlanningJobState> states);
+
+    /**
+     * Take over an unfinished job whose lease has run out. Returns 1 if this owner got it.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE PlanningJobEntity j
+            SET j.owner = :owner, j.leaseExpiresAt = :leaseUntil,
+                j.state = dds.entity.PlanningJobState.QUEUED, j.startedAt = null
+            WHERE j.id = :id
+              AND j.state IN (dds.entity.PlanningJobState.QUEUED, dds.entity.PlanningJobState.RUNNING)
+              AND (j.leaseExpiresAt IS NULL OR j.leaseExpiresAt < :now)""")
+    int claim(@Param("id") String id, @Param("owner") String owner,
+              @Param("leaseUntil") LocalDateTime leaseUntil, @Param("now") LocalDateTime now);
+
+    /**
+     * Extend the lease of the given unfinished jobs, as far as this owner still holds them.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE PlanningJobEntity j SET j.leaseExpiresAt = :leaseUntil
+            WHERE j.id IN :ids AND j.owner = :owner
+              AND j.state IN (dds.entity.PlanningJobState.QUEUED, dds.entity.PlanningJobState.RUNNING)""")
+    int renewLeases(@Param("ids") Collection<String> ids, @Param("owner") String owner,
+                    @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE PlanningJobEntity j
+            SET j.state = dds.entity.PlanningJobState.RUNNING, j.startedAt = :startedAt
+            WHERE j.id = :id AND j.owner = :owner AND j.state = dds.entity.PlanningJobState.QUEUED""")
+    int markRunning(@Param("id") String id, @Param("owner") String owner, @Param("startedAt") LocalDateTime startedAt);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE PlanningJobEntity j SET j.phase = :phase, j.plannedDeliveries = :plannedDeliveries
+            WHERE j.id = :id AND j.owner = :owner AND j.state = dds.entity.PlanningJobState.RUNNING""")
+    int updateProgress(@Param("id") String id, @Param("owner") String owner,
+                       @Param("phase") String phase, @Param("plannedDeliveries") Integer plannedDeliveries);
+
+    /**
+     * Record the outcome of a job this owner still holds. Returns 0 if the job was taken over meanwhile.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE PlanningJobEntity j
+            SET j.state = :state, j.phase = :phase, j.resultPayload = :resultPayload,
+                j.errorMessage = :errorMessage, j.plannedDeliveries = :plannedDeliveries,
+                j.completedAt = :completedAt, j.leaseExpiresAt = null
+            WHERE j.id = :id AND j.owner = :owner
+              AND j.state IN (dds.entity.PlanningJobState.QUEUED, dds.entity.PlanningJobState.RUNNING)""")
+    int finish(@Param("id") String id, @Param("owner") String owner, @Param("state") PlanningJobState state,
+               @Param("phase") String phase, @Param("resultPayload") String resultPayload,
+               @Param("errorMessage") String errorMessage, @Param("plannedDeliveries") Integer plannedDeliveries,
+               @Param("completedAt") LocalDateTime completedAt);
+}
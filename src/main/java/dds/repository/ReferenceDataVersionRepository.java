@@ -0,0 +1,12 @@
+package dds.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import dds.entity.ReferenceDataVersionEntity;
+
+/**
+ * Repository for reference data versions.
+ */
+@Repository
+public interface ReferenceDataVersionRepository extends JpaRepository<ReferenceDataVersionEntity, String> {
+}
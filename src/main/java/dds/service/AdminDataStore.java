@@ -0,0 +1,44 @@
+package dds.service;
+
+import dds.dto.*;
+
+import java.util.List;
+
+/**
+ * Reference data operations behind the admin API, implemented by the PostgreSQL store and by the
+ * in-memory store used when {@code ilp.data.source} is {@code memory}.
+ */
+public interface AdminDataStore {
+
+    List<Drone> getAllDrones();
+
+    Drone getDroneById(String id);
+
+    Drone saveDrone(Drone drone);
+
+    void deleteDrone(String id);
+
+    List<ServicePoint> getServicePoints();
+
+    ServicePoint getServicePointById(Integer id);
+
+    ServicePoint saveServicePoint(ServicePoint servicePoint);
+
+    void deleteServicePoint(Integer id);
+
+    List<RestrictedArea> getRestrictedAreas();
+
+    RestrictedArea getRestrictedAreaById(Integer id);
+
+    RestrictedArea saveRestrictedArea(RestrictedArea area);
+
+    void deleteRestrictedArea(Integer id);
+
+    List<DroneForServicePoint> getDronesForServicePoints();
+
+    AvailabilityUpdateResult saveAvailability(String droneId, Integer servicePointId, List<DroneAvailabilityWindow> windows);
+
+    AvailabilityUpdateResult applyAvailability(List<DroneForServicePoint> schedule, boolean replaceAll);
+
+    void deleteAvailabilityByDroneId(String droneId);
+}
@@ -0,0 +1,68 @@
+package dds.service;
+
+import dds.dto.MedDispatchRec;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fleet-wide availability over a snapshot's assignments (a drone at a service point).
+ * For a day and time it gives the available assignments as one bitset, so the drones free for
+ * a set of dispatches are an AND of one bitset per dispatch. Bitsets for whole-minute times are
+ * built on first use and kept for the lifetime of the snapshot.
+ */
+final class AvailabilityIndex {
+
+    private static final int NO_TIME = WeeklyAvailability.MINUTES_PER_DAY;
+    private static final int NO_DAY = 7;
+
+    private final List<WeeklyAvailability> availabilities;
+    private final Map<Integer, BitSet> byMinute = new ConcurrentHashMap<>();
+
+    AvailabilityIndex(List<WeeklyAvailability> availabilities) {
+        this.availabilities = availabilities;
+    }
+
+    /**
+     * Assignments available for every dispatch.
+     */
+    BitSet availableForAll(List<MedDispatchRec> dispatches) {
+        BitSet result = new BitSet();
+        result.set(0, availabilities.size());
+        for (MedDispatchRec dispatch : dispatches) {
+            DayOfWeek day = dispatch.getDate() != null ? dispatch.getDate().getDayOfWeek() : null;
+            result.and(availableAt(day, dispatch.getTime()));
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Assignments available on {@code day} at {@code time}; a null day or time matches any.
+     * The returned bitset is shared and must not be modified.
+     */
+    BitSet availableAt(DayOfWeek day, LocalTime time) {
+        if (time != null && !WeeklyAvailability.isWholeMinute(time)) {
+            return scan(day, time);
+        }
+        int key = (day != null ? day.ordinal() : NO_DAY) * (NO_TIME + 1)
+                + (time != null ? WeeklyAvailability.minuteOf(time) : NO_TIME);
+        return byMinute.computeIfAbsent(key, k -> scan(day, time));
+    }
+
+    private BitSet scan(DayOfWeek day, LocalTime time) {
+        BitSet result = new BitSet(availabilities.size());
+        for (int i = 0; i < availabilities.size(); i++) {
+            if (availabilities.get(i).covers(day, time)) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+}
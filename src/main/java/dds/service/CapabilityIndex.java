@@ -0,0 +1,184 @@
+package dds.service;
+
+import dds.dto.Drone;
+import dds.dto.DroneCapability;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * Columnar index over drone capabilities, built once per fleet snapshot.
+ * Boolean attributes are bitsets and numeric attributes are sorted value arrays, so a query is a
+ * binary search per attribute and a bitset intersection instead of a scan over every drone.
+ * Attribute names are expected normalised (lower case); see {@link CapabilityQuery}.
+ * Bit positions follow the fleet order, so results come back in the same order as a linear scan.
+ * The index is immutable after construction and safe to share between threads.
+ */
+final class CapabilityIndex {
+
+    private final String[] ids;
+    private final BitSet withCapability = new BitSet();
+    private final BitSet cooling = new BitSet();
+    private final BitSet heating = new BitSet();
+    private final Map<String, NumericColumn> numericColumns = new HashMap<>();
+
+    private static final Set<String> NUMERIC_ATTRIBUTES =
+            Set.of("capacity", "maxmoves", "costpermove", "costinitial", "costfinal");
+
+    CapabilityIndex(List<Drone> drones) {
+        ids = new String[drones.size()];
+        for (int i = 0; i < drones.size(); i++) {
+            Drone drone = drones.get(i);
+            ids[i] = drone.getId();
+            DroneCapability capability = drone.getCapability();
+            if (capability == null) {
+                continue;
+            }
+            withCapability.set(i);
+            // null is treated as no cooling/heating, same as the capability comparisons
+            cooling.set(i, Boolean.TRUE.equals(capability.getCooling()));
+            heating.set(i, Boolean.TRUE.equals(capability.getHeating()));
+        }
+
+        numericColumns.put("capacity", new NumericColumn(drones, DroneCapability::getCapacity));
+        numericColumns.put("maxmoves", new NumericColumn(drones, DroneCapability::getMaxMoves));
+        numericColumns.put("costpermove", new NumericColumn(drones, DroneCapability::getCostPerMove));
+        numericColumns.put("costinitial", new NumericColumn(drones, DroneCapability::getCostInitial));
+        numericColumns.put("costfinal", new NumericColumn(drones, DroneCapability::getCostFinal));
+    }
+
+    /**
+     * Drones with a capability whose cooling or heating flag equals {@code wantTrue}.
+     */
+    BitSet matchFlag(String attribute, boolean wantTrue) {
+        BitSet flag = switch (attribute) {
+            case "cooling" -> cooling;
+            case "heating" -> heating;
+            default -> throw new IllegalArgumentException("Unknown flag attribute: " + attribute);
+        };
+
+        BitSet result = (BitSet) withCapability.clone();
+        if (wantTrue) {
+            result.and(flag);
+        } else {
+            result.andNot(flag);
+        }
+        return result;
+    }
+
+    /**
+     * Drones whose numeric attribute compares to {@code target} with one of =, !=, &lt; or &gt;.
+     */
+    BitSet matchNumber(String attribute, String operator, double target) {
+        return column(attribute).match(operator, target);
+    }
+
+    /**
+     * Whether any drone has a value for this numeric attribute.
+     */
+    boolean hasValues(String attribute) {
+        return column(attribute).values.length > 0;
+    }
+
+    static boolean isNumeric(String attribute) {
+        return NUMERIC_ATTRIBUTES.contains(attribute);
+    }
+
+    List<String> ids(BitSet matches) {
+        List<String> result = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+
+    private NumericColumn column(String attribute) {
+        NumericColumn column = numericColumns.get(attribute);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown numeric attribute: " + attribute);
+        }
+        return column;
+    }
+
+    /**
+     * One numeric attribute: the non-null values sorted ascending, with the fleet position of each.
+     */
+    private static final class NumericColumn {
+
+        private final double[] values;
+        private final int[] positions;
+
+        NumericColumn(List<Drone> drones, Function<DroneCapability, Number> getter) {
+            List<double[]> entries = new ArrayList<>();
+            for (int i = 0; i < drones.size(); i++) {
+                DroneCapability capability = drones.get(i).getCapability();
+                Number value = capability != null ? getter.apply(capability) : null;
+                if (value != null) {
+                    entries.add(new double[]{value.doubleValue(), i});
+                }
+            }
+            // Double.compare order, so equal values (as compared below) are contiguous
+            entries.sort((a, b) -> Double.compare(a[0], b[0]));
+
+            values = new double[entries.size()];
+            positions = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                values[i] = entries.get(i)[0];
+                positions[i] = (int) entries.get(i)[1];
+            }
+        }
+
+        BitSet match(String operator, double target) {
+            BitSet result = new BitSet();
+            int n = values.length;
+            switch (operator) {
+                case "=" -> setRange(result, firstEqualOrAbove(target), firstAbove(target));
+                case "!=" -> {
+                    setRange(result, 0, firstEqualOrAbove(target));
+                    setRange(result, firstAbove(target), n);
+                }
+                case "<" -> setRange(result, 0, firstIndex(0, n, i -> !(values[i] < target)));
+                case ">" -> {
+                    // NaN values sort last and never compare greater, so search only before them
+                    int end = firstIndex(0, n, i -> Double.isNaN(values[i]));
+                    setRange(result, firstIndex(0, end, i -> values[i] > target), end);
+                }
+                default -> {
+                }
+            }
+            return result;
+        }
+
+        private int firstEqualOrAbove(double target) {
+            return firstIndex(0, values.length, i -> Double.compare(values[i], target) >= 0);
+        }
+
+        private int firstAbove(double target) {
+            return firstIndex(0, values.length, i -> Double.compare(values[i], target) > 0);
+        }
+
+        /**
+         * First index in [from, to) where a predicate that is false then true along the sorted values holds, or {@code to}.
+         */
+        private int firstIndex(int from, int to, IntPredicate predicate) {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (predicate.test(mid)) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        private void setRange(BitSet result, int from, int to) {
+            for (int i = from; i < to; i++) {
+                result.set(positions[i]);
+            }
+        }
+    }
+}
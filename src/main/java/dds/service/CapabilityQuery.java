@@ -0,0 +1,145 @@
+package dds.service;
+
+import dds.dto.QueryAttribute;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * A capability query compiled from {@link QueryAttribute}s into typed clauses.
+ * Attribute names, operators and values are parsed once, and the normalised form gives a
+ * cache key under which equivalent queries (same clauses, any order or spelling) share results.
+ * Compiled queries are immutable and can be reused against any fleet snapshot.
+ */
+final class CapabilityQuery {
+
+    private final List<Clause> clauses;
+    private final String key;
+
+    private CapabilityQuery(List<Clause> clauses) {
+        this.clauses = clauses;
+        this.key = clauses.stream().map(Clause::key).collect(Collectors.joining("&"));
+    }
+
+    static CapabilityQuery compile(List<QueryAttribute> attributes) {
+        // sorted so the same clauses in any order give the same key
+        Set<Clause> clauses = new TreeSet<>(Comparator.comparing(Clause::key));
+        for (QueryAttribute attribute : attributes) {
+            Clause clause = compileClause(attribute.getAttribute(), attribute.getValue(), attribute.getOperator());
+            if (clause instanceof Never) {
+                return new CapabilityQuery(List.of(clause));
+            }
+            clauses.add(clause);
+        }
+        return new CapabilityQuery(List.copyOf(clauses));
+    }
+
+    static CapabilityQuery single(String attribute, String value) {
+        return new CapabilityQuery(List.of(compileClause(attribute, value, "=")));
+    }
+
+    /**
+     * Key of the raw request, used to find an already compiled query without parsing it again.
+     */
+    static String rawKey(List<QueryAttribute> attributes) {
+        StringBuilder key = new StringBuilder();
+        for (QueryAttribute attribute : attributes) {
+            key.append(attribute.getAttribute()).append('\u0000')
+                    .append(attribute.getOperator()).append('\u0000')
+                    .append(attribute.getValue()).append('\u0001');
+        }
+        return key.toString();
+    }
+
+    String key() {
+        return key;
+    }
+
+    BitSet evaluate(CapabilityIndex index) {
+        BitSet matches = null;
+        for (Clause clause : clauses) {
+            BitSet clauseMatches = clause.evaluate(index);
+            if (matches == null) {
+                matches = clauseMatches;
+            } else {
+                matches.and(clauseMatches);
+            }
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+        return matches != null ? matches : new BitSet();
+    }
+
+    private static Clause compileClause(String attribute, String rawValue, String operator) {
+        if (attribute == null || rawValue == null) {
+            return new Never();
+        }
+
+        // If operator is null or blank assume '=', else trim (to avoid issues with extra spaces)
+        String op = (operator == null || operator.isBlank()) ? "=" : operator.trim();
+        // normalise to be as accepting as possible
+        String attr = attribute.trim().toLowerCase();
+
+        if (attr.equals("cooling") || attr.equals("heating")) {
+            boolean target = Boolean.parseBoolean(rawValue);
+            return switch (op) {
+                case "=" -> new FlagClause(attr, target);
+                case "!=" -> new FlagClause(attr, !target);
+                default -> new Never();
+            };
+        }
+
+        if (!CapabilityIndex.isNumeric(attr) || !Set.of("=", "!=", "<", ">").contains(op)) {
+            return new Never();
+        }
+        try {
+            return new NumberClause(attr, op, Double.parseDouble(rawValue), null);
+        } catch (NumberFormatException e) {
+            // kept so the value is rejected the same way as before, when there is something to compare
+            return new NumberClause(attr, op, Double.NaN, rawValue);
+        }
+    }
+
+    private sealed interface Clause permits FlagClause, NumberClause, Never {
+        String key();
+
+        BitSet evaluate(CapabilityIndex index);
+    }
+
+    private record FlagClause(String attribute, boolean wantTrue) implements Clause {
+        public String key() {
+            return attribute + "=" + wantTrue;
+        }
+
+        public BitSet evaluate(CapabilityIndex index) {
+            return index.matchFlag(attribute, wantTrue);
+        }
+    }
+
+    private record NumberClause(String attribute, String operator, double target, String unparsable) implements Clause {
+        public String key() {
+            return attribute + operator + (unparsable != null ? unparsable : Double.toString(target));
+        }
+
+        public BitSet evaluate(CapabilityIndex index) {
+            if (unparsable != null) {
+                if (index.hasValues(attribute)) {
+                    Double.parseDouble(unparsable);  // throws NumberFormatException
+                }
+                return new BitSet();
+            }
+            return index.matchNumber(attribute, operator, target);
+        }
+    }
+
+    private record Never() implements Clause {
+        public String key() {
+            return "none";
+        }
+
+        public BitSet evaluate(CapabilityIndex index) {
+            return new BitSet();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package dds.service;
+
+import dds.dto.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Capacitated vehicle-routing solver for spreading dispatches over several drones.
+ *
+ * <p>Dispatches are split by date (a trip cannot mix dates). For each date, routes are built with the
+ * Clarke-Wright savings heuristic starting from one trip per dispatch, then improved by a local search
+ * (relocate between routes, 2-opt within a route) until no move helps or the time budget runs out.
+ * All route costs come from a cached leg matrix of estimated moves; exact paths are searched later.
+ */
+@Component
+@Slf4j
+public class CapacitatedRoutingSolver {
+
+    private static final double EPSILON = 1e-9;
+
+    private final FleetRegistry fleetRegistry;
+    private final DroneService droneService;
+    private final RouteCalculationHelper routeHelper;
+
+    @Value("${planner.routing.time-budget-ms:250}")
+    private long timeBudgetMs;
+
+    public CapacitatedRoutingSolver(FleetRegistry fleetRegistry,
+                                    DroneService droneService,
+                                    RouteCalculationHelper routeHelper) {
+        this.fleetRegistry = fleetRegistry;
+        this.droneService = droneService;
+        this.routeHelper = routeHelper;
+    }
+
+    /**
+     * Build multi-delivery trips for the given dispatches.
+     * Dispatches that no drone can serve are left out of the result.
+     */
+    public List<RoutePlan> solve(List<MedDispatchRec> dispatches) {
+        return solve(fleetRegistry.snapshot(), dispatches);
+    }
+
+    /**
+     * {@link #solve(List)} against a fleet snapshot the caller has already resolved.
+     */
+    public List<RoutePlan> solve(FleetRegistry.FleetSnapshot fleet, List<MedDispatchRec> dispatches) {
+        if (dispatches == null || dispatches.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000L;
+        List<RoutePlan> plans = new ArrayList<>();
+
+        for (RoutingModel model : buildModels(fleet, dispatches)) {
+            List<List<Integer>> routes = construct(model);
+            improve(model, routes, deadline);
+            plans.addAll(toPlans(model, routes));
+        }
+
+        log.debug("Routed {} dispatches into {} trips", dispatches.size(), plans.size());
+        return plans;
+    }
+
+    /**
+     * Build one routing model per delivery date, all from the same fleet snapshot.
+     */
+    List<RoutingModel> buildModels(FleetRegistry.FleetSnapshot fleet, List<MedDispatchRec> dispatches) {
+        Map<Optional<LocalDate>, List<MedDispatchRec>> byDate = dispatches.stream()
+                .collect(Collectors.groupingBy(d -> Optional.ofNullable(d.getDate()),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        List<RoutingModel> models = new ArrayList<>();
+        for (List<MedDispatchRec> group : byDate.values()) {
+            models.add(buildModel(group, fleet));
+        }
+        return models;
+    }
+
+    private RoutingModel buildModel(List<MedDispatchRec> group, FleetRegistry.FleetSnapshot fleet) {
+        int n = group.size();
+        List<Position> points = new ArrayList<>();
+        for (MedDispatchRec dispatch : group) {
+            points.add(dispatch.getDelivery());
+        }
+
+        List<RoutingModel.Vehicle> vehicles = new ArrayList<>();
+        List<WeeklyAvailability> vehicleAvailability = new ArrayList<>();
+        Map<Integer, Integer> basePointByServicePoint = new HashMap<>();
+
+        for (FleetRegistry.Assignment assignment : fleet.getAssignments()) {
+            Position base = assignment.getLocation();
+            Drone drone = fleet.getDronesById().get(assignment.getAvailability().getId());
+            if (base == null || drone == null || drone.getCapability() == null) {
+                continue;
+            }
+            int basePoint = basePointByServicePoint.computeIfAbsent(assignment.getServicePointId(), id -> {
+                points.add(base);
+                return points.size() - 1;
+            });
+            vehicles.add(new RoutingModel.Vehicle(drone, base, basePoint));
+            vehicleAvailability.add(assignment.getWeekly());
+        }
+
+        // Which vehicles could serve each dispatch on its own
+        BitSet[] feasible = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            feasible[i] = new BitSet(vehicles.size());
+            MedDispatchRec dispatch = group.get(i);
+            if (dispatch.getDelivery() == null) {
+                continue;
+            }
+            for (int v = 0; v < vehicles.size(); v++) {
+                if (isIndividuallyFeasible(dispatch, vehicles.get(v).drone, vehicleAvailability.get(v))) {
+                    feasible[i].set(v);
+                }
+            }
+        }
+
+        LegMatrix legs = new LegMatrix(points, (a, b) -> a == null || b == null
+                ? Double.POSITIVE_INFINITY
+                : droneService.calculateMinimumMoves(fleet, a, b));
+
+        return new RoutingModel(group, vehicles, legs, feasible, routeHelper);
+    }
+
+    private boolean isIndividuallyFeasible(MedDispatchRec dispatch, Drone drone, WeeklyAvailability availability) {
+        DroneCapability capability = drone.getCapability();
+        MedDispatchRequirements requirements = dispatch.getRequirements();
+        if (requirements != null) {
+            if (capability.getCapacity() == null || Double.compare(capability.getCapacity(), requirements.getCapacity()) < 0) {
+                return false;
+            }
+            if (Boolean.TRUE.equals(requirements.getCooling()) && !Boolean.TRUE.equals(capability.getCooling())) {
+                return false;
+            }
+            if (Boolean.TRUE.equals(requirements.getHeating()) && !Boolean.TRUE.equals(capability.getHeating())) {
+                return false;
+            }
+        }
+        return droneService.isDispatchWithinAvailability(dispatch, availability);
+    }
+
+    /**
+     * Clarke-Wright savings construction: start with one trip per dispatch and merge trip ends
+     * in order of decreasing savings whenever the merged trip is feasible and cheaper.
+     */
+    List<List<Integer>> construct(RoutingModel model) {
+        int n = model.size();
+        List<List<Integer>> routeOf = new ArrayList<>(Collections.nCopies(n, null));
+        Map<List<Integer>, Double> costOf = new IdentityHashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            if (!model.isServable(i)) {
+                continue;
+            }
+            List<Integer> route = new ArrayList<>(List.of(i));
+            RoutingModel.Evaluation evaluation = model.evaluate(route);
+            if (evaluation != null) {
+                routeOf.set(i, route);
+                costOf.put(route, evaluation.cost);
+            }
+        }
+
+        // Savings relative to the base of the cheapest singleton trip for the first dispatch
+        List<double[]> savings = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (routeOf.get(i) == null) {
+                continue;
+            }
+            int base = model.vehicles.get(model.evaluate(routeOf.get(i)).vehicle).basePoint;
+            for (int j = i + 1; j < n; j++) {
+                if (routeOf.get(j) == null) {
+                    continue;
+                }
+                double saving = model.legs.moves(base, i) + model.legs.moves(base, j) - model.legs.moves(i, j);
+                if (saving > 0) {
+                    savings.add(new double[]{saving, i, j});
+                }
+            }
+        }
+        savings.sort((a, b) -> Double.compare(b[0], a[0]));
+
+        for (double[] entry : savings) {
+            int i = (int) entry[1];
+            int j = (int) entry[2];
+            List<Integer> first = routeOf.get(i);
+            List<Integer> second = routeOf.get(j);
+            if (first == second || !isEndpoint(first, i) || !isEndpoint(second, j)) {
+                continue;
+            }
+
+            // Orient so that i ends the first route and j starts the second
+            List<Integer> merged = new ArrayList<>(first);
+            if (merged.getFirst() == i && merged.size() > 1) {
+                Collections.reverse(merged);
+            }
+            List<Integer> tail = new ArrayList<>(second);
+            if (tail.getLast() == j && tail.size() > 1) {
+                Collections.reverse(tail);
+            }
+            merged.addAll(tail);
+
+            RoutingModel.Evaluation evaluation = model.evaluate(merged);
+            if (evaluation == null || evaluation.cost >= costOf.get(first) + costOf.get(second) - EPSILON) {
+                continue;
+            }
+
+            costOf.remove(first);
+            costOf.remove(second);
+            costOf.put(merged, evaluation.cost);
+            for (int dispatch : merged) {
+                routeOf.set(dispatch, merged);
+            }
+        }
+
+        // Collect the surviving routes in dispatch order so the result is deterministic
+        List<List<Integer>> routes = new ArrayList<>();
+        Set<List<Integer>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<Integer> route : routeOf) {
+            if (route != null && seen.add(route)) {
+                routes.add(route);
+            }
+        }
+        return routes;
+    }
+
+    private boolean isEndpoint(List<Integer> route, int dispatch) {
+        return route.getFirst() == dispatch || route.getLast() == dispatch;
+    }
+
+    /**
+     * Local search: relocate single dispatches between routes and reverse segments within a route,
+     * applying the first improving move found, until no move improves or the deadline passes.
+     */
+    void improve(RoutingModel model, List<List<Integer>> routes, long deadline) {
+        List<Double> costs = new ArrayList<>();
+        for (List<Integer> route : routes) {
+            costs.add(model.evaluate(route).cost);
+        }
+
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = relocate(model, routes, costs, deadline) || twoOpt(model, routes, costs, deadline);
+        }
+        routes.removeIf(List::isEmpty);
+    }
+
+    private boolean relocate(RoutingModel model, List<List<Integer>> routes, List<Double> costs, long deadline) {
+        for (int a = 0; a < routes.size(); a++) {
+            List<Integer> source = routes.get(a);
+            for (int p = 0; p < source.size(); p++) {
+                List<Integer> reducedSource = new ArrayList<>(source);
+                int dispatch = reducedSource.remove(p);
+                double reducedSourceCost = reducedSource.isEmpty() ? 0 : costOrInfinity(model, reducedSource);
+                if (Double.isInfinite(reducedSourceCost)) {
+                    continue;
+                }
+
+                for (int b = 0; b < routes.size(); b++) {
+                    if (b == a || routes.get(b).isEmpty()) {
+                        continue;
+                    }
+                    if (System.nanoTime() >= deadline) {
+                        return false;
+                    }
+                    List<Integer> target = routes.get(b);
+                    double before = costs.get(a) + costs.get(b);
+
+                    for (int q = 0; q <= target.size(); q++) {
+                        List<Integer> extendedTarget = new ArrayList<>(target);
+                        extendedTarget.add(q, dispatch);
+                        double extendedCost = costOrInfinity(model, extendedTarget);
+                        if (reducedSourceCost + extendedCost < before - EPSILON) {
+                            routes.set(a, reducedSource);
+                            costs.set(a, reducedSourceCost);
+                            routes.set(b, extendedTarget);
+                            costs.set(b, extendedCost);
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean twoOpt(RoutingModel model, List<List<Integer>> routes, List<Double> costs, long deadline) {
+        for (int r = 0; r < routes.size(); r++) {
+            List<Integer> route = routes.get(r);
+            for (int i = 0; i < route.size() - 1; i++) {
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+                for (int j = i + 1; j < route.size(); j++) {
+                    List<Integer> candidate = new ArrayList<>(route);
+                    Collections.reverse(candidate.subList(i, j + 1));
+                    double cost = costOrInfinity(model, candidate);
+                    if (cost < costs.get(r) - EPSILON) {
+                        routes.set(r, candidate);
+                        costs.set(r, cost);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private double costOrInfinity(RoutingModel model, List<Integer> route) {
+        RoutingModel.Evaluation evaluation = model.evaluate(route);
+        return evaluation != null ? evaluation.cost : Double.POSITIVE_INFINITY;
+    }
+
+    List<RoutePlan> toPlans(RoutingModel model, List<List<Integer>> routes) {
+        List<RoutePlan> plans = new ArrayList<>();
+        for (List<Integer> route : routes) {
+            RoutingModel.Evaluation evaluation = model.evaluate(route);
+            if (evaluation == null) {
+                continue;
+            }
+            RoutingModel.Vehicle vehicle = model.vehicles.get(evaluation.vehicle);
+            List<MedDispatchRec> ordered = route.stream()
+                    .map(model.dispatches::get)
+                    .collect(Collectors.toList());
+            plans.add(new RoutePlan(vehicle.drone.getId(), vehicle.base, ordered, evaluation.cost));
+        }
+        plans.sort(Comparator.comparingDouble(RoutePlan::getEstimatedCost));
+        return plans;
+    }
+}
@@ -1,5 +1,6 @@
 package dds.service;
 
+import dds.configuration.ConditionalOnDatabase;
 import dds.dto.*;
 import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
@@ -7,11 +8,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Service that seeds the PostgreSQL database with data from the Azure API on first run.
- * Only seeds if the database is empty.
+ * Only seeds if the database is empty. Not created for the in-memory data source, which loads its own data.
  */
+@ConditionalOnDatabase
 @Slf4j
 @Service
 public class DataSeederService {
@@ -40,64 +46,49 @@ public class DataSeederService {
 
     /**
      * Seed all data from Azure API to PostgreSQL.
+     * The four datasets are fetched concurrently on virtual threads, then each is written with
+     * one batch insert in its own transaction.
      */
     public void seedAllData() {
-        seedDrones();
-        seedServicePoints();
-        seedRestrictedAreas();
-        seedDroneAvailability();
-    }
+        List<Drone> drones;
+        List<ServicePoint> servicePoints;
+        List<RestrictedArea> areas;
+        List<DroneForServicePoint> dronesForServicePoints;
+        try (ExecutorService fetchers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<Drone>> dronesFetch = fetchers.submit(ilpDataService::getAllDrones);
+            Future<List<ServicePoint>> servicePointsFetch = fetchers.submit(ilpDataService::getServicePoints);
+            Future<List<RestrictedArea>> areasFetch = fetchers.submit(ilpDataService::getRestrictedAreas);
+            Future<List<DroneForServicePoint>> availabilityFetch = fetchers.submit(ilpDataService::getDronesForServicePoints);
 
-    private void seedDrones() {
-        List<Drone> drones = ilpDataService.getAllDrones();
-        log.info("Seeding {} drones...", drones.size());
-        
-        for (Drone drone : drones) {
-            postgresDataService.saveDrone(drone);
+            drones = await(dronesFetch);
+            servicePoints = await(servicePointsFetch);
+            areas = await(areasFetch);
+            dronesForServicePoints = await(availabilityFetch);
         }
-        log.debug("Successfully seeded {} drones", drones.size());
-    }
 
-    private void seedServicePoints() {
-        List<ServicePoint> servicePoints = ilpDataService.getServicePoints();
+        log.info("Seeding {} drones...", drones.size());
+        postgresDataService.saveDrones(drones);
+
         log.info("Seeding {} service points...", servicePoints.size());
-        
-        for (ServicePoint sp : servicePoints) {
-            postgresDataService.saveServicePoint(sp);
-        }
-        log.debug("Successfully seeded {} service points", servicePoints.size());
-    }
+        postgresDataService.saveServicePoints(servicePoints);
 
-    private void seedRestrictedAreas() {
-        List<RestrictedArea> areas = ilpDataService.getRestrictedAreas();
         log.info("Seeding {} restricted areas...", areas.size());
-        
-        for (RestrictedArea area : areas) {
-            postgresDataService.saveRestrictedArea(area);
-        }
-        log.debug("Successfully seeded {} restricted areas", areas.size());
-    }
+        postgresDataService.saveRestrictedAreas(areas);
 
-    private void seedDroneAvailability() {
-        List<DroneForServicePoint> dronesForServicePoints = ilpDataService.getDronesForServicePoints();
         log.info("Seeding drone availability for {} service points...", dronesForServicePoints.size());
-        
-        int totalWindows = 0;
-        for (DroneForServicePoint dfsp : dronesForServicePoints) {
-            if (dfsp.getDrones() != null) {
-                for (ServicePointDroneAvailability spda : dfsp.getDrones()) {
-                    if (spda.getAvailability() != null) {
-                        postgresDataService.saveAvailability(
-                                spda.getId(),
-                                dfsp.getServicePointId(),
-                                spda.getAvailability()
-                        );
-                        totalWindows += spda.getAvailability().size();
-                    }
-                }
-            }
+        AvailabilityUpdateResult availability = postgresDataService.applyAvailability(dronesForServicePoints, true);
+        log.debug("Seeded {} availability windows ({} already stored)", availability.getInserted(), availability.getUnchanged());
+    }
+
+    private static <T> T await(Future<T> fetch) {
+        try {
+            return fetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching seed data", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to fetch seed data", e.getCause());
         }
-        log.debug("Seeded {} availability windows", totalWindows);
     }
 
     /**
@@ -116,7 +107,8 @@ public class DataSeederService {
         postgresDataService.deleteAllRestrictedAreas();
         postgresDataService.deleteAllAvailability();
         
-        // Re-seed from Azure
+        // Re-seed from Azure, revalidating anything cached from earlier reads
+        ilpDataService.invalidate();
         seedAllData();
         log.info("Re-seeding complete!");
     }
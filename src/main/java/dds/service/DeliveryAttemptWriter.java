@@ -0,0 +1,248 @@
+package dds.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dds.configuration.ConditionalOnDatabase;
+import dds.dto.MedDispatchRec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes delivery attempts to {@code delivery_attempts} in the background, so logging an attempt costs
+ * the request an enqueue rather than a JSON serialization and a database round trip.
+ *
+ * <p>Attempts go into a bounded lock-free queue. A writer thread drains it whenever a batch has filled up
+ * or the flush interval has passed, serializes the requests and inserts the batch with one JDBC batch.
+ * When the queue is full, {@code delivery.history.overflow} decides: {@code caller-runs} (the default)
+ * writes the attempt in the caller's thread, {@code drop-newest} discards it and {@code drop-oldest}
+ * discards the oldest queued one instead. The queue is flushed on shutdown, after the web server has
+ * stopped taking requests. Queue depth, flush latency and dropped attempts are published as metrics.
+ */
+@ConditionalOnDatabase
+@Service
+@Slf4j
+public class DeliveryAttemptWriter implements SmartLifecycle {
+
+    private static final String INSERT = """
+            INSERT INTO delivery_attempts
+                (attempted_at, success, request_payload, drone_id_used, total_cost, total_moves)
+            VALUES (?, ?, ?, ?, ?, ?)""";
+
+    enum Overflow {
+        CALLER_RUNS,
+        DROP_NEWEST,
+        DROP_OLDEST;
+
+        static Overflow parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Unknown delivery.history.overflow '" + value
+                        + "', expected caller-runs, drop-newest or drop-oldest", e);
+            }
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${delivery.history.queue-capacity:10000}")
+    private int capacity = 10000;
+
+    @Value("${delivery.history.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${delivery.history.flush-interval-ms:500}")
+    private long flushIntervalMs = 500;
+
+    @Value("${delivery.history.overflow:caller-runs}")
+    private String overflow = "caller-runs";
+
+    private final Queue<PendingAttempt> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Timer flushTimer;
+    private Overflow overflowPolicy = Overflow.CALLER_RUNS;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public DeliveryAttemptWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.flushTimer = meterRegistry.timer("delivery.history.flush");
+        meterRegistry.gauge("delivery.history.queue.depth", depth);
+    }
+
+    /**
+     * Queue one attempt for writing. Before the writer has started or after it has stopped, the attempt
+     * is written straight away. An attempt queued while the writer is stopping is flushed by whichever of
+     * the two sees the other: either {@link #stop()}'s final flush finds it in the queue, or this call
+     * sees the writer stopped after queueing it and flushes it itself.
+     */
+    public void submit(PendingAttempt attempt) {
+        if (!running) {
+            write(List.of(attempt));
+            return;
+        }
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            switch (overflowPolicy) {
+                case CALLER_RUNS -> {
+                    write(List.of(attempt));
+                    return;
+                }
+                case DROP_NEWEST -> {
+                    dropped("drop-newest");
+                    return;
+                }
+                case DROP_OLDEST -> {
+                    if (queue.poll() != null) {
+                        depth.decrementAndGet();
+                        dropped("drop-oldest");
+                    }
+                    depth.incrementAndGet();
+                }
+            }
+        }
+        queue.add(attempt);
+        if (!running) {
+            flush();
+        } else if (depth.get() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * Write everything queued so far, in the caller's thread.
+     */
+    public void flush() {
+        List<PendingAttempt> batch;
+        while (!(batch = drain()).isEmpty()) {
+            write(batch);
+        }
+    }
+
+    /**
+     * Number of attempts waiting to be written.
+     */
+    public int depth() {
+        return depth.get();
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        // fails startup on a typo instead of quietly falling back to another policy
+        overflowPolicy = Overflow.parse(overflow);
+        running = true;
+        writerThread = new Thread(this::drainLoop, "delivery-attempt-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        log.debug("Delivery attempt writer stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // stop after the web server (which stops at a higher phase), so requests still in flight are kept
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (depth.get() < batchSize) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+            }
+            List<PendingAttempt> batch = drain();
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        }
+    }
+
+    private List<PendingAttempt> drain() {
+        List<PendingAttempt> batch = new ArrayList<>();
+        PendingAttempt attempt;
+        while (batch.size() < batchSize && (attempt = queue.poll()) != null) {
+            depth.decrementAndGet();
+            batch.add(attempt);
+        }
+        return batch;
+    }
+
+    private void write(List<PendingAttempt> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (PendingAttempt attempt : batch) {
+            rows.add(new Object[]{Timestamp.valueOf(attempt.attemptedAt()), attempt.success(),
+                    toJson(attempt.dispatches()), attempt.droneId(), attempt.totalCost(), attempt.totalMoves()});
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            jdbcTemplate.batchUpdate(INSERT, rows);
+            log.debug("Wrote {} delivery attempts", rows.size());
+        } catch (DataAccessException e) {
+            // analytics only: losing a batch must not take planning down with it
+            log.error("Failed to write {} delivery attempts", rows.size(), e);
+            meterRegistry.counter("delivery.history.dropped", "reason", "error").increment(rows.size());
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+
+    private void dropped(String reason) {
+        meterRegistry.counter("delivery.history.dropped", "reason", reason).increment();
+    }
+
+    private String toJson(Object obj) {
+        try {
+            return objectMapper.writeValueAsString(obj);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize delivery request to JSON", e);
+            return "{}";
+        }
+    }
+
+    /**
+     * A delivery attempt waiting to be written. The request is serialized by the writer, not the caller.
+     */
+    public record PendingAttempt(LocalDateTime attemptedAt, boolean success, List<MedDispatchRec> dispatches,
+                                 String droneId, Double totalCost, Integer totalMoves) {
+    }
+}
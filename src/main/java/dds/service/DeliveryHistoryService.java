@@ -1,8 +1,7 @@
 package dds.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import dds.dto.DeliveryHistoryItem;
@@ -12,55 +11,56 @@ import dds.dto.MedDispatchRec;
 import dds.entity.DeliveryAttemptEntity;
 import dds.repository.DeliveryAttemptRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * Service for logging delivery attempts and querying analytics.
- * All delivery calculations (success and failure) are logged to PostgreSQL.
+ * All delivery calculations (success and failure) are logged to PostgreSQL, written behind the
+ * request by {@link DeliveryAttemptWriter}. With {@code ilp.data.source=memory} there is no database,
+ * so nothing is logged and the analytics are empty.
  */
 @Service
 @Slf4j
 public class DeliveryHistoryService {
 
     private final DeliveryAttemptRepository repository;
-    private final ObjectMapper objectMapper;
+    private final DeliveryAttemptWriter writer;
 
-    public DeliveryHistoryService(DeliveryAttemptRepository repository, ObjectMapper objectMapper) {
+    public DeliveryHistoryService(@Nullable DeliveryAttemptRepository repository,
+                                  @Nullable DeliveryAttemptWriter writer) {
         this.repository = repository;
-        this.objectMapper = objectMapper;
+        this.writer = writer;
     }
 
     /**
      * Log a successful delivery attempt.
      */
     public void logSuccess(List<MedDispatchRec> dispatches, DeliveryPathResponse response) {
+        if (writer == null) {
+            return;
+        }
         log.debug("Logging successful delivery attempt with {} dispatches", dispatches.size());
-        String requestJson = toJson(dispatches);
-        
         String droneId = null;
         if (response.getDronePaths() != null && !response.getDronePaths().isEmpty()) {
             droneId = response.getDronePaths().getFirst().getDroneId();
         }
-        
-        DeliveryAttemptEntity entity = DeliveryAttemptEntity.success(
-                requestJson,
-                droneId,
-                response.getTotalCost(),
-                (int) response.getTotalMoves()
-        );
-        
-        repository.save(entity);
+
+        writer.submit(new DeliveryAttemptWriter.PendingAttempt(LocalDateTime.now(), true, List.copyOf(dispatches),
+                droneId, response.getTotalCost(), (int) response.getTotalMoves()));
     }
 
     /**
      * Log a failed delivery attempt.
      */
     public void logFailure(List<MedDispatchRec> dispatches) {
+        if (writer == null) {
+            return;
+        }
         log.debug("Logging failed delivery attempt with {} dispatches", dispatches.size());
-        String requestJson = toJson(dispatches);
-        DeliveryAttemptEntity entity = DeliveryAttemptEntity.failure(requestJson);
-        repository.save(entity);
+        writer.submit(new DeliveryAttemptWriter.PendingAttempt(LocalDateTime.now(), false, List.copyOf(dispatches),
+                null, null, null));
     }
 
     /**
@@ -69,7 +69,10 @@ public class DeliveryHistoryService {
     @Transactional(readOnly = true)
     public DeliveryStats getStats() {
         DeliveryStats stats = new DeliveryStats();
-        
+        if (repository == null) {
+            return stats;
+        }
+
         long total = repository.count();
         long successCount = repository.countBySuccess(true);
         long failureCount = repository.countBySuccess(false);
@@ -105,6 +108,9 @@ public class DeliveryHistoryService {
      */
     @Transactional(readOnly = true)
     public List<DeliveryHistoryItem> getRecentAttempts() {
+        if (repository == null) {
+            return List.of();
+        }
         return repository.findTop20ByOrderByAttemptedAtDesc().stream()
                 .map(this::entityToDto)
                 .collect(Collectors.toList());
@@ -123,16 +129,4 @@ public class DeliveryHistoryService {
                 entity.getTotalMoves()
         );
     }
-
-    /**
-     * Convert object to JSON string for storage.
-     */
-    private String toJson(Object obj) {
-        try {
-            return objectMapper.writeValueAsString(obj);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to serialize delivery request to JSON", e);
-            return "{}";
-        }
-    }
 }
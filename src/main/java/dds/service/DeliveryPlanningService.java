@@ -1,6 +1,7 @@
 package dds.service;
 
 import dds.dto.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -13,45 +14,87 @@ public class DeliveryPlanningService {
     private final PathfindingService pathfindingService;
     private final LocationService locationService;
     private final RouteCalculationHelper routeHelper;
+    private final DispatchAssignmentEngine assignmentEngine;
+    private final CapacitatedRoutingSolver routingSolver;
+    private final LargeNeighbourhoodSearch largeNeighbourhoodSearch;
+    private final FleetRegistry fleetRegistry;
+
+    // Share of the optimisation time kept back for the exact path searches of the optimised trips
+    private static final double EXACT_PLANNING_SHARE = 0.25;
+
+    @Value("${planner.lns.max-time-budget-ms:10000}")
+    private long maxTimeBudgetMs;
 
     public DeliveryPlanningService(DroneService droneService,
             PathfindingService pathfindingService,
             LocationService locationService,
-            RouteCalculationHelper routeHelper) {
+            RouteCalculationHelper routeHelper,
+            DispatchAssignmentEngine assignmentEngine,
+            CapacitatedRoutingSolver routingSolver,
+            LargeNeighbourhoodSearch largeNeighbourhoodSearch,
+            FleetRegistry fleetRegistry) {
         this.droneService = droneService;
         this.pathfindingService = pathfindingService;
         this.locationService = locationService;
         this.routeHelper = routeHelper;
+        this.assignmentEngine = assignmentEngine;
+        this.routingSolver = routingSolver;
+        this.largeNeighbourhoodSearch = largeNeighbourhoodSearch;
+        this.fleetRegistry = fleetRegistry;
     }
 
     public DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches, String droneIdToBeUsed) {
+        return calcDeliveryPath(dispatches, droneIdToBeUsed, null);
+    }
+
+    public DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches, String droneIdToBeUsed, Long timeBudgetMs) {
+        return calcDeliveryPath(dispatches, droneIdToBeUsed, timeBudgetMs, PlanningProgress.NONE);
+    }
+
+    /**
+     * Plan a delivery, optionally spending up to {@code timeBudgetMs} improving the greedy plan.
+     * With no budget the greedy plan is returned as is. With a budget, the plan is improved by
+     * large neighbourhood search until the deadline, and the cheaper of the two plans is returned.
+     * {@code progress} is told each time planning moves on to another stage. The whole plan is made
+     * against one fleet and reference data snapshot, resolved up front.
+     */
+    public DeliveryPathResponse calcDeliveryPath(List<MedDispatchRec> dispatches, String droneIdToBeUsed, Long timeBudgetMs,
+                                                 PlanningProgress progress) {
+        long deadline = timeBudgetMs != null && timeBudgetMs > 0
+                ? System.nanoTime() + Math.min(timeBudgetMs, maxTimeBudgetMs) * 1_000_000L
+                : 0;
+
         if (dispatches == null || dispatches.isEmpty()) {
             return new DeliveryPathResponse(0, 0, Collections.emptyList());
         }
 
+        FleetRegistry.FleetSnapshot fleet = fleetRegistry.snapshot();
+
         List<DronePath> allDronePaths = new ArrayList<>();
 
         // If a specific drone is requested, try it first
         if (droneIdToBeUsed != null && !droneIdToBeUsed.isEmpty()) {
-            DronePath preferredDronePath = planSingleDroneDelivery(droneIdToBeUsed, dispatches);
+            progress.update(PlanningProgress.PREFERRED_DRONE, 0);
+            DronePath preferredDronePath = planSingleDroneDelivery(fleet, droneIdToBeUsed, dispatches);
             if (preferredDronePath != null) {
                 allDronePaths.add(preferredDronePath);
                 DeliveryPathResponse response = new DeliveryPathResponse();
                 response.setDronePaths(allDronePaths);
-                calculateTotals(response);
+                calculateTotals(fleet, response);
                 return response;
             }
             // If preferred drone fails, fall through to automatic selection
         }
 
         // Automatic drone selection (existing logic)
-        List<String> availableDrones = droneService.queryAvailableDrones(dispatches);
+        progress.update(PlanningProgress.SINGLE_DRONE, 0);
+        List<String> availableDrones = droneService.queryAvailableDrones(fleet, dispatches);
 
         // Try to fulfill with a single drone first
         boolean singleDroneSuccess = false;
         if (!availableDrones.isEmpty()) {
             for (String droneId : availableDrones) {
-                DronePath dronePath = planSingleDroneDelivery(droneId, dispatches);
+                DronePath dronePath = planSingleDroneDelivery(fleet, droneId, dispatches);
                 if (dronePath != null) {
                     allDronePaths.add(dronePath);
                     singleDroneSuccess = true;
@@ -62,17 +105,77 @@ public class DeliveryPlanningService {
 
         // Fallback to multiple drones if single drone plan failed (optimisation is key)
         if (!singleDroneSuccess) {
-            allDronePaths.addAll(allocateToMultipleDrones(dispatches));
+            progress.update(PlanningProgress.MULTI_DRONE, 0);
+            allDronePaths.addAll(allocateToMultipleDrones(fleet, dispatches));
         }
 
         DeliveryPathResponse response = new DeliveryPathResponse();
         response.setDronePaths(allDronePaths);
-        calculateTotals(response);
+        calculateTotals(fleet, response);
 
+        if (deadline != 0) {
+            progress.update(PlanningProgress.OPTIMISING, countDeliveries(response));
+            return optimiseUntil(fleet, dispatches, response, deadline);
+        }
         return response;
     }
 
-    private DronePath planSingleDroneDelivery(String droneId,
+    /**
+     * Run the anytime optimizer from the greedy plan and keep its result only if it delivers
+     * at least as many dispatches for a lower total cost.
+     * The deadline covers the exact path searches of the optimised trips too: the search stops early
+     * enough to leave time for them, and if they still overrun the deadline the greedy plan is returned.
+     */
+    private DeliveryPathResponse optimiseUntil(FleetRegistry.FleetSnapshot fleet, List<MedDispatchRec> dispatches, DeliveryPathResponse greedy, long deadline) {
+        long now = System.nanoTime();
+        if (now >= deadline) {
+            return greedy;
+        }
+        long searchDeadline = now + (long) ((deadline - now) * (1 - EXACT_PLANNING_SHARE));
+
+        List<DronePath> dronePaths = new ArrayList<>();
+        List<MedDispatchRec> remaining = new ArrayList<>(dispatches);
+        for (RoutePlan route : largeNeighbourhoodSearch.optimise(fleet, dispatches, greedy.getDronePaths(), searchDeadline)) {
+            if (System.nanoTime() >= deadline) {
+                return greedy;
+            }
+            Drone drone = fleet.getDronesById().get(route.getDroneId());
+            if (drone == null) {
+                continue;
+            }
+            DronePath path = planFromBase(fleet, drone, route.getBase(), route.getDispatches());
+            if (path != null) {
+                dronePaths.add(path);
+                remaining.removeAll(route.getDispatches());
+            }
+        }
+        List<DronePath> individualPaths = allocateIndividually(fleet, remaining, deadline);
+        if (individualPaths == null) {
+            return greedy;
+        }
+        dronePaths.addAll(individualPaths);
+
+        DeliveryPathResponse optimised = new DeliveryPathResponse();
+        optimised.setDronePaths(dronePaths);
+        calculateTotals(fleet, optimised);
+
+        if (countDeliveries(optimised) >= countDeliveries(greedy)
+                && optimised.getTotalCost() < greedy.getTotalCost()) {
+            return optimised;
+        }
+        return greedy;
+    }
+
+    /**
+     * Number of dispatches a plan delivers.
+     */
+    static int countDeliveries(DeliveryPathResponse response) {
+        return response.getDronePaths().stream()
+                .mapToInt(path -> path.getDeliveries() != null ? path.getDeliveries().size() : 0)
+                .sum();
+    }
+
+    private DronePath planSingleDroneDelivery(FleetRegistry.FleetSnapshot fleet, String droneId,
             List<MedDispatchRec> dispatches) {
         // Early check: all dispatches must be on the same date
         if (dispatches.size() > 1) {
@@ -84,36 +187,49 @@ public class DeliveryPlanningService {
             }
         }
 
-        Drone drone = droneService.getDroneById(droneId);
+        Drone drone = fleet.getDronesById().get(droneId);
         if (drone == null) {
             return null;
         }
 
-        Position servicePoint = routeHelper.findValidServicePoint(droneId, dispatches);
+        Position servicePoint = routeHelper.findValidServicePoint(fleet, droneId, dispatches);
         if (servicePoint == null) {
             return null;
         }
 
+        return planFromBase(fleet, drone, servicePoint, dispatches);
+    }
+
+    private DronePath planFromBase(FleetRegistry.FleetSnapshot fleet, Drone drone, Position servicePoint, List<MedDispatchRec> dispatches) {
         // try optimized multi-delivery trip first (more efficient)
-        DronePath optimizedPath = planMultiDeliveryTrip(drone, servicePoint, dispatches);
+        DronePath optimizedPath = planMultiDeliveryTrip(fleet, drone, servicePoint, dispatches);
         if (optimizedPath != null) {
             return optimizedPath;
         }
 
         // Fall back single delivery trip
-        return planSingleDeliveryTrip(drone, servicePoint, dispatches);
+        return planSingleDeliveryTrip(fleet, drone, servicePoint, dispatches);
     }
 
-    private DronePath planMultiDeliveryTrip(Drone drone, Position servicePoint, List<MedDispatchRec> dispatches) {
+    private DronePath planMultiDeliveryTrip(FleetRegistry.FleetSnapshot fleet, Drone drone, Position servicePoint, List<MedDispatchRec> dispatches) {
         List<Delivery> deliveries = new ArrayList<>();
         Position currentLocation = servicePoint;
 
+        // the whole trip shares one budget, so each leg only gets what the legs after it cannot need
+        int budget = moveBudget(drone.getCapability(), sharedCostLimit(dispatches));
+        int movesUsed = 0;
+
         for (int i = 0; i < dispatches.size(); i++) {
             MedDispatchRec dispatch = dispatches.get(i);
             Position deliveryLocation = dispatch.getDelivery();
             Integer deliveryId = dispatch.getId();
 
-            List<Position> path = new ArrayList<>(pathfindingService.findPath(currentLocation, deliveryLocation));
+            int legBudget = budget - movesUsed - movesStillNeeded(dispatches, i, servicePoint);
+            if (legBudget < 0) {
+                return null;
+            }
+
+            List<Position> path = new ArrayList<>(pathfindingService.findPath(fleet.getReference(), currentLocation, deliveryLocation, legBudget));
 
             if (path.isEmpty() || !locationService.isCloseTo(path.getLast(), deliveryLocation)) {
                 return null;
@@ -123,7 +239,8 @@ public class DeliveryPlanningService {
             path.add(lastPos); // Hover at delivery location
 
             if (i == dispatches.size() - 1) {
-                List<Position> returnPath = pathfindingService.findPath(lastPos, servicePoint);
+                int returnBudget = budget - movesUsed - (path.size() - 1);
+                List<Position> returnPath = pathfindingService.findPath(fleet.getReference(), lastPos, servicePoint, returnBudget);
 
                 if (returnPath.isEmpty() || !locationService.isCloseTo(returnPath.getLast(), servicePoint)) {
                     return null;
@@ -135,6 +252,7 @@ public class DeliveryPlanningService {
             }
 
             currentLocation = lastPos;
+            movesUsed += path.size() - 1;
             deliveries.add(new Delivery(deliveryId, path));
         }
 
@@ -149,7 +267,7 @@ public class DeliveryPlanningService {
         return new DronePath(drone.getId(), deliveries);
     }
 
-    private DronePath planSingleDeliveryTrip(Drone drone, Position servicePoint, List<MedDispatchRec> dispatches) {
+    private DronePath planSingleDeliveryTrip(FleetRegistry.FleetSnapshot fleet, Drone drone, Position servicePoint, List<MedDispatchRec> dispatches) {
         List<Delivery> deliveries = new ArrayList<>();
         DroneCapability capability = drone.getCapability();
 
@@ -157,7 +275,17 @@ public class DeliveryPlanningService {
             Position deliveryLocation = dispatch.getDelivery();
             Integer deliveryId = dispatch.getId();
 
-            List<Position> completePath = new ArrayList<>(pathfindingService.findPath(servicePoint, deliveryLocation));
+            // each round trip has its own budget: out, hover, and back
+            double maxCost = dispatch.getRequirements() != null && dispatch.getRequirements().getMaxCost() > 0
+                    ? dispatch.getRequirements().getMaxCost()
+                    : Double.POSITIVE_INFINITY;
+            int budget = moveBudget(capability, maxCost);
+            int outBudget = budget - 1 - Math.max(0, pathfindingService.minimumMoves(deliveryLocation, servicePoint) - 1);
+            if (outBudget < 0) {
+                return null;
+            }
+
+            List<Position> completePath = new ArrayList<>(pathfindingService.findPath(fleet.getReference(), servicePoint, deliveryLocation, outBudget));
 
             if (completePath.isEmpty() || !locationService.isCloseTo(completePath.getLast(), deliveryLocation)) {
                 return null;
@@ -166,7 +294,8 @@ public class DeliveryPlanningService {
             Position lastPos = completePath.getLast();
             completePath.add(lastPos); // Hover at delivery location
 
-            List<Position> returnPath = pathfindingService.findPath(lastPos, servicePoint);
+            List<Position> returnPath = pathfindingService.findPath(fleet.getReference(), lastPos, servicePoint,
+                    budget - (completePath.size() - 1));
 
             if (returnPath.isEmpty() || !locationService.isCloseTo(returnPath.getLast(), servicePoint)) {
                 return null;
@@ -195,54 +324,74 @@ public class DeliveryPlanningService {
         return new DronePath(drone.getId(), deliveries);
     }
 
-    private List<DronePath> allocateToMultipleDrones(List<MedDispatchRec> dispatches) {
+    /**
+     * Spread dispatches over several drones.
+     * The routing solver first groups dispatches into multi-delivery trips on estimated costs, and only
+     * those trips get exact path searches. Dispatches whose trip fails exact planning are then matched
+     * to drones individually.
+     */
+    private List<DronePath> allocateToMultipleDrones(FleetRegistry.FleetSnapshot fleet, List<MedDispatchRec> dispatches) {
         List<DronePath> dronePaths = new ArrayList<>();
         List<MedDispatchRec> remaining = new ArrayList<>(dispatches);
 
-        while (!remaining.isEmpty()) {
-            List<String> available = droneService.queryAvailableDrones(remaining);
-            if (available.isEmpty()) {
-                MedDispatchRec dispatch = remaining.removeFirst();
-                List<String> singleAvailable = droneService.queryAvailableDrones(Collections.singletonList(dispatch));
-                if (!singleAvailable.isEmpty()) {
-                    String droneId = singleAvailable.getFirst();
-                    DronePath path = planSingleDroneDelivery(droneId, Collections.singletonList(dispatch));
-                    if (path != null) {
-                        dronePaths.add(path);
-                    }
-                }
+        for (RoutePlan route : routingSolver.solve(fleet, dispatches)) {
+            Drone drone = fleet.getDronesById().get(route.getDroneId());
+            if (drone == null) {
                 continue;
             }
+            DronePath path = planFromBase(fleet, drone, route.getBase(), route.getDispatches());
+            if (path != null) {
+                dronePaths.add(path);
+                remaining.removeAll(route.getDispatches());
+            }
+        }
+
+        dronePaths.addAll(allocateIndividually(fleet, remaining, 0));
+        return dronePaths;
+    }
 
-            String droneId = available.getFirst();
-            Drone drone = droneService.getDroneById(droneId);
+    /**
+     * Match single dispatches to drones using min-cost matching.
+     * Each round matches the remaining dispatches to drones on lower-bound costs and only runs exact
+     * path searches for the chosen pairs. Pairs that fail exact planning are excluded from later rounds.
+     * Returns null if the deadline ({@link System#nanoTime()}, 0 for none) passes before matching is done.
+     */
+    private List<DronePath> allocateIndividually(FleetRegistry.FleetSnapshot fleet, List<MedDispatchRec> dispatches, long deadline) {
+        List<DronePath> dronePaths = new ArrayList<>();
+        List<MedDispatchRec> remaining = new ArrayList<>(dispatches);
+        Set<String> rejectedPairs = new HashSet<>();
 
-            List<MedDispatchRec> batch = findMaximalBatch(remaining, drone);
-            if (!batch.isEmpty()) {
-                DronePath path = planSingleDroneDelivery(droneId, batch);
+        while (!remaining.isEmpty()) {
+            List<DispatchAssignmentEngine.DispatchAssignment> assignments =
+                    assignmentEngine.assign(fleet, remaining, rejectedPairs);
+            if (assignments.isEmpty()) {
+                break;  // nothing left that any drone can serve
+            }
+
+            for (DispatchAssignmentEngine.DispatchAssignment assignment : assignments) {
+                if (deadline != 0 && System.nanoTime() >= deadline) {
+                    return null;
+                }
+                MedDispatchRec dispatch = assignment.getDispatch();
+                DronePath path = planSingleDroneDelivery(fleet, assignment.getDroneId(), Collections.singletonList(dispatch));
                 if (path != null) {
                     dronePaths.add(path);
-                    remaining.removeAll(batch);
-                    continue;
+                    remaining.remove(dispatch);
+                } else {
+                    rejectedPairs.add(DispatchAssignmentEngine.pairKey(dispatch, assignment.getDroneId()));
                 }
             }
-
-            MedDispatchRec dispatch = remaining.removeFirst();
-            DronePath path = planSingleDroneDelivery(droneId, Collections.singletonList(dispatch));
-            if (path != null) {
-                dronePaths.add(path);
-            }
         }
 
         return dronePaths;
     }
 
-    private void calculateTotals(DeliveryPathResponse response) {
+    private void calculateTotals(FleetRegistry.FleetSnapshot fleet, DeliveryPathResponse response) {
         double totalCost = 0;
         int totalMoves = 0;
 
         for (DronePath dronePath : response.getDronePaths()) {
-            Drone drone = droneService.getDroneById(dronePath.getDroneId());
+            Drone drone = fleet.getDronesById().get(dronePath.getDroneId());
             if (drone == null || drone.getCapability() == null) {
                 continue;
             }
@@ -266,6 +415,62 @@ public class DeliveryPlanningService {
         response.setTotalMoves(totalMoves);
     }
 
+    /**
+     * Moves a trip may use: the drone's maxMoves, tightened by the cost limit once the fixed
+     * take-off and landing costs are paid. Negative if even a zero-move trip costs too much.
+     */
+    private int moveBudget(DroneCapability capability, double maxTripCost) {
+        int budget = capability != null && capability.getMaxMoves() != null
+                ? capability.getMaxMoves()
+                : Integer.MAX_VALUE;
+        if (capability == null || Double.isInfinite(maxTripCost)) {
+            return budget;
+        }
+
+        double spendable = maxTripCost - routeHelper.calculateFlightCost(capability, 0);
+        if (spendable < 0) {
+            return -1;
+        }
+
+        double perMove = capability.getCostPerMove() != null ? capability.getCostPerMove() : 0;
+        if (perMove <= 0) {
+            return budget;
+        }
+
+        // tolerance keeps the budget from undercutting the exact cost check by a rounding error
+        double movesByCost = Math.floor(spendable / perMove + 1e-9);
+        return (int) Math.min(budget, movesByCost);
+    }
+
+    /**
+     * Total cost a shared trip may reach: the cost is split evenly, so every dispatch's share must
+     * stay within the tightest maxCost.
+     */
+    private double sharedCostLimit(List<MedDispatchRec> dispatches) {
+        double tightest = Double.POSITIVE_INFINITY;
+        for (MedDispatchRec dispatch : dispatches) {
+            if (dispatch.getRequirements() != null && dispatch.getRequirements().getMaxCost() > 0) {
+                tightest = Math.min(tightest, dispatch.getRequirements().getMaxCost());
+            }
+        }
+        return tightest * dispatches.size();
+    }
+
+    /**
+     * Lower bound on the moves a multi-delivery trip needs from the hover at delivery {@code index}
+     * onwards, i.e. that hover plus every later leg, hover and the return to base. Legs start from
+     * wherever the previous one stopped, up to one step from the delivery, hence one move less per leg.
+     */
+    private int movesStillNeeded(List<MedDispatchRec> dispatches, int index, Position servicePoint) {
+        int moves = 1;
+        for (int j = index + 1; j < dispatches.size(); j++) {
+            moves += Math.max(0, pathfindingService.minimumMoves(
+                    dispatches.get(j - 1).getDelivery(), dispatches.get(j).getDelivery()) - 1) + 1;
+        }
+        moves += Math.max(0, pathfindingService.minimumMoves(dispatches.getLast().getDelivery(), servicePoint) - 1);
+        return moves;
+    }
+
     private boolean exceedsMovesBudget(List<Delivery> deliveries, Drone drone) {
         if (drone == null || drone.getCapability() == null || drone.getCapability().getMaxMoves() == null) {
             return false;
@@ -337,61 +542,20 @@ public class DeliveryPlanningService {
         return true;
     }
 
-    private List<MedDispatchRec> findMaximalBatch(List<MedDispatchRec> dispatches, Drone drone) {
-        if (drone == null || dispatches.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // Early exit: if dispatches span multiple dates, batching is impossible
-        if (dispatches.size() > 1) {
-            LocalDate firstDate = dispatches.getFirst().getDate();
-            boolean allSameDate = dispatches.stream()
-                    .allMatch(d -> Objects.equals(d.getDate(), firstDate));
-            if (!allSameDate) {
-                return Collections.emptyList();
-            }
-        }
-
-        List<MedDispatchRec> bestBatch = Collections.emptyList();
+    /**
+     * Receives the stage a planning run has reached and how many deliveries it has planned so far.
+     */
+    @FunctionalInterface
+    public interface PlanningProgress {
 
-        for (MedDispatchRec reference : dispatches) {
-            Position referenceBase = routeHelper.findValidServicePoint(drone.getId(),
-                    Collections.singletonList(reference));
-            if (referenceBase == null) {
-                continue;
-            }
-
-            LocalDate referenceDate = reference.getDate();
-
-            List<MedDispatchRec> sameBaseAndDate = new ArrayList<>();
-            for (MedDispatchRec candidate : dispatches) {
-                Position candidateBase = routeHelper.findValidServicePoint(drone.getId(),
-                        Collections.singletonList(candidate));
-                if (candidateBase == null) {
-                    continue;
-                }
-                LocalDate candidateDate = candidate.getDate();
-
-                if (locationService.isCloseTo(referenceBase, candidateBase)
-                        && Objects.equals(referenceDate, candidateDate)) {
-                    sameBaseAndDate.add(candidate);
-                }
-            }
-
-            for (int size = sameBaseAndDate.size(); size > 0; size--) {
-                for (int start = 0; start <= sameBaseAndDate.size() - size; start++) {
-                    List<MedDispatchRec> candidate = new ArrayList<>(sameBaseAndDate.subList(start, start + size));
+        String PREFERRED_DRONE = "PREFERRED_DRONE";
+        String SINGLE_DRONE = "SINGLE_DRONE";
+        String MULTI_DRONE = "MULTI_DRONE";
+        String OPTIMISING = "OPTIMISING";
 
-                    if (droneService.queryAvailableDrones(candidate).contains(drone.getId())) {
-                        DronePath testPath = planSingleDroneDelivery(drone.getId(), candidate);
-                        if (testPath != null && candidate.size() > bestBatch.size()) {
-                            bestBatch = candidate;
-                        }
-                    }
-                }
-            }
-        }
+        PlanningProgress NONE = (phase, plannedDeliveries) -> {
+        };
 
-        return bestBatch;
+        void update(String phase, int plannedDeliveries);
     }
 }
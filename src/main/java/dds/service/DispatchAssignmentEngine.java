@@ -0,0 +1,150 @@
+package dds.service;
+
+import dds.dto.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Fleet-wide dispatch-to-drone assignment.
+ *
+ * <p>Lists the feasible drones for each dispatch, priced by cheap straight-line lower bounds, and
+ * solves the resulting sparse min-cost bipartite matching. Infeasible pairs are simply not listed,
+ * so a dispatch no drone can take is left unmatched. Only the chosen pairs need an exact path
+ * search, instead of trying drones one by one in list order.
+ */
+@Component
+@Slf4j
+public class DispatchAssignmentEngine {
+
+    private final FleetRegistry fleetRegistry;
+    private final DroneService droneService;
+    private final RouteCalculationHelper routeHelper;
+
+    public DispatchAssignmentEngine(FleetRegistry fleetRegistry,
+                                    DroneService droneService,
+                                    RouteCalculationHelper routeHelper) {
+        this.fleetRegistry = fleetRegistry;
+        this.droneService = droneService;
+        this.routeHelper = routeHelper;
+    }
+
+    /**
+     * Key identifying a (dispatch, drone) pair, used to exclude pairs that failed exact planning.
+     */
+    public static String pairKey(MedDispatchRec dispatch, String droneId) {
+        return dispatch.getId() + ":" + droneId;
+    }
+
+    /**
+     * Match dispatches to drones so that the total estimated cost is minimal.
+     * Each drone is used at most once per call; dispatches left over can be matched in a later call.
+     *
+     * @param dispatches    dispatches to assign
+     * @param rejectedPairs pair keys (see {@link #pairKey}) that must not be used
+     * @return the chosen pairs, cheapest first
+     */
+    public List<DispatchAssignment> assign(List<MedDispatchRec> dispatches, Set<String> rejectedPairs) {
+        return assign(fleetRegistry.snapshot(), dispatches, rejectedPairs);
+    }
+
+    /**
+     * {@link #assign(List, Set)} against a fleet snapshot the caller has already resolved.
+     */
+    public List<DispatchAssignment> assign(FleetRegistry.FleetSnapshot fleet, List<MedDispatchRec> dispatches,
+                                           Set<String> rejectedPairs) {
+        if (dispatches == null || dispatches.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Sparse candidates: for each dispatch, the cheapest lower bound per feasible drone
+        List<Map<String, Double>> candidates = new ArrayList<>(dispatches.size());
+        SortedSet<String> droneColumns = new TreeSet<>();
+
+        for (MedDispatchRec dispatch : dispatches) {
+            Map<String, Double> bestByDrone = new HashMap<>();
+            for (FleetRegistry.Assignment assignment : fleet.getAssignments()) {
+                Position base = assignment.getLocation();
+                Drone drone = fleet.getDronesById().get(assignment.getAvailability().getId());
+                if (base == null || drone == null || rejectedPairs.contains(pairKey(dispatch, drone.getId()))) {
+                    continue;
+                }
+                double bound = lowerBoundCost(fleet, dispatch, drone, assignment.getWeekly(), base);
+                if (Double.isFinite(bound)) {
+                    bestByDrone.merge(drone.getId(), bound, Math::min);
+                }
+            }
+            candidates.add(bestByDrone);
+            droneColumns.addAll(bestByDrone.keySet());
+        }
+
+        if (droneColumns.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> columns = new ArrayList<>(droneColumns);
+        Map<String, Integer> columnIndex = new HashMap<>();
+        for (int col = 0; col < columns.size(); col++) {
+            columnIndex.put(columns.get(col), col);
+        }
+        List<List<MinCostMatcher.Candidate>> rows = new ArrayList<>(dispatches.size());
+        for (Map<String, Double> rowCandidates : candidates) {
+            List<MinCostMatcher.Candidate> row = new ArrayList<>(rowCandidates.size());
+            rowCandidates.forEach((droneId, bound) -> row.add(new MinCostMatcher.Candidate(columnIndex.get(droneId), bound)));
+            rows.add(row);
+        }
+
+        int[] matching = MinCostMatcher.solve(rows, columns.size());
+
+        List<DispatchAssignment> assignments = new ArrayList<>();
+        for (int row = 0; row < matching.length; row++) {
+            if (matching[row] >= 0) {
+                String droneId = columns.get(matching[row]);
+                assignments.add(new DispatchAssignment(dispatches.get(row), droneId, candidates.get(row).get(droneId)));
+            }
+        }
+        assignments.sort(Comparator.comparingDouble(DispatchAssignment::getEstimatedCost));
+
+        log.debug("Matched {} of {} dispatches across {} candidate drones", assignments.size(), dispatches.size(), columns.size());
+        return assignments;
+    }
+
+    /**
+     * Cheap lower bound on the cost of flying a single-delivery round trip, or infinity if the pair is infeasible.
+     */
+    private double lowerBoundCost(FleetRegistry.FleetSnapshot fleet,
+                                  MedDispatchRec dispatch,
+                                  Drone drone,
+                                  WeeklyAvailability availability,
+                                  Position base) {
+        if (dispatch.getDelivery() == null || drone.getCapability() == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        if (!droneService.isDroneSuitableForGroup(fleet, Collections.singletonList(dispatch), drone, availability, base)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        DroneCapability capability = drone.getCapability();
+        int roundTripMoves = (int) droneService.calculateMinimumMoves(fleet, base, dispatch.getDelivery()) * 2;
+        if (capability.getMaxMoves() != null && roundTripMoves > capability.getMaxMoves()) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        return routeHelper.calculateFlightCost(capability, roundTripMoves);
+    }
+
+    /**
+     * A dispatch matched to a drone, with the lower-bound cost that was used to choose it.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class DispatchAssignment {
+        private final MedDispatchRec dispatch;
+        private final String droneId;
+        private final double estimatedCost;
+    }
+}
@@ -0,0 +1,160 @@
+package dds.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dds.dto.Delivery;
+import dds.dto.DeliveryPathResponse;
+import dds.dto.DispatchStreamError;
+import dds.dto.DronePath;
+import dds.dto.MedDispatchRec;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Service for streaming delivery planning over newline-delimited JSON (NDJSON).
+ * Dispatch records are read one line at a time and planned in micro-batches, and each
+ * completed drone path is written out as soon as it is ready. Memory use is bounded by
+ * the batch size rather than by the size of the upload.
+ *
+ * <p>Lines that are rejected and dispatches that cannot be planned are reported in the
+ * same stream, as {@link DispatchStreamError} lines, so the client can tell which of its
+ * dispatches have no path.
+ */
+@Service
+@Slf4j
+public class DispatchStreamService {
+
+    private final DeliveryPlanningService deliveryPlanningService;
+    private final DeliveryHistoryService deliveryHistoryService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${planner.stream.batch-size:25}")
+    private int batchSize;
+
+    public DispatchStreamService(DeliveryPlanningService deliveryPlanningService,
+                                 DeliveryHistoryService deliveryHistoryService,
+                                 ObjectMapper objectMapper,
+                                 Validator validator) {
+        this.deliveryPlanningService = deliveryPlanningService;
+        this.deliveryHistoryService = deliveryHistoryService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    /**
+     * Read dispatch records from {@code in} and write planned drone paths to {@code out}, one JSON object per line.
+     * Blank lines are ignored. A line that cannot be parsed or fails validation gets an error line with its line
+     * number, and a dispatch left out of the plan gets one with its ID.
+     */
+    public void planStream(InputStream in, OutputStream out, String droneIdToBeUsed) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        List<MedDispatchRec> batch = new ArrayList<>(batchSize);
+        int lineNumber = 0;
+        int planned = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            MedDispatchRec dispatch = parseDispatch(line, lineNumber, writer);
+            if (dispatch == null) {
+                continue;
+            }
+
+            // A drone can only fly dispatches from the same date together, so a date change closes the batch
+            if (!batch.isEmpty() && !Objects.equals(batch.getFirst().getDate(), dispatch.getDate())) {
+                planBatch(batch, droneIdToBeUsed, writer);
+                planned += batch.size();
+                batch = new ArrayList<>(batchSize);
+            }
+
+            batch.add(dispatch);
+
+            if (batch.size() >= batchSize) {
+                planBatch(batch, droneIdToBeUsed, writer);
+                planned += batch.size();
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            planBatch(batch, droneIdToBeUsed, writer);
+            planned += batch.size();
+        }
+
+        writer.flush();
+        log.debug("Streamed plan for {} dispatches from {} lines", planned, lineNumber);
+    }
+
+    private void planBatch(List<MedDispatchRec> batch, String droneIdToBeUsed, Writer writer) throws IOException {
+        DeliveryPathResponse response = deliveryPlanningService.calcDeliveryPath(batch, droneIdToBeUsed);
+
+        // Log each micro-batch as its own delivery attempt, same as the synchronous endpoint
+        Set<Integer> delivered = new HashSet<>();
+        if (response != null && response.getDronePaths() != null && !response.getDronePaths().isEmpty()) {
+            deliveryHistoryService.logSuccess(batch, response);
+            for (DronePath dronePath : response.getDronePaths()) {
+                write(dronePath, writer);
+                if (dronePath.getDeliveries() != null) {
+                    for (Delivery delivery : dronePath.getDeliveries()) {
+                        delivered.add(delivery.getDeliveryId());
+                    }
+                }
+            }
+        } else {
+            deliveryHistoryService.logFailure(batch);
+        }
+
+        for (MedDispatchRec dispatch : batch) {
+            if (!delivered.contains(dispatch.getId())) {
+                write(DispatchStreamError.unplanned(dispatch.getId()), writer);
+            }
+        }
+
+        // Push completed paths to the client straight away
+        writer.flush();
+    }
+
+    private MedDispatchRec parseDispatch(String line, int lineNumber, Writer writer) throws IOException {
+        MedDispatchRec dispatch;
+        try {
+            dispatch = objectMapper.readValue(line, MedDispatchRec.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping unparseable dispatch on line {}: {}", lineNumber, e.getOriginalMessage());
+            write(DispatchStreamError.rejectedLine(lineNumber, "unparseable: " + e.getOriginalMessage()), writer);
+            return null;
+        }
+
+        Set<ConstraintViolation<MedDispatchRec>> violations = validator.validate(dispatch);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<MedDispatchRec> violation = violations.iterator().next();
+            String reason = "invalid: " + violation.getPropertyPath() + " " + violation.getMessage();
+            log.warn("Skipping invalid dispatch on line {}: {}", lineNumber, reason);
+            write(DispatchStreamError.rejectedLine(lineNumber, reason), writer);
+            return null;
+        }
+        return dispatch;
+    }
+
+    private void write(Object record, Writer writer) throws IOException {
+        writer.write(objectMapper.writeValueAsString(record));
+        writer.write('\n');
+    }
+}
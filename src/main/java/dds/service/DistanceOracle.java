@@ -0,0 +1,83 @@
+package dds.service;
+
+import dds.dto.Position;
+import dds.dto.RestrictedArea;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Lower bounds on the moves a drone needs between two points, taking restricted areas into account.
+ * Straight-line estimates ignore detours around no-fly zones, so drones pass feasibility checks and
+ * only fail later in the path search. This oracle uses the shortest area-avoiding distance from a
+ * {@link VisibilityGraph} instead, and is never lower than the straight-line estimate.
+ *
+ * <p>The graph is built lazily from the {@link ReferenceDataStore}, and rebuilt whenever a caller
+ * passes reference data with a new set of restricted areas.
+ */
+@Service
+@Slf4j
+public class DistanceOracle {
+
+    private final ReferenceDataStore referenceDataStore;
+
+    private volatile Built built;
+
+    public DistanceOracle(ReferenceDataStore referenceDataStore) {
+        this.referenceDataStore = referenceDataStore;
+    }
+
+    /**
+     * Moves needed to fly from {@code from} to {@code to}, never more than any real path needs.
+     */
+    public double minimumMoves(Position from, Position to) {
+        return minimumMoves(referenceDataStore.current(), from, to);
+    }
+
+    /**
+     * {@link #minimumMoves(Position, Position)} around the restricted areas of the given reference data.
+     */
+    public double minimumMoves(ReferenceSnapshot reference, Position from, Position to) {
+        double straight = Math.hypot(to.getLng() - from.getLng(), to.getLat() - from.getLat());
+        double straightMoves = Math.ceil(straight / DroneService.MOVE_DISTANCE);
+
+        VisibilityGraph current = graph(reference.getRestrictedAreas());
+        if (current.isEmpty()) {
+            return straightMoves;
+        }
+
+        double shortest = current.shortestDistance(from, to);
+        if (!Double.isFinite(shortest) || shortest <= straight) {
+            // inside an area or cut off: leave it to the path search to decide
+            return straightMoves;
+        }
+
+        // a path may stop one step short of the target, and corners give a little rounding slack
+        double detourMoves = Math.ceil((shortest - 2 * DroneService.MOVE_DISTANCE) / DroneService.MOVE_DISTANCE - 1e-9);
+        return Math.max(straightMoves, detourMoves);
+    }
+
+    private VisibilityGraph graph(List<RestrictedArea> areas) {
+        Built current = built;
+        if (current != null && current.areas() == areas) {
+            return current.graph();
+        }
+        synchronized (this) {
+            current = built;
+            if (current != null && current.areas() == areas) {
+                return current.graph();
+            }
+            log.debug("Building visibility graph over {} restricted areas", areas.size());
+            current = new Built(areas, new VisibilityGraph(areas));
+            built = current;
+            return current.graph();
+        }
+    }
+
+    /**
+     * A graph together with the restricted areas it was built from.
+     */
+    private record Built(List<RestrictedArea> areas, VisibilityGraph graph) {
+    }
+}
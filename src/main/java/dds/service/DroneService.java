@@ -6,188 +6,142 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
 public class DroneService {
 
     public static final double MOVE_DISTANCE = 0.00015;
-    private final UnifiedDataService dataService;
-    private final LocationService locationService;
-
-    public DroneService(UnifiedDataService dataService, LocationService locationService) {
-        this.dataService = dataService;
-        this.locationService = locationService;
+    private static final int MAX_COMPILED_QUERIES = 1024;
+    private final FleetRegistry fleetRegistry;
+    private final DistanceOracle distanceOracle;
+    private final Map<String, CapabilityQuery> compiledQueries = new ConcurrentHashMap<>();
+
+    public DroneService(FleetRegistry fleetRegistry, DistanceOracle distanceOracle) {
+        this.fleetRegistry = fleetRegistry;
+        this.distanceOracle = distanceOracle;
     }
 
-    @Transactional(readOnly = true)
     public List<String> getDronesWithCooling(boolean state) {
-        return dataService.getAllDrones().stream()
-                .filter(Objects::nonNull)
-                .filter(drone -> {
-                    DroneCapability capability = drone.getCapability();
-                    if (capability == null) {
-                        return false;
-                    }
-                    // Treats null as no cooling capability
-                    boolean hasCooling = Boolean.TRUE.equals(capability.getCooling());
-                    return hasCooling == state;
-                })
-                .map(Drone::getId)
-                .collect(Collectors.toList());
+        return fleetRegistry.snapshot().query(CapabilityQuery.single("cooling", Boolean.toString(state)));
     }
 
-    @Transactional(readOnly = true)
     public Drone getDroneById(String id) {
-        return dataService.getAllDrones().stream()
-                .filter(Objects::nonNull)
-                .filter(drone -> drone.getId().equals(id))
-                // just return first match (probably unnecessary since IDs should be unique)
-                .findFirst()
-                .orElse(null);
+        // hash lookup in the fleet registry, no data source round trip
+        return fleetRegistry.getDrone(id);
     }
 
     // used for queryAsPath
-    @Transactional(readOnly = true)
     public List<String> queryBySingleCapability(String attribute, String value) {
-        return dataService.getAllDrones().stream()
-                .filter(Objects::nonNull)
-                // as only used for queryAsPath, which only allows equality, so use generic method with "=" operator
-                .filter(drone -> matchesCapability(drone, attribute, value, "="))
-                .map(Drone::getId)
-                .collect(Collectors.toList());
+        // as only used for queryAsPath, which only allows equality, so use generic method with "=" operator
+        return fleetRegistry.snapshot().query(CapabilityQuery.single(attribute, value));
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Drones matching every attribute. Queries are compiled once, and results are cached per fleet
+     * snapshot, so a repeated query is a map lookup.
+     */
     public List<String> queryByCapabilities(List<QueryAttribute> attributes) {
         if (attributes == null || attributes.isEmpty()) {
             return Collections.emptyList();
         }
 
-        return dataService.getAllDrones().stream()
-                .filter(Objects::nonNull)
-                .filter(drone -> attributes.stream()
-                        .allMatch(attr -> matchesCapability(
-                                drone,
-                                attr.getAttribute(),
-                                attr.getValue(),
-                                attr.getOperator())))
-                .map(Drone::getId)
-                .collect(Collectors.toList());
-    }
-
-    private boolean matchesCapability(Drone drone, String attribute, String rawValue, String operator) {
-        if (drone == null || attribute == null || rawValue == null) {
-            return false;
-        }
-
-        DroneCapability capability = drone.getCapability();
-        if (capability == null) {
-            return false;
+        String rawKey = CapabilityQuery.rawKey(attributes);
+        CapabilityQuery query = compiledQueries.get(rawKey);
+        if (query == null) {
+            query = CapabilityQuery.compile(attributes);
+            if (compiledQueries.size() < MAX_COMPILED_QUERIES) {
+                compiledQueries.putIfAbsent(rawKey, query);
+            }
         }
-
-        // If operator is null or blank assume '=', else trim (to avoid issues with extra spaces)
-        String op = (operator == null || operator.isBlank()) ? "=" : operator.trim();
-        // normalise to be as accepting as possible
-        String attr = attribute.trim().toLowerCase();
-
-        // important to distinguish between number and boolean comparisons
-        return switch (attr) {
-            case "cooling" -> compareBoolean(capability.getCooling(), rawValue, op);
-            case "heating" -> compareBoolean(capability.getHeating(), rawValue, op);
-            case "capacity" -> compareNumber(capability.getCapacity(), rawValue, op);
-            case "maxmoves" -> compareNumber(capability.getMaxMoves(), rawValue, op);
-            case "costpermove" -> compareNumber(capability.getCostPerMove(), rawValue, op);
-            case "costinitial" -> compareNumber(capability.getCostInitial(), rawValue, op);
-            case "costfinal" -> compareNumber(capability.getCostFinal(), rawValue, op);
-            default -> false;
-        };
+        return fleetRegistry.snapshot().query(query);
     }
 
-    private boolean compareNumber(Number actual, String rawValue, String operator) {
-        if (actual == null) {
-            return false;
+    /**
+     * Drones that can serve all the dispatches. The fleet availability index first narrows the
+     * candidates to the drone and service point pairs free at every dispatch time, and only those
+     * get the capacity, temperature and cost checks.
+     */
+    @Transactional(readOnly = true)
+    public List<String> queryAvailableDrones(List<MedDispatchRec> dispatches) {
+        if (dispatches == null || dispatches.isEmpty()) {
+            return Collections.emptyList();
         }
-        double actualValue = actual.doubleValue();
-        double targetValue = Double.parseDouble(rawValue);
-
-        return switch (operator) {
-            case "=" -> Double.compare(actualValue, targetValue) == 0;
-            case "!=" -> Double.compare(actualValue, targetValue) != 0;
-            case "<" -> actualValue < targetValue;
-            case ">" -> actualValue > targetValue;
-            default -> false;
-        };
-    }
-
-    private boolean compareBoolean(Boolean actual, String rawValue, String operator) {
-        // as used above, this treats null as false too
-        boolean actualValue = Boolean.TRUE.equals(actual);
-        boolean targetValue = Boolean.parseBoolean(rawValue);
 
-        return switch (operator) {
-            case "=" -> actualValue == targetValue;
-            case "!=" -> actualValue != targetValue;
-            default -> false;
-        };
+        return availableDrones(fleetRegistry.snapshot(), dispatches);
     }
 
-    @Transactional(readOnly = true)
-    public List<String> queryAvailableDrones(List<MedDispatchRec> dispatches) {
+    /**
+     * {@link #queryAvailableDrones(List)} against a fleet snapshot the caller has already resolved.
+     */
+    public List<String> queryAvailableDrones(FleetRegistry.FleetSnapshot fleet, List<MedDispatchRec> dispatches) {
         if (dispatches == null || dispatches.isEmpty()) {
             return Collections.emptyList();
         }
 
-        Map<String, Drone> dronesById = dataService.getAllDrones().stream()
-                .collect(Collectors.toMap(Drone::getId, Function.identity()));
+        return availableDrones(fleet, dispatches);
+    }
 
-        Map<Integer, Position> servicePointLocations = dataService.getServicePoints().stream()
-                .collect(Collectors.toMap(ServicePoint::getId, ServicePoint::getLocation));
+    /**
+     * {@link #queryAvailableDrones} for many dispatch groups at once. All groups are checked against
+     * the same fleet snapshot, and so share its indexes, and are evaluated in parallel.
+     *
+     * @return the available drone IDs for each group, in the order of the groups
+     */
+    public List<List<String>> queryAvailableDronesBatch(List<List<MedDispatchRec>> groups) {
+        if (groups == null || groups.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-        List<DroneForServicePoint> servicePoints = dataService.getDronesForServicePoints();
+        FleetRegistry.FleetSnapshot fleet = fleetRegistry.snapshot();
+        return groups.parallelStream()
+                .map(group -> group == null || group.isEmpty()
+                        ? Collections.<String>emptyList()
+                        : availableDrones(fleet, group))
+                .toList();
+    }
 
+    private List<String> availableDrones(FleetRegistry.FleetSnapshot fleet, List<MedDispatchRec> dispatches) {
         Map<Optional<LocalDate>, List<MedDispatchRec>> dispatchesByDate = dispatches.stream()
                 .collect(Collectors.groupingBy(dispatch ->
                         Optional.ofNullable(dispatch.getDate())));
 
-        return servicePoints.stream()
-                .filter(point -> servicePointLocations.containsKey(point.getServicePointId()))
-                .flatMap(point -> point.getDrones().stream()
-                        .filter(availability -> dronesById.containsKey(availability.getId()))
-                        .filter(availability -> canDroneSupportAllDates(
-                                dispatchesByDate,
-                                dronesById.get(availability.getId()),
-                                availability,
-                                servicePointLocations.get(point.getServicePointId())))
-                        .map(ServicePointDroneAvailability::getId))
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        BitSet candidates = fleet.getAvailabilityIndex().availableForAll(dispatches);
+        Set<String> droneIds = new TreeSet<>();
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            FleetRegistry.Assignment assignment = fleet.getAssignments().get(i);
+            Drone drone = fleet.getDronesById().get(assignment.getAvailability().getId());
+            Position servicePointLocation = assignment.getLocation();
+            if (drone != null && servicePointLocation != null
+                    && canDroneSupportAllDates(fleet, dispatchesByDate, drone, assignment.getWeekly(), servicePointLocation)) {
+                droneIds.add(drone.getId());
+            }
+        }
+
+        return new ArrayList<>(droneIds);
     }
 
-    private boolean canDroneSupportAllDates(Map<Optional<LocalDate>, List<MedDispatchRec>> dispatchesByDate,
+    private boolean canDroneSupportAllDates(FleetRegistry.FleetSnapshot fleet,
+                                           Map<Optional<LocalDate>, List<MedDispatchRec>> dispatchesByDate,
                                            Drone drone,
-                                           ServicePointDroneAvailability availability,
+                                           WeeklyAvailability availability,
                                            Position servicePointLocation) {
-        if (servicePointLocation == null) {
-            return false;
-        }
-
         for (Map.Entry<Optional<LocalDate>, List<MedDispatchRec>> entry : dispatchesByDate.entrySet()) {
-            if (!isDroneSuitableForGroup(entry.getValue(), drone, availability, servicePointLocation)) {
+            if (!isDroneSuitableForGroup(fleet, entry.getValue(), drone, availability, servicePointLocation)) {
                 return false;
             }
         }
         return true;
     }
 
-    private boolean isDroneSuitableForGroup(List<MedDispatchRec> dispatches,
-                                            Drone drone,
-                                            ServicePointDroneAvailability availability,
-                                            Position servicePointLocation) {
+    boolean isDroneSuitableForGroup(FleetRegistry.FleetSnapshot fleet,
+                                    List<MedDispatchRec> dispatches,
+                                    Drone drone,
+                                    WeeklyAvailability availability,
+                                    Position servicePointLocation) {
         if (drone == null || drone.getCapability() == null) {
             return false;
         }
@@ -215,10 +169,11 @@ public class DroneService {
             return false;
         }
 
-        return matchesCostRequirements(dispatches, drone, servicePointLocation);
+        return matchesCostRequirements(fleet, dispatches, drone, servicePointLocation);
     }
 
-    private boolean matchesCostRequirements(List<MedDispatchRec> dispatches,
+    private boolean matchesCostRequirements(FleetRegistry.FleetSnapshot fleet,
+                                           List<MedDispatchRec> dispatches,
                                            Drone drone,
                                            Position servicePointLocation) {
         if (dispatches == null || dispatches.isEmpty() || servicePointLocation == null) {
@@ -238,7 +193,7 @@ public class DroneService {
         for (MedDispatchRec dispatch : dispatches) {
             MedDispatchRequirements requirements = dispatch.getRequirements();
             if (requirements != null && requirements.getMaxCost() > 0) {
-                double roundTripMoves = calculateMinimumMoves(servicePointLocation, dispatch.getDelivery()) * 2;
+                double roundTripMoves = calculateMinimumMoves(fleet, servicePointLocation, dispatch.getDelivery()) * 2;
                 double deliveryCost = capability.getCostInitial()
                         + capability.getCostFinal()
                         + (capability.getCostPerMove() * roundTripMoves);
@@ -254,11 +209,12 @@ public class DroneService {
             return true;
         }
 
-        return couldWorkWithSharedCosts(dispatches, drone, servicePointLocation);
+        return couldWorkWithSharedCosts(fleet, dispatches, drone, servicePointLocation);
     }
 
     // Special case: check if shared costs would make all deliveries feasible, because initial and final costs are only paid once
-    private boolean couldWorkWithSharedCosts(List<MedDispatchRec> dispatches,
+    private boolean couldWorkWithSharedCosts(FleetRegistry.FleetSnapshot fleet,
+                                            List<MedDispatchRec> dispatches,
                                             Drone drone,
                                             Position servicePointLocation) {
         DroneCapability capability = drone.getCapability();
@@ -267,11 +223,11 @@ public class DroneService {
         Position currentPos = servicePointLocation;
 
         for (MedDispatchRec dispatch : dispatches) {
-            double moves = calculateMinimumMoves(currentPos, dispatch.getDelivery());
+            double moves = calculateMinimumMoves(fleet, currentPos, dispatch.getDelivery());
             totalMoves += moves;
             currentPos = dispatch.getDelivery();
         }
-        totalMoves += calculateMinimumMoves(currentPos, servicePointLocation);
+        totalMoves += calculateMinimumMoves(fleet, currentPos, servicePointLocation);
 
         double totalCost = capability.getCostInitial()
                 + capability.getCostFinal()
@@ -290,19 +246,13 @@ public class DroneService {
 
         return true;
     }
-    public boolean isDispatchWithinAvailability(MedDispatchRec dispatch,
-                                                ServicePointDroneAvailability availability) {
-        if (availability == null || availability.getAvailability() == null) {
+    boolean isDispatchWithinAvailability(MedDispatchRec dispatch, WeeklyAvailability availability) {
+        if (availability == null) {
             return false;
         }
 
         DayOfWeek day = dispatch.getDate() != null ? dispatch.getDate().getDayOfWeek() : null;
-        LocalTime time = dispatch.getTime();
-
-        return availability.getAvailability().stream()
-                .filter(slot -> day == null || slot.getDayOfWeek() == day)
-                .anyMatch(slot -> time == null
-                        || (!time.isBefore(slot.getFrom()) && !time.isAfter(slot.getUntil())));
+        return availability.covers(day, dispatch.getTime());
     }
 
     private boolean hasRequiredCapacity(DroneCapability capability, double totalCapacityRequired) {
@@ -319,8 +269,11 @@ public class DroneService {
         return !needsHeating || Boolean.TRUE.equals(capability.getHeating());
     }
 
-    private double calculateMinimumMoves(Position servicePointLocation, Position deliveryLocation) {
-        double distance = locationService.calculateDistance(servicePointLocation, deliveryLocation);
-        return Math.ceil(distance / MOVE_DISTANCE);
+    /**
+     * Lower bound on the moves between two points, including detours around the restricted areas of
+     * the snapshot's reference data.
+     */
+    double calculateMinimumMoves(FleetRegistry.FleetSnapshot fleet, Position servicePointLocation, Position deliveryLocation) {
+        return distanceOracle.minimumMoves(fleet.getReference(), servicePointLocation, deliveryLocation);
     }
 }
\ No newline at end of file
@@ -0,0 +1,189 @@
+package dds.service;
+
+import dds.dto.Drone;
+import dds.dto.DroneForServicePoint;
+import dds.dto.Position;
+import dds.dto.ServicePoint;
+import dds.dto.ServicePointDroneAvailability;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of the fleet: drones indexed by ID together with their service point assignments,
+ * availability and base locations. Readers get an immutable snapshot, so lookups are hash lookups with no I/O.
+ * Snapshots are derived from the {@link ReferenceDataStore}, and rebuilt when the drones, service points or
+ * availability they were built from are replaced there.
+ */
+@Service
+@Slf4j
+public class FleetRegistry {
+
+    private static final int MAX_CACHED_QUERIES = 1024;
+
+    private final ReferenceDataStore referenceDataStore;
+
+    private volatile FleetSnapshot snapshot;
+
+    public FleetRegistry(ReferenceDataStore referenceDataStore) {
+        this.referenceDataStore = referenceDataStore;
+    }
+
+    public Drone getDrone(String id) {
+        return id == null ? null : snapshot().getDronesById().get(id);
+    }
+
+    /**
+     * Snapshot for the current reference data, rebuilt first if the fleet datasets changed.
+     */
+    public FleetSnapshot snapshot() {
+        return snapshot(referenceDataStore.current());
+    }
+
+    /**
+     * Snapshot for the given reference data. A request resolves this once and passes it on, so every
+     * lookup it makes, fleet and reference data alike ({@link FleetSnapshot#getReference()}), sees the
+     * same version.
+     */
+    public FleetSnapshot snapshot(ReferenceSnapshot reference) {
+        FleetSnapshot current = snapshot;
+        if (current != null && current.getReference() == reference) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.getReference() == reference) {
+                return current;
+            }
+            // a change to restricted areas only needs the new reference data, not new indexes
+            FleetSnapshot resolved = current != null && current.isBuiltFrom(reference)
+                    ? current.withReference(reference)
+                    : rebuild(reference);
+            // only publish forward: a slow reader must not replace a newer snapshot
+            if (current == null || current.getVersion() < resolved.getVersion()) {
+                snapshot = resolved;
+            }
+            return resolved;
+        }
+    }
+
+    private FleetSnapshot rebuild(ReferenceSnapshot reference) {
+        List<Drone> drones = new ArrayList<>();
+        Map<String, Drone> dronesById = new LinkedHashMap<>();
+        for (Drone drone : reference.getDrones()) {
+            if (drone == null) {
+                continue;
+            }
+            drones.add(drone);
+            if (drone.getId() != null) {
+                dronesById.putIfAbsent(drone.getId(), drone);
+            }
+        }
+
+        List<Assignment> assignments = new ArrayList<>();
+        Map<String, List<Assignment>> assignmentsByDrone = new HashMap<>();
+        for (DroneForServicePoint point : reference.getDronesForServicePoints()) {
+            if (point.getDrones() == null) {
+                continue;
+            }
+            for (ServicePointDroneAvailability availability : point.getDrones()) {
+                if (availability == null || availability.getId() == null) {
+                    continue;
+                }
+                ServicePoint servicePoint = reference.getServicePoint(point.getServicePointId());
+                Assignment assignment = new Assignment(point.getServicePointId(),
+                        servicePoint != null ? servicePoint.getLocation() : null, availability,
+                        new WeeklyAvailability(availability));
+                assignments.add(assignment);
+                assignmentsByDrone.computeIfAbsent(availability.getId(), id -> new ArrayList<>()).add(assignment);
+            }
+        }
+        assignmentsByDrone.replaceAll((id, byDrone) -> List.copyOf(byDrone));
+
+        FleetSnapshot rebuilt = new FleetSnapshot(reference.getVersion(), System.currentTimeMillis(), reference,
+                List.copyOf(drones), Collections.unmodifiableMap(dronesById),
+                List.copyOf(assignments), Map.copyOf(assignmentsByDrone),
+                new CapabilityIndex(drones),
+                new AvailabilityIndex(assignments.stream().map(Assignment::getWeekly).toList()),
+                new ConcurrentHashMap<>());
+        log.debug("Fleet registry rebuilt with {} drones (version {})", dronesById.size(), reference.getVersion());
+        return rebuilt;
+    }
+
+    /**
+     * Immutable view of the fleet at one reference data version, together with that reference data.
+     * {@code drones} keeps the data source order, which the capability index follows too; bit positions
+     * in the availability index are positions in {@code assignments}.
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class FleetSnapshot {
+        private final long version;
+        private final long builtAt;
+        private final ReferenceSnapshot reference;
+        private final List<Drone> drones;
+        private final Map<String, Drone> dronesById;
+        private final List<Assignment> assignments;
+        private final Map<String, List<Assignment>> assignmentsByDrone;
+        private final CapabilityIndex capabilityIndex;
+        private final AvailabilityIndex availabilityIndex;
+
+        // results are only valid for this fleet, so the cache lives and dies with it
+        @Getter(AccessLevel.NONE)
+        private final Map<String, List<String>> queryResults;
+
+        /**
+         * Whether this snapshot's fleet is still current for {@code reference}: restricted areas do not matter here.
+         */
+        boolean isBuiltFrom(ReferenceSnapshot reference) {
+            return this.reference.getDrones() == reference.getDrones()
+                    && this.reference.getServicePoints() == reference.getServicePoints()
+                    && this.reference.getDronesForServicePoints() == reference.getDronesForServicePoints();
+        }
+
+        /**
+         * The same fleet, indexes and query cache over newer reference data with the same fleet datasets.
+         */
+        FleetSnapshot withReference(ReferenceSnapshot reference) {
+            return new FleetSnapshot(reference.getVersion(), builtAt, reference, drones, dronesById,
+                    assignments, assignmentsByDrone, capabilityIndex, availabilityIndex, queryResults);
+        }
+
+        public List<Assignment> getAssignments(String droneId) {
+            return assignmentsByDrone.getOrDefault(droneId, Collections.emptyList());
+        }
+
+        /**
+         * IDs of the drones matching a compiled query, computed once per snapshot.
+         */
+        List<String> query(CapabilityQuery query) {
+            List<String> cached = queryResults.get(query.key());
+            if (cached != null) {
+                return cached;
+            }
+            List<String> ids = Collections.unmodifiableList(capabilityIndex.ids(query.evaluate(capabilityIndex)));
+            if (queryResults.size() < MAX_CACHED_QUERIES) {
+                queryResults.putIfAbsent(query.key(), ids);
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * A drone's availability at one service point, with its weekly bitmap and the service point's
+     * location (null if the service point itself is unknown).
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Assignment {
+        private final Integer servicePointId;
+        private final Position location;
+        private final ServicePointDroneAvailability availability;
+        private final WeeklyAvailability weekly;
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dds.dto.*;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import dds.entity.DeliveryAttemptEntity;
 import dds.repository.DeliveryAttemptRepository;
@@ -19,16 +20,16 @@ import java.util.stream.Collectors;
 public class GeoJsonService {
 
     private final DeliveryPlanningService deliveryPlanningService;
-    private final UnifiedDataService unifiedDataService;
+    private final ReferenceDataStore referenceDataStore;
     private final DeliveryAttemptRepository deliveryAttemptRepository;
     private final ObjectMapper objectMapper;
 
     public GeoJsonService(DeliveryPlanningService deliveryPlanningService,
-            UnifiedDataService unifiedDataService,
-            DeliveryAttemptRepository deliveryAttemptRepository,
+            ReferenceDataStore referenceDataStore,
+            @Nullable DeliveryAttemptRepository deliveryAttemptRepository,
             ObjectMapper objectMapper) {
         this.deliveryPlanningService = deliveryPlanningService;
-        this.unifiedDataService = unifiedDataService;
+        this.referenceDataStore = referenceDataStore;
         this.deliveryAttemptRepository = deliveryAttemptRepository;
         this.objectMapper = objectMapper;
     }
@@ -75,9 +76,11 @@ public class GeoJsonService {
      */
     public GeoJsonFeatureCollection getDataAsGeoJson(DayOfWeek dayOfWeek, LocalTime time) {
         List<GeoJsonFeature> features = new ArrayList<>();
+        // one snapshot, so areas, service points and drones all come from the same version
+        ReferenceSnapshot reference = referenceDataStore.current();
 
         // Add restricted areas as Polygons
-        List<RestrictedArea> restrictedAreas = unifiedDataService.getRestrictedAreas();
+        List<RestrictedArea> restrictedAreas = reference.getRestrictedAreas();
         for (RestrictedArea area : restrictedAreas) {
             if (area.getVertices() != null && area.getVertices().size() >= 3) {
                 GeoJsonFeature feature = createPolygonFeature(area);
@@ -86,9 +89,9 @@ public class GeoJsonService {
         }
 
         // Add service points as Points with aggregated drone statistics
-        List<ServicePoint> servicePoints = unifiedDataService.getServicePoints();
-        List<DroneForServicePoint> dronesForServicePoints = unifiedDataService.getDronesForServicePoints();
-        List<Drone> allDrones = unifiedDataService.getAllDrones();
+        List<ServicePoint> servicePoints = reference.getServicePoints();
+        List<DroneForServicePoint> dronesForServicePoints = reference.getDronesForServicePoints();
+        List<Drone> allDrones = reference.getDrones();
         Map<String, Drone> dronesById = allDrones.stream()
                 .collect(Collectors.toMap(Drone::getId, d -> d));
 
@@ -103,8 +106,10 @@ public class GeoJsonService {
             features.add(feature);
         }
 
-        // Add recent delivery locations as Points
-        List<DeliveryAttemptEntity> recentAttempts = deliveryAttemptRepository.findTop20ByOrderByAttemptedAtDesc();
+        // Add recent delivery locations as Points (none are kept without a database)
+        List<DeliveryAttemptEntity> recentAttempts = deliveryAttemptRepository != null
+                ? deliveryAttemptRepository.findTop20ByOrderByAttemptedAtDesc()
+                : List.of();
         for (DeliveryAttemptEntity attempt : recentAttempts) {
             if (attempt.getRequestPayload() != null) {
                 List<Position> deliveryLocations = extractDeliveryLocations(attempt.getRequestPayload());
@@ -0,0 +1,47 @@
+package dds.service;
+
+import dds.dto.Position;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Packs polygon vertices as little-endian doubles (lng, lat per vertex) for the {@code vertices_packed}
+ * column and the binary reference snapshot, and unpacks them back into positions. A null coordinate is
+ * stored as NaN. Only the stored form is packed: areas are still handed around as position lists, and
+ * {@link VisibilityGraph} builds its own coordinate arrays once per snapshot.
+ */
+final class GeometryCodec {
+
+    private static final int BYTES_PER_VERTEX = 2 * Double.BYTES;
+
+    private GeometryCodec() {
+    }
+
+    static byte[] pack(List<Position> vertices) {
+        ByteBuffer buffer = ByteBuffer.allocate(vertices.size() * BYTES_PER_VERTEX).order(ByteOrder.LITTLE_ENDIAN);
+        for (Position vertex : vertices) {
+            buffer.putDouble(vertex != null && vertex.getLng() != null ? vertex.getLng() : Double.NaN);
+            buffer.putDouble(vertex != null && vertex.getLat() != null ? vertex.getLat() : Double.NaN);
+        }
+        return buffer.array();
+    }
+
+    static List<Position> unpack(byte[] packed) {
+        if (packed.length % BYTES_PER_VERTEX != 0) {
+            throw new IllegalArgumentException("Packed geometry has " + packed.length + " bytes, not a whole number of vertices");
+        }
+        int n = packed.length / BYTES_PER_VERTEX;
+        List<Position> positions = new ArrayList<>(n);
+        ByteBuffer buffer = ByteBuffer.wrap(packed).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < n; i++) {
+            double lng = buffer.getDouble();
+            double lat = buffer.getDouble();
+            positions.add(new Position(Double.isNaN(lng) ? null : lng, Double.isNaN(lat) ? null : lat));
+        }
+        return Collections.unmodifiableList(positions);
+    }
+}
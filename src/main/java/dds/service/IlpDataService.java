@@ -1,8 +1,16 @@
 package dds.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -14,93 +22,216 @@ import dds.dto.ServicePoint;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Reads reference data from the ILP (Azure) REST service.
+ *
+ * <p>Each endpoint is cached. Within the TTL, reads are served from memory. After it, reads still get the
+ * cached copy straight away while one background refresh revalidates it (stale-while-revalidate). Only a
+ * copy older than the max staleness is refreshed in the caller's thread. Refreshes send the last ETag and
+ * Last-Modified back, so an unchanged dataset costs a 304. If a refresh fails, the last known good copy is
+ * kept and served. Hits, stale hits, misses and refresh latency are published as metrics.
+ */
 @Service
 @Slf4j
 public class IlpDataService {
 
     private final RestTemplate restTemplate;
     private final String ilpServiceUrl;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ilp.cache.ttl-ms:30000}")
+    private long ttlMs = 30000;
+
+    @Value("${ilp.cache.max-stale-ms:600000}")
+    private long maxStaleMs = 600000;
+
+    private final CachedEndpoint<Drone> drones;
+    private final CachedEndpoint<DroneForServicePoint> dronesForServicePoints;
+    private final CachedEndpoint<ServicePoint> servicePoints;
+    private final CachedEndpoint<RestrictedArea> restrictedAreas;
 
     // @Qualifier is safer to use here in case there are multiple 'String' beans (chooses the one called 'ilpServiceUrl')
     @Autowired
-    public IlpDataService(RestTemplate restTemplate, @Qualifier("ilpServiceUrl") String ilpServiceUrl) {
+    public IlpDataService(RestTemplate restTemplate, @Qualifier("ilpServiceUrl") String ilpServiceUrl,
+                          MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
         this.ilpServiceUrl = ilpServiceUrl;
+        this.meterRegistry = meterRegistry;
+        this.drones = new CachedEndpoint<>("/drones", Drone[].class, "drones");
+        this.dronesForServicePoints = new CachedEndpoint<>("/drones-for-service-points",
+                DroneForServicePoint[].class, "drone-service-point mappings");
+        this.servicePoints = new CachedEndpoint<>("/service-points", ServicePoint[].class, "service points");
+        this.restrictedAreas = new CachedEndpoint<>("/restricted-areas", RestrictedArea[].class, "restricted areas");
     }
 
     public List<Drone> getAllDrones() {
-        String endpoint = "/drones";
-        try {
-            ResponseEntity<Drone[]> response =
-                    restTemplate.getForEntity(ilpServiceUrl + endpoint, Drone[].class);
-            Drone[] body = response.getBody();
-            if (body == null) {
-                log.warn("Azure API returned null body for endpoint: {}", endpoint);
-                return Collections.emptyList();
-            }
-            log.debug("Successfully fetched {} drones from {}", body.length, endpoint);
-            return Arrays.asList(body);
-        } catch (Exception e) {
-            log.error("Failed to fetch {} from Azure API", endpoint, e);
-            return Collections.emptyList();
-        }
+        return drones.get();
     }
 
     public List<DroneForServicePoint> getDronesForServicePoints() {
-        String endpoint = "/drones-for-service-points";
-        try {
-            ResponseEntity<DroneForServicePoint[]> response =
-                    restTemplate.getForEntity(ilpServiceUrl + endpoint,
-                            DroneForServicePoint[].class);
-            DroneForServicePoint[] body = response.getBody();
-            if (body == null) {
-                log.warn("Azure API returned null body for endpoint: {}", endpoint);
-                return Collections.emptyList();
-            }
-            log.debug("Successfully fetched {} drone-service-point mappings from {}", body.length, endpoint);
-            return Arrays.asList(body);
-        } catch (Exception e) {
-            log.error("Failed to fetch {} from Azure API", endpoint, e);
-            return Collections.emptyList();
-        }
+        return dronesForServicePoints.get();
     }
 
     public List<ServicePoint> getServicePoints() {
-        String endpoint = "/service-points";
-        try {
-            ResponseEntity<ServicePoint[]> response =
-                    restTemplate.getForEntity(ilpServiceUrl + endpoint,
-                            ServicePoint[].class);
-            ServicePoint[] body = response.getBody();
-            if (body == null) {
-                log.warn("Azure API returned null body for endpoint: {}", endpoint);
-                return Collections.emptyList();
-            }
-            log.debug("Successfully fetched {} service points from {}", body.length, endpoint);
-            return Arrays.asList(body);
-        } catch (Exception e) {
-            log.error("Failed to fetch {} from Azure API", endpoint, e);
-            return Collections.emptyList();
-        }
+        return servicePoints.get();
     }
 
     public List<RestrictedArea> getRestrictedAreas() {
-        String endpoint = "/restricted-areas";
-        try {
-            ResponseEntity<RestrictedArea[]> response =
-                    restTemplate.getForEntity(ilpServiceUrl + endpoint,
-                            RestrictedArea[].class);
-            RestrictedArea[] body = response.getBody();
-            if (body == null) {
-                log.warn("Azure API returned null body for endpoint: {}", endpoint);
-                return Collections.emptyList();
+        return restrictedAreas.get();
+    }
+
+    /**
+     * Make the next read of every endpoint revalidate with the service (e.g. before re-seeding).
+     * Cached copies are kept, so a 304 still avoids downloading them again.
+     */
+    public void invalidate() {
+        drones.expire();
+        dronesForServicePoints.expire();
+        servicePoints.expire();
+        restrictedAreas.expire();
+    }
+
+    /**
+     * A cached copy of one endpoint with the validators needed to revalidate it.
+     */
+    private record Entry<T>(List<T> value, String etag, String lastModified, long fetchedAt) {
+    }
+
+    /**
+     * Cache for one endpoint. Refreshes are single-flight: callers that need one while another is running
+     * wait for it (synchronous refresh) or keep serving the stale copy (background refresh).
+     * Background refreshes run on virtual threads, so the HTTP call is made under a {@link ReentrantLock}
+     * rather than a monitor, which would pin the carrier thread while it blocks.
+     */
+    private final class CachedEndpoint<T> {
+
+        private final String endpoint;
+        private final Class<T[]> type;
+        private final String description;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private final ReentrantLock refreshLock = new ReentrantLock();
+        private final Counter hits;
+        private final Counter staleHits;
+        private final Counter misses;
+        private volatile Entry<T> entry;
+
+        CachedEndpoint(String endpoint, Class<T[]> type, String description) {
+            this.endpoint = endpoint;
+            this.type = type;
+            this.description = description;
+            this.hits = requests("hit");
+            this.staleHits = requests("stale");
+            this.misses = requests("miss");
+        }
+
+        List<T> get() {
+            Entry<T> current = entry;
+            long age = current != null ? System.currentTimeMillis() - current.fetchedAt() : Long.MAX_VALUE;
+            if (current != null && age <= ttlMs) {
+                hits.increment();
+                return current.value();
             }
-            log.debug("Successfully fetched {} restricted areas from {}", body.length, endpoint);
-            return Arrays.asList(body);
-        } catch (Exception e) {
-            log.error("Failed to fetch {} from Azure API", endpoint, e);
-            return Collections.emptyList();
+            if (current != null && age <= maxStaleMs) {
+                staleHits.increment();
+                refreshInBackground();
+                return current.value();
+            }
+            misses.increment();
+            refreshLock.lock();
+            try {
+                Entry<T> latest = entry;
+                // someone else refreshed while we waited
+                if (latest != current && latest != null) {
+                    return latest.value();
+                }
+                return refresh().value();
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+
+        void expire() {
+            Entry<T> current = entry;
+            if (current != null) {
+                entry = new Entry<>(current.value(), current.etag(), current.lastModified(), 0);
+            }
+        }
+
+        private void refreshInBackground() {
+            if (!refreshing.compareAndSet(false, true)) {
+                return;
+            }
+            Thread.ofVirtual().name("ilp-refresh" + endpoint).start(() -> {
+                refreshLock.lock();
+                try {
+                    refresh();
+                } finally {
+                    refreshLock.unlock();
+                    refreshing.set(false);
+                }
+            });
+        }
+
+        /**
+         * Fetch or revalidate the endpoint. Callers hold the refresh lock. Never throws: on failure the last
+         * known good copy (or an empty list, if there never was one) is returned and kept.
+         */
+        private Entry<T> refresh() {
+            Entry<T> current = entry;
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try {
+                HttpHeaders headers = new HttpHeaders();
+                if (current != null && current.etag() != null) {
+                    headers.setIfNoneMatch(current.etag());
+                }
+                if (current != null && current.lastModified() != null) {
+                    headers.set(HttpHeaders.IF_MODIFIED_SINCE, current.lastModified());
+                }
+                ResponseEntity<T[]> response = restTemplate.exchange(ilpServiceUrl + endpoint, HttpMethod.GET,
+                        new HttpEntity<>(headers), type);
+
+                if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && current != null) {
+                    outcome = "not_modified";
+                    entry = new Entry<>(current.value(), current.etag(), current.lastModified(), System.currentTimeMillis());
+                    log.debug("{} from {} not modified", description, endpoint);
+                    return entry;
+                }
+
+                T[] body = response.getBody();
+                if (body == null) {
+                    log.warn("Azure API returned null body for endpoint: {}", endpoint);
+                    return fallback(current);
+                }
+                outcome = "modified";
+                entry = new Entry<>(Collections.unmodifiableList(Arrays.asList(body)),
+                        response.getHeaders().getETag(),
+                        response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED),
+                        System.currentTimeMillis());
+                log.debug("Successfully fetched {} {} from {}", body.length, description, endpoint);
+                return entry;
+            } catch (Exception e) {
+                log.error("Failed to fetch {} from Azure API", endpoint, e);
+                return fallback(current);
+            } finally {
+                sample.stop(meterRegistry.timer("ilp.cache.refresh", "endpoint", endpoint, "outcome", outcome));
+            }
+        }
+
+        private Entry<T> fallback(Entry<T> current) {
+            if (current != null) {
+                log.warn("Serving last known good {} for {} (fetched {} ms ago)", description, endpoint,
+                        System.currentTimeMillis() - current.fetchedAt());
+                return current;
+            }
+            return new Entry<>(Collections.emptyList(), null, null, 0);
+        }
+
+        private Counter requests(String result) {
+            return meterRegistry.counter("ilp.cache.requests", "endpoint", endpoint, "result", result);
         }
     }
 }
@@ -0,0 +1,352 @@
+package dds.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dds.dto.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Reference data held only in memory, for {@code ilp.data.source=memory}: load-test rigs and planner
+ * nodes that should not depend on PostgreSQL for reads.
+ *
+ * <p>The data is loaded on first use from {@code ilp.data.memory.fixture}, a classpath, file or HTTP
+ * resource holding either a binary reference snapshot (as exported by {@link ReferenceDataStore}, so a
+ * node can pull a primary's {@code /api/v1/admin/snapshot}) or a JSON fixture with {@code drones},
+ * {@code servicePoints}, {@code restrictedAreas} and {@code dronesForServicePoints}. Without a fixture it
+ * is fetched once from the ILP service. Admin writes go to concurrent maps and publish the same change
+ * events as the PostgreSQL store; nothing is persisted.
+ */
+@Service
+@Slf4j
+public class InMemoryDataService implements AdminDataStore {
+
+    private final IlpDataService ilpDataService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${ilp.data.memory.fixture:}")
+    private String fixture = "";
+
+    private volatile State state;
+
+    public InMemoryDataService(IlpDataService ilpDataService, ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher) {
+        this.ilpDataService = ilpDataService;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public boolean hasData() {
+        return !state().drones().isEmpty();
+    }
+
+    /**
+     * Load the data again from the fixture (or the ILP service), replacing everything held.
+     */
+    public void reload() {
+        synchronized (this) {
+            state = load();
+        }
+        changedAll();
+    }
+
+    /**
+     * Replace everything held with a binary reference snapshot, e.g. one pushed by a primary.
+     * @throws IllegalArgumentException if the data is not a readable snapshot
+     */
+    public void replaceAll(byte[] snapshot) {
+        ReferenceSnapshot decoded = ReferenceSnapshotCodec.read(ByteBuffer.wrap(snapshot));
+        synchronized (this) {
+            state = State.of(decoded.getDrones(), decoded.getServicePoints(),
+                    decoded.getRestrictedAreas(), decoded.getDronesForServicePoints());
+        }
+        log.info("In-memory reference data replaced from snapshot version {}", decoded.getVersion());
+        changedAll();
+    }
+
+    // ==================== DRONE OPERATIONS ====================
+
+    @Override
+    public List<Drone> getAllDrones() {
+        return List.copyOf(state().drones().values());
+    }
+
+    @Override
+    public Drone getDroneById(String id) {
+        return id != null ? state().drones().get(id) : null;
+    }
+
+    @Override
+    public Drone saveDrone(Drone drone) {
+        state().drones().put(drone.getId(), drone);
+        changed(ReferenceDataChangedEvent.Dataset.DRONES);
+        return drone;
+    }
+
+    @Override
+    public void deleteDrone(String id) {
+        state().drones().remove(id);
+        changed(ReferenceDataChangedEvent.Dataset.DRONES);
+    }
+
+    // ==================== SERVICE POINT OPERATIONS ====================
+
+    @Override
+    public List<ServicePoint> getServicePoints() {
+        return List.copyOf(state().servicePoints().values());
+    }
+
+    @Override
+    public ServicePoint getServicePointById(Integer id) {
+        return id != null ? state().servicePoints().get(id) : null;
+    }
+
+    @Override
+    public ServicePoint saveServicePoint(ServicePoint servicePoint) {
+        state().servicePoints().put(servicePoint.getId(), servicePoint);
+        changed(ReferenceDataChangedEvent.Dataset.SERVICE_POINTS);
+        return servicePoint;
+    }
+
+    @Override
+    public void deleteServicePoint(Integer id) {
+        state().servicePoints().remove(id);
+        changed(ReferenceDataChangedEvent.Dataset.SERVICE_POINTS);
+    }
+
+    // ==================== RESTRICTED AREA OPERATIONS ====================
+
+    @Override
+    public List<RestrictedArea> getRestrictedAreas() {
+        return List.copyOf(state().restrictedAreas().values());
+    }
+
+    @Override
+    public RestrictedArea getRestrictedAreaById(Integer id) {
+        return id != null ? state().restrictedAreas().get(id) : null;
+    }
+
+    @Override
+    public RestrictedArea saveRestrictedArea(RestrictedArea area) {
+        state().restrictedAreas().put(area.getId(), area);
+        changed(ReferenceDataChangedEvent.Dataset.RESTRICTED_AREAS);
+        return area;
+    }
+
+    @Override
+    public void deleteRestrictedArea(Integer id) {
+        state().restrictedAreas().remove(id);
+        changed(ReferenceDataChangedEvent.Dataset.RESTRICTED_AREAS);
+    }
+
+    // ==================== DRONE AVAILABILITY OPERATIONS ====================
+
+    /**
+     * Availability grouped by service point, with every service point listed (as the PostgreSQL store does).
+     */
+    @Override
+    public List<DroneForServicePoint> getDronesForServicePoints() {
+        State current = state();
+        List<DroneForServicePoint> result = new ArrayList<>();
+        for (Integer servicePointId : current.servicePoints().keySet()) {
+            List<ServicePointDroneAvailability> drones = new ArrayList<>();
+            current.availability().getOrDefault(servicePointId, new ConcurrentSkipListMap<>()).forEach((droneId, windows) -> {
+                ServicePointDroneAvailability spda = new ServicePointDroneAvailability();
+                spda.setId(droneId);
+                spda.setAvailability(windows);
+                drones.add(spda);
+            });
+            result.add(new DroneForServicePoint(servicePointId, drones));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public AvailabilityUpdateResult saveAvailability(String droneId, Integer servicePointId, List<DroneAvailabilityWindow> windows) {
+        ServicePointDroneAvailability availability = new ServicePointDroneAvailability();
+        availability.setId(droneId);
+        availability.setAvailability(windows);
+        return applyAvailability(List.of(new DroneForServicePoint(servicePointId, List.of(availability))), false);
+    }
+
+    /**
+     * Apply an availability schedule. Counts are worked out per drone and service point pair the same way
+     * as in the PostgreSQL store, so both report the same result for the same schedule.
+     */
+    @Override
+    public synchronized AvailabilityUpdateResult applyAvailability(List<DroneForServicePoint> schedule, boolean replaceAll) {
+        State current = state();
+        Map<Integer, Map<String, List<DroneAvailabilityWindow>>> requested = new HashMap<>();
+        for (DroneForServicePoint dfsp : schedule) {
+            if (dfsp.getDrones() == null) {
+                continue;
+            }
+            for (ServicePointDroneAvailability spda : dfsp.getDrones()) {
+                if (spda == null || spda.getAvailability() == null) {
+                    continue;
+                }
+                requested.computeIfAbsent(dfsp.getServicePointId(), id -> new HashMap<>())
+                        .computeIfAbsent(spda.getId(), id -> new ArrayList<>())
+                        .addAll(spda.getAvailability());
+            }
+        }
+
+        int inserted = 0;
+        int deleted = 0;
+        int unchanged = 0;
+        // when the schedule is the whole fleet's, stored pairs it does not mention are cleared
+        for (Map.Entry<Integer, ConcurrentSkipListMap<String, List<DroneAvailabilityWindow>>> stored
+                : current.availability().entrySet()) {
+            Map<String, List<DroneAvailabilityWindow>> wanted = requested.getOrDefault(stored.getKey(), Map.of());
+            for (Iterator<Map.Entry<String, List<DroneAvailabilityWindow>>> pairs = stored.getValue().entrySet().iterator();
+                 pairs.hasNext(); ) {
+                Map.Entry<String, List<DroneAvailabilityWindow>> pair = pairs.next();
+                if (replaceAll && !wanted.containsKey(pair.getKey())) {
+                    deleted += pair.getValue().size();
+                    pairs.remove();
+                }
+            }
+        }
+        for (Map.Entry<Integer, Map<String, List<DroneAvailabilityWindow>>> servicePoint : requested.entrySet()) {
+            ConcurrentSkipListMap<String, List<DroneAvailabilityWindow>> stored =
+                    current.availability().computeIfAbsent(servicePoint.getKey(), id -> new ConcurrentSkipListMap<>());
+            for (Map.Entry<String, List<DroneAvailabilityWindow>> pair : servicePoint.getValue().entrySet()) {
+                List<DroneAvailabilityWindow> remaining = new ArrayList<>(stored.getOrDefault(pair.getKey(), List.of()));
+                int kept = 0;
+                for (DroneAvailabilityWindow window : pair.getValue()) {
+                    if (remaining.remove(window)) {
+                        kept++;
+                    }
+                }
+                unchanged += kept;
+                inserted += pair.getValue().size() - kept;
+                deleted += remaining.size();
+                stored.put(pair.getKey(), List.copyOf(pair.getValue()));
+            }
+        }
+        if (inserted > 0 || deleted > 0) {
+            changed(ReferenceDataChangedEvent.Dataset.AVAILABILITY);
+        }
+        return new AvailabilityUpdateResult(inserted, deleted, unchanged);
+    }
+
+    @Override
+    public synchronized void deleteAvailabilityByDroneId(String droneId) {
+        state().availability().values().forEach(drones -> drones.remove(droneId));
+        changed(ReferenceDataChangedEvent.Dataset.AVAILABILITY);
+    }
+
+    private State state() {
+        State current = state;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (state == null) {
+                state = load();
+            }
+            return state;
+        }
+    }
+
+    private State load() {
+        if (fixture == null || fixture.isBlank()) {
+            log.info("No in-memory fixture configured, loading reference data from the ILP service");
+            return State.of(ilpDataService.getAllDrones(), ilpDataService.getServicePoints(),
+                    ilpDataService.getRestrictedAreas(), ilpDataService.getDronesForServicePoints());
+        }
+        Resource resource = new DefaultResourceLoader().getResource(fixture);
+        byte[] bytes;
+        try (InputStream in = resource.getInputStream()) {
+            bytes = in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read in-memory fixture " + fixture, e);
+        }
+
+        State loaded;
+        if (bytes.length >= 4 && ByteBuffer.wrap(bytes).getInt() == ReferenceSnapshotCodec.MAGIC) {
+            ReferenceSnapshot snapshot = ReferenceSnapshotCodec.read(ByteBuffer.wrap(bytes));
+            loaded = State.of(snapshot.getDrones(), snapshot.getServicePoints(),
+                    snapshot.getRestrictedAreas(), snapshot.getDronesForServicePoints());
+        } else {
+            try {
+                Fixture json = objectMapper.readValue(bytes, Fixture.class);
+                loaded = State.of(json.drones(), json.servicePoints(), json.restrictedAreas(), json.dronesForServicePoints());
+            } catch (IOException e) {
+                throw new UncheckedIOException("In-memory fixture " + fixture + " is neither a snapshot nor JSON", e);
+            }
+        }
+        log.info("Loaded {} drones and {} service points into memory from {}",
+                loaded.drones().size(), loaded.servicePoints().size(), fixture);
+        return loaded;
+    }
+
+    private void changedAll() {
+        for (ReferenceDataChangedEvent.Dataset dataset : ReferenceDataChangedEvent.Dataset.values()) {
+            changed(dataset);
+        }
+    }
+
+    private void changed(ReferenceDataChangedEvent.Dataset dataset) {
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(dataset));
+    }
+
+    /**
+     * JSON fixture layout; any list may be left out.
+     */
+    record Fixture(List<Drone> drones, List<ServicePoint> servicePoints, List<RestrictedArea> restrictedAreas,
+                   List<DroneForServicePoint> dronesForServicePoints) {
+    }
+
+    /**
+     * Everything held, keyed by ID (availability by service point, then drone). Replaced as a whole on
+     * reloads, so readers never see a half-loaded data set.
+     */
+    private record State(ConcurrentSkipListMap<String, Drone> drones,
+                         ConcurrentSkipListMap<Integer, ServicePoint> servicePoints,
+                         ConcurrentSkipListMap<Integer, RestrictedArea> restrictedAreas,
+                         ConcurrentSkipListMap<Integer, ConcurrentSkipListMap<String, List<DroneAvailabilityWindow>>> availability) {
+
+        static State of(List<Drone> drones, List<ServicePoint> servicePoints, List<RestrictedArea> restrictedAreas,
+                        List<DroneForServicePoint> dronesForServicePoints) {
+            State state = new State(new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>(),
+                    new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>());
+            for (Drone drone : nonNull(drones)) {
+                state.drones().put(drone.getId(), drone);
+            }
+            for (ServicePoint servicePoint : nonNull(servicePoints)) {
+                state.servicePoints().put(servicePoint.getId(), servicePoint);
+            }
+            for (RestrictedArea area : nonNull(restrictedAreas)) {
+                state.restrictedAreas().put(area.getId(), area);
+            }
+            for (DroneForServicePoint dfsp : nonNull(dronesForServicePoints)) {
+                ConcurrentSkipListMap<String, List<DroneAvailabilityWindow>> byDrone =
+                        state.availability().computeIfAbsent(dfsp.getServicePointId(), id -> new ConcurrentSkipListMap<>());
+                for (ServicePointDroneAvailability spda : nonNull(dfsp.getDrones())) {
+                    byDrone.merge(spda.getId(), List.copyOf(nonNull(spda.getAvailability())), (a, b) -> {
+                        List<DroneAvailabilityWindow> merged = new ArrayList<>(a);
+                        merged.addAll(b);
+                        return List.copyOf(merged);
+                    });
+                }
+            }
+            return state;
+        }
+
+        private static <T> List<T> nonNull(List<T> list) {
+            return list != null ? list : List.of();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package dds.service;
+
+import dds.dto.Delivery;
+import dds.dto.DronePath;
+import dds.dto.MedDispatchRec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Anytime improvement of a delivery plan by large neighbourhood search (ruin-and-recreate).
+ *
+ * <p>Several workers repeatedly remove part of the plan (random or geographically related dispatches)
+ * and greedily re-insert the removed dispatches at their cheapest feasible position. The best plan found
+ * by any worker is kept in a shared reference, so whenever the deadline expires there is a feasible
+ * plan to return. Costs are estimates from the routing model; exact paths are searched afterwards.
+ */
+@Component
+@Slf4j
+public class LargeNeighbourhoodSearch {
+
+    // Unserved dispatches dominate the objective so that cost is never traded for coverage
+    private static final double UNSERVED_PENALTY = 1e6;
+    private static final double EPSILON = 1e-9;
+    private static final double MAX_RUIN_FRACTION = 0.3;
+    private static final int RESTART_INTERVAL = 100;
+
+    private final CapacitatedRoutingSolver routingSolver;
+    private final ExecutorService lnsExecutor;
+
+    @Value("${planner.lns.workers:2}")
+    private int workers;
+
+    public LargeNeighbourhoodSearch(CapacitatedRoutingSolver routingSolver,
+                                    @Qualifier("lnsExecutor") ThreadPoolExecutor lnsExecutor) {
+        this.routingSolver = routingSolver;
+        this.lnsExecutor = lnsExecutor;
+    }
+
+    /**
+     * Improve the given plan until the deadline.
+     *
+     * @param fleet        the request's fleet snapshot
+     * @param dispatches   all dispatches of the request
+     * @param initialPaths the plan to start from (typically the greedy plan)
+     * @param deadline     {@link System#nanoTime()} value at which the search must stop
+     * @return the best trips found
+     */
+    public List<RoutePlan> optimise(FleetRegistry.FleetSnapshot fleet, List<MedDispatchRec> dispatches,
+                                    List<DronePath> initialPaths, long deadline) {
+        List<RoutingModel> models = routingSolver.buildModels(fleet, dispatches);
+        List<RoutePlan> plans = new ArrayList<>();
+
+        for (int m = 0; m < models.size(); m++) {
+            RoutingModel model = models.get(m);
+            // Split the remaining time evenly over the remaining dates
+            long now = System.nanoTime();
+            long modelDeadline = now + Math.max(0, deadline - now) / (models.size() - m);
+
+            Solution best = search(model, initialSolution(model, initialPaths), modelDeadline);
+            plans.addAll(routingSolver.toPlans(model, best.routes));
+        }
+        return plans;
+    }
+
+    private Solution search(RoutingModel model, Solution initial, long deadline) {
+        AtomicReference<Solution> best = new AtomicReference<>(initial);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            long seed = System.nanoTime() + w;
+            futures.add(lnsExecutor.submit(() -> runWorker(model, best, deadline, new Random(seed))));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                try {
+                    future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                } catch (ExecutionException e) {
+                    log.warn("LNS worker failed", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Workers still running (or still queued) must not outlive the request
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        Solution result = best.get();
+        log.debug("LNS finished: estimated cost {} -> {}, unserved {} -> {}",
+                initial.cost, result.cost, initial.unassigned.size(), result.unassigned.size());
+        return result;
+    }
+
+    private void runWorker(RoutingModel model, AtomicReference<Solution> best, long deadline, Random random) {
+        Solution current = best.get();
+        int iteration = 0;
+
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            iteration++;
+
+            List<List<Integer>> routes = copyRoutes(current.routes);
+            List<Integer> removed = new ArrayList<>(current.unassigned);
+            ruin(model, routes, removed, random);
+            Collections.shuffle(removed, random);
+            Solution candidate = recreate(model, routes, removed);
+
+            if (candidate.objective() < current.objective() - EPSILON) {
+                current = candidate;
+                offer(best, candidate);
+            } else if (iteration % RESTART_INTERVAL == 0) {
+                // Jump to the shared best so workers do not stay stuck in a poor region
+                current = best.get();
+            }
+        }
+    }
+
+    private void offer(AtomicReference<Solution> best, Solution candidate) {
+        while (true) {
+            Solution incumbent = best.get();
+            if (candidate.objective() >= incumbent.objective() - EPSILON) {
+                return;
+            }
+            if (best.compareAndSet(incumbent, candidate)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove a random number of dispatches, either chosen at random or clustered around a random seed.
+     */
+    private void ruin(RoutingModel model, List<List<Integer>> routes, List<Integer> removed, Random random) {
+        List<Integer> served = new ArrayList<>();
+        routes.forEach(served::addAll);
+        if (served.isEmpty()) {
+            return;
+        }
+
+        int maxRemove = Math.max(1, (int) Math.ceil(served.size() * MAX_RUIN_FRACTION));
+        int count = 1 + random.nextInt(maxRemove);
+        Set<Integer> toRemove = new HashSet<>();
+
+        if (random.nextBoolean()) {
+            Collections.shuffle(served, random);
+            toRemove.addAll(served.subList(0, count));
+        } else {
+            int seed = served.get(random.nextInt(served.size()));
+            served.sort(Comparator.comparingDouble(d -> model.legs.moves(seed, d)));
+            toRemove.addAll(served.subList(0, count));  // the seed itself sorts first
+        }
+
+        for (List<Integer> route : routes) {
+            route.removeIf(toRemove::contains);
+        }
+        routes.removeIf(List::isEmpty);
+        removed.addAll(toRemove);
+
+        // Fewer dispatches share the fixed costs now, so a shortened trip may break a maxCost limit
+        Iterator<List<Integer>> iterator = routes.iterator();
+        while (iterator.hasNext()) {
+            List<Integer> route = iterator.next();
+            if (model.evaluate(route) == null) {
+                removed.addAll(route);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Re-insert each removed dispatch at its cheapest feasible position, or as a new trip.
+     */
+    private Solution recreate(RoutingModel model, List<List<Integer>> routes, List<Integer> removed) {
+        List<Double> costs = new ArrayList<>();
+        for (List<Integer> route : routes) {
+            costs.add(model.evaluate(route).cost);
+        }
+
+        List<Integer> unassigned = new ArrayList<>();
+        for (int dispatch : removed) {
+            double bestDelta = Double.POSITIVE_INFINITY;
+            int bestRoute = -1;
+            int bestPosition = -1;
+            double bestCost = 0;
+
+            RoutingModel.Evaluation alone = model.evaluate(List.of(dispatch));
+            if (alone != null) {
+                bestDelta = alone.cost;
+                bestCost = alone.cost;
+            }
+
+            for (int r = 0; r < routes.size(); r++) {
+                List<Integer> route = routes.get(r);
+                for (int position = 0; position <= route.size(); position++) {
+                    List<Integer> candidate = new ArrayList<>(route);
+                    candidate.add(position, dispatch);
+                    RoutingModel.Evaluation evaluation = model.evaluate(candidate);
+                    if (evaluation != null && evaluation.cost - costs.get(r) < bestDelta - EPSILON) {
+                        bestDelta = evaluation.cost - costs.get(r);
+                        bestRoute = r;
+                        bestPosition = position;
+                        bestCost = evaluation.cost;
+                    }
+                }
+            }
+
+            if (bestRoute >= 0) {
+                routes.get(bestRoute).add(bestPosition, dispatch);
+                costs.set(bestRoute, bestCost);
+            } else if (alone != null) {
+                routes.add(new ArrayList<>(List.of(dispatch)));
+                costs.add(bestCost);
+            } else {
+                unassigned.add(dispatch);
+            }
+        }
+
+        double total = costs.stream().mapToDouble(Double::doubleValue).sum();
+        return new Solution(routes, unassigned, total);
+    }
+
+    /**
+     * Convert the starting plan's drone paths into routes over the model.
+     * Trips the model considers infeasible are split up and re-inserted.
+     */
+    private Solution initialSolution(RoutingModel model, List<DronePath> initialPaths) {
+        Map<Integer, Deque<Integer>> indicesById = new HashMap<>();
+        for (int i = 0; i < model.size(); i++) {
+            indicesById.computeIfAbsent(model.dispatches.get(i).getId(), id -> new ArrayDeque<>()).add(i);
+        }
+
+        List<List<Integer>> routes = new ArrayList<>();
+        List<Integer> leftover = new ArrayList<>();
+        for (DronePath path : initialPaths == null ? List.<DronePath>of() : initialPaths) {
+            List<Integer> route = new ArrayList<>();
+            for (Delivery delivery : path.getDeliveries()) {
+                Deque<Integer> indices = indicesById.get(delivery.getDeliveryId());
+                if (indices != null && !indices.isEmpty()) {
+                    route.add(indices.poll());
+                }
+            }
+            if (route.isEmpty()) {
+                continue;
+            }
+            if (model.evaluate(route) != null) {
+                routes.add(route);
+            } else {
+                leftover.addAll(route);
+            }
+        }
+        indicesById.values().forEach(leftover::addAll);
+
+        return recreate(model, routes, leftover);
+    }
+
+    private static List<List<Integer>> copyRoutes(List<List<Integer>> routes) {
+        List<List<Integer>> copy = new ArrayList<>(routes.size());
+        for (List<Integer> route : routes) {
+            copy.add(new ArrayList<>(route));
+        }
+        return copy;
+    }
+
+    /**
+     * An immutable snapshot of a plan: trips, dispatches that could not be placed, and estimated cost.
+     */
+    private static final class Solution {
+        final List<List<Integer>> routes;
+        final List<Integer> unassigned;
+        final double cost;
+
+        Solution(List<List<Integer>> routes, List<Integer> unassigned, double cost) {
+            this.routes = routes;
+            this.unassigned = unassigned;
+            this.cost = cost;
+        }
+
+        double objective() {
+            return cost + UNSERVED_PENALTY * unassigned.size();
+        }
+    }
+}
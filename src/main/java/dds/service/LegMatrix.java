@@ -0,0 +1,32 @@
+package dds.service;
+
+import dds.dto.Position;
+
+import java.util.List;
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * Precomputed matrix of estimated moves between route points (dispatch locations and bases).
+ * Built once per routing problem so that route evaluation never recomputes a leg.
+ * The matrix is immutable after construction and safe to share between threads.
+ */
+final class LegMatrix {
+
+    private final double[][] moves;
+
+    LegMatrix(List<Position> points, ToDoubleBiFunction<Position, Position> estimator) {
+        int size = points.size();
+        this.moves = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                double estimate = estimator.applyAsDouble(points.get(i), points.get(j));
+                moves[i][j] = estimate;
+                moves[j][i] = estimate;
+            }
+        }
+    }
+
+    double moves(int from, int to) {
+        return moves[from][to];
+    }
+}
@@ -0,0 +1,195 @@
+package dds.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Minimum-cost bipartite matching over sparse candidate lists.
+ *
+ * <p>Each row lists only the columns it may be matched to. Rows are augmented one at a time along
+ * shortest paths (Dijkstra with potentials), which yields the largest possible matching and, among
+ * matchings of that size, the cheapest one. Pairs that are not listed are never matched, so rows
+ * without any candidate, or whose candidates are all taken, are left unmatched.
+ */
+public final class MinCostMatcher {
+
+    private MinCostMatcher() {
+    }
+
+    /**
+     * A column a row may be matched to, at the given cost.
+     */
+    public record Candidate(int column, double cost) {
+    }
+
+    /**
+     * Solve the assignment problem for a dense cost matrix.
+     * Non-finite entries are infeasible pairs and are left out of the candidate lists.
+     *
+     * @param cost cost matrix indexed as {@code cost[row][column]}; all rows must have the same length
+     * @return for each row, the index of its matched column, or -1 if the row is unmatched
+     */
+    public static int[] solve(double[][] cost) {
+        int cols = cost.length == 0 ? 0 : cost[0].length;
+        List<List<Candidate>> candidates = new ArrayList<>(cost.length);
+        for (double[] row : cost) {
+            List<Candidate> rowCandidates = new ArrayList<>();
+            for (int c = 0; c < cols; c++) {
+                if (Double.isFinite(row[c])) {
+                    rowCandidates.add(new Candidate(c, row[c]));
+                }
+            }
+            candidates.add(rowCandidates);
+        }
+        return solve(candidates, cols);
+    }
+
+    /**
+     * Solve the assignment problem for sparse candidate lists.
+     *
+     * @param candidates for each row, the columns it may be matched to; costs must be finite
+     * @param columns    number of columns
+     * @return for each row, the index of its matched column, or -1 if the row is unmatched
+     */
+    public static int[] solve(List<List<Candidate>> candidates, int columns) {
+        int rows = candidates.size();
+        int[] result = new int[rows];
+        Arrays.fill(result, -1);
+
+        // Shifting every cost by the same amount keeps the cheapest matching of each size,
+        // and makes all costs non-negative so zero potentials are valid to start with
+        double shift = 0;
+        int pairs = 0;
+        for (List<Candidate> row : candidates) {
+            for (Candidate candidate : row) {
+                shift = Math.min(shift, candidate.cost());
+                pairs++;
+            }
+        }
+        if (pairs == 0) {
+            return result;
+        }
+
+        // Nodes: rows, then columns, then source and sink
+        int source = rows + columns;
+        int sink = source + 1;
+        Network network = new Network(sink + 1, rows + columns + pairs);
+        for (int r = 0; r < rows; r++) {
+            network.add(source, r, 0);
+        }
+        for (int c = 0; c < columns; c++) {
+            network.add(rows + c, sink, 0);
+        }
+        int[] firstPairEdge = new int[rows + 1];
+        for (int r = 0; r < rows; r++) {
+            firstPairEdge[r] = network.count;
+            for (Candidate candidate : candidates.get(r)) {
+                network.add(r, rows + candidate.column(), candidate.cost() - shift);
+            }
+        }
+        firstPairEdge[rows] = network.count;
+
+        double[] potential = new double[network.nodes];
+        double[] distance = new double[network.nodes];
+        int[] viaEdge = new int[network.nodes];
+        boolean[] settled = new boolean[network.nodes];
+
+        for (int augmented = 0; augmented < Math.min(rows, columns); augmented++) {
+            network.shortestPaths(source, potential, distance, viaEdge, settled);
+            if (distance[sink] == Double.POSITIVE_INFINITY) {
+                break;
+            }
+            for (int node = 0; node < network.nodes; node++) {
+                if (settled[node]) {
+                    potential[node] += distance[node];
+                }
+            }
+            for (int node = sink; node != source; node = network.to[viaEdge[node] ^ 1]) {
+                network.capacity[viaEdge[node]]--;
+                network.capacity[viaEdge[node] ^ 1]++;
+            }
+        }
+
+        for (int r = 0; r < rows; r++) {
+            for (int e = firstPairEdge[r]; e < firstPairEdge[r + 1]; e += 2) {
+                if (network.capacity[e] == 0) {
+                    result[r] = network.to[e] - rows;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Unit-capacity flow network; edge {@code e ^ 1} is the residual reverse of edge {@code e}.
+     */
+    private static final class Network {
+        private final int nodes;
+        private final int[] head;
+        private final int[] next;
+        private final int[] to;
+        private final int[] capacity;
+        private final double[] cost;
+        private int count;
+
+        private Network(int nodes, int edges) {
+            this.nodes = nodes;
+            this.head = new int[nodes];
+            Arrays.fill(head, -1);
+            this.next = new int[edges * 2];
+            this.to = new int[edges * 2];
+            this.capacity = new int[edges * 2];
+            this.cost = new double[edges * 2];
+        }
+
+        private void add(int from, int target, double edgeCost) {
+            link(from, target, 1, edgeCost);
+            link(target, from, 0, -edgeCost);
+        }
+
+        private void link(int from, int target, int edgeCapacity, double edgeCost) {
+            to[count] = target;
+            capacity[count] = edgeCapacity;
+            cost[count] = edgeCost;
+            next[count] = head[from];
+            head[from] = count++;
+        }
+
+        /**
+         * Dijkstra over residual edges with reduced costs. Graphs here are small, so a linear
+         * scan for the closest node is used instead of a heap.
+         */
+        private void shortestPaths(int source, double[] potential, double[] distance,
+                                   int[] viaEdge, boolean[] settled) {
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            Arrays.fill(settled, false);
+            distance[source] = 0;
+            while (true) {
+                int node = -1;
+                for (int n = 0; n < nodes; n++) {
+                    if (!settled[n] && distance[n] < Double.POSITIVE_INFINITY
+                            && (node < 0 || distance[n] < distance[node])) {
+                        node = n;
+                    }
+                }
+                if (node < 0) {
+                    return;
+                }
+                settled[node] = true;
+                for (int e = head[node]; e >= 0; e = next[e]) {
+                    int target = to[e];
+                    if (capacity[e] == 0 || settled[target]) {
+                        continue;
+                    }
+                    // Rounding can leave reduced costs a hair below zero; they are zero in exact arithmetic
+                    double reduced = Math.max(0, cost[e] + potential[node] - potential[target]);
+                    if (distance[node] + reduced < distance[target]) {
+                        distance[target] = distance[node] + reduced;
+                        viaEdge[target] = e;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -11,7 +11,7 @@ import java.util.*;
 public class PathfindingService {
 
     private final LocationService locationService;
-    private final UnifiedDataService dataService;
+    private final ReferenceDataStore referenceDataStore;
 
 
     private static final double[] ANGLES = {
@@ -19,9 +19,9 @@ public class PathfindingService {
         180, 202.5, 225, 247.5, 270, 292.5, 315, 337.5
     };
 
-    public PathfindingService(LocationService locationService, UnifiedDataService dataService) {
+    public PathfindingService(LocationService locationService, ReferenceDataStore referenceDataStore) {
         this.locationService = locationService;
-        this.dataService = dataService;
+        this.referenceDataStore = referenceDataStore;
     }
 
     /**
@@ -31,7 +31,28 @@ public class PathfindingService {
      * @return List of Positions representing the path from start to end.
      */
     public List<Position> findPath(Position start, Position end) {
-        List<RestrictedArea> restrictedAreas = dataService.getRestrictedAreas();
+        return findPath(start, end, Integer.MAX_VALUE);
+    }
+
+    /**
+     * A* pathfinding with a move budget. Any node whose moves so far plus the minimum moves still
+     * needed exceeds the budget is pruned, so a hopeless search fails early instead of exploring
+     * the whole area.
+     * @param start start Position
+     * @param end end Position
+     * @param moveBudget maximum number of moves the path may use
+     * @return List of Positions representing the path from start to end, or only the start
+     *         position if no path within the budget exists.
+     */
+    public List<Position> findPath(Position start, Position end, int moveBudget) {
+        return findPath(referenceDataStore.current(), start, end, moveBudget);
+    }
+
+    /**
+     * {@link #findPath(Position, Position, int)} around the restricted areas of the given reference data.
+     */
+    public List<Position> findPath(ReferenceSnapshot reference, Position start, Position end, int moveBudget) {
+        List<RestrictedArea> restrictedAreas = reference.getRestrictedAreas();
 
         // If start and end are 'the same' as per isCloseTo, path is just start
         if (locationService.isCloseTo(start, end)) {
@@ -40,6 +61,11 @@ public class PathfindingService {
             return path;
         }
 
+        // Not even a straight line fits in the budget
+        if (minimumMoves(start, end) > moveBudget) {
+            return Collections.singletonList(start);
+        }
+
         PriorityQueue<Node> openSet = new PriorityQueue<>();
         Set<String> closedSet = new HashSet<>();
         Map<String, Node> allNodes = new HashMap<>();
@@ -85,6 +111,11 @@ public class PathfindingService {
 
                 double tentativeGScore = current.gCost + 1;
 
+                // Skip if the goal can no longer be reached within the budget from here
+                if (tentativeGScore + minimumMoves(neighbor, end) > moveBudget) {
+                    continue;
+                }
+
                 Node neighborNode = allNodes.get(neighborKey);
                 if (neighborNode == null) {
                     neighborNode = new Node(
@@ -155,6 +186,19 @@ public class PathfindingService {
         return path;
     }
 
+    /**
+     * Lower bound on the moves needed to get from {@code from} to within the close-to distance of {@code to}.
+     * Each move covers exactly one step, so fewer moves than this can never reach the target.
+     */
+    public int minimumMoves(Position from, Position to) {
+        double remaining = locationService.calculateDistance(from, to) - DroneService.MOVE_DISTANCE;
+        if (remaining <= 0) {
+            return 0;
+        }
+        // small tolerance so rounding error can never push the bound above the true minimum
+        return (int) Math.ceil(remaining / DroneService.MOVE_DISTANCE - 1e-6);
+    }
+
     private double heuristic(Position a, Position b) {
         return locationService.calculateDistance(a, b);
     }
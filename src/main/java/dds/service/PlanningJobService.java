@@ -0,0 +1,289 @@
+package dds.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dds.configuration.ConditionalOnDatabase;
+import dds.dto.DeliveryPathResponse;
+import dds.dto.MedDispatchRec;
+import dds.dto.PlanningJobStatus;
+import dds.entity.PlanningJobEntity;
+import dds.entity.PlanningJobState;
+import dds.repository.PlanningJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for asynchronous delivery planning.
+ * Jobs are persisted in PostgreSQL and executed on the bounded planner pool, so large
+ * dispatch uploads do not hold a servlet thread and finished results survive a restart.
+ *
+ * <p>Every unfinished job is leased by the instance running it, which renews the leases of the jobs it
+ * still has queued or running on its planner pool. A job whose outcome could not be recorded (say the
+ * database was briefly down) is no longer renewed, so its lease runs out and it is resumed. Instances only take over jobs whose lease has run out (claimed with a conditional update, so
+ * exactly one of them gets each job), and only the current owner can record a job's outcome.
+ */
+@ConditionalOnDatabase
+@Service
+@Slf4j
+public class PlanningJobService {
+
+    static final String SAVING_RESULT = "SAVING_RESULT";
+    static final String DONE = "DONE";
+
+    private final PlanningJobRepository repository;
+    private final DeliveryPlanningService deliveryPlanningService;
+    private final DeliveryHistoryService deliveryHistoryService;
+    private final ThreadPoolExecutor plannerExecutor;
+    private final ObjectMapper objectMapper;
+
+    @Value("${planner.jobs.lease-ms:60000}")
+    private long leaseMs = 60000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();  // queued or running on this instance
+    private ScheduledExecutorService leaseKeeper;
+
+    public PlanningJobService(PlanningJobRepository repository,
+                              DeliveryPlanningService deliveryPlanningService,
+                              DeliveryHistoryService deliveryHistoryService,
+                              @Qualifier("plannerExecutor") ThreadPoolExecutor plannerExecutor,
+                              ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.deliveryPlanningService = deliveryPlanningService;
+        this.deliveryHistoryService = deliveryHistoryService;
+        this.plannerExecutor = plannerExecutor;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Persist a new job and queue it on the planner pool.
+     *
+     * @throws RejectedExecutionException if the planner queue is full
+     */
+    public PlanningJobStatus submit(List<MedDispatchRec> dispatches, String droneIdToBeUsed) {
+        String jobId = UUID.randomUUID().toString();
+        PlanningJobEntity entity = PlanningJobEntity.queued(jobId, toJson(dispatches), dispatches.size(), droneIdToBeUsed,
+                nodeId, leaseUntil());
+        repository.save(entity);
+
+        inFlight.add(jobId);
+        try {
+            plannerExecutor.execute(() -> runJob(jobId, dispatches, droneIdToBeUsed));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(jobId);
+            log.warn("Planner queue is full, rejecting job {} with {} dispatches", jobId, dispatches.size());
+            repository.deleteById(jobId);
+            throw e;
+        }
+
+        log.debug("Queued planning job {} with {} dispatches", jobId, dispatches.size());
+        return entityToStatus(entity);
+    }
+
+    /**
+     * Get the status of a job, or null if the job does not exist.
+     */
+    public PlanningJobStatus getStatus(String jobId) {
+        return repository.findById(jobId)
+                .map(this::entityToStatus)
+                .orElse(null);
+    }
+
+    /**
+     * Get the result of a completed job, or null if the job has not completed.
+     */
+    public DeliveryPathResponse getResult(String jobId) {
+        PlanningJobEntity entity = repository.findById(jobId).orElse(null);
+        if (entity == null || entity.getState() != PlanningJobState.COMPLETED || entity.getResultPayload() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(entity.getResultPayload(), DeliveryPathResponse.class);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to parse result of planning job {}", jobId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Resume orphaned jobs once the application is ready, then keep renewing this instance's leases
+     * and picking up jobs whose owner has gone away.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLeaseKeeper() {
+        resumeExpiredJobs();
+        long intervalMs = Math.max(1, leaseMs / 3);
+        leaseKeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "planning-job-leases");
+            thread.setDaemon(true);
+            return thread;
+        });
+        leaseKeeper.scheduleWithFixedDelay(this::maintainLeases, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopLeaseKeeper() {
+        if (leaseKeeper != null) {
+            leaseKeeper.shutdownNow();
+        }
+    }
+
+    /**
+     * Re-queue queued or running jobs whose lease has run out, i.e. whose instance stopped or died.
+     */
+    public void resumeExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PlanningJobEntity> unfinished = repository.findByStateInOrderBySubmittedAtAsc(
+                List.of(PlanningJobState.QUEUED, PlanningJobState.RUNNING));
+
+        int resumed = 0;
+        for (PlanningJobEntity entity : unfinished) {
+            if (entity.getLeaseExpiresAt() != null && entity.getLeaseExpiresAt().isAfter(now)) {
+                continue;  // its owner is still alive
+            }
+            if (repository.claim(entity.getId(), nodeId, leaseUntil(), now) == 0) {
+                continue;  // another instance got there first
+            }
+
+            List<MedDispatchRec> dispatches = fromJson(entity.getRequestPayload());
+            if (dispatches == null) {
+                finish(entity.getId(), PlanningJobState.FAILED, null, "Stored request could not be read", null);
+                continue;
+            }
+            inFlight.add(entity.getId());
+            try {
+                plannerExecutor.execute(() -> runJob(entity.getId(), dispatches, entity.getDroneIdToBeUsed()));
+                resumed++;
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(entity.getId());
+                finish(entity.getId(), PlanningJobState.FAILED, null, "Planner queue was full when resuming the job", null);
+            }
+        }
+        if (resumed > 0) {
+            log.info("Resumed {} planning jobs whose lease had expired", resumed);
+        }
+    }
+
+    void maintainLeases() {
+        try {
+            if (!inFlight.isEmpty()) {
+                repository.renewLeases(List.copyOf(inFlight), nodeId, leaseUntil());
+            }
+            resumeExpiredJobs();
+        } catch (RuntimeException e) {
+            // leases are generous enough to survive a missed renewal
+            log.warn("Could not maintain planning job leases: {}", e.getMessage());
+        }
+    }
+
+    private void runJob(String jobId, List<MedDispatchRec> dispatches, String droneIdToBeUsed) {
+        try {
+            if (repository.markRunning(jobId, nodeId, LocalDateTime.now()) == 0) {
+                log.warn("Planning job {} no longer exists or is owned by another instance, skipping", jobId);
+                return;
+            }
+
+            DeliveryPathResponse response = deliveryPlanningService.calcDeliveryPath(dispatches, droneIdToBeUsed, null,
+                    (phase, plannedDeliveries) -> repository.updateProgress(jobId, nodeId, phase, plannedDeliveries));
+            int plannedDeliveries = response != null ? DeliveryPlanningService.countDeliveries(response) : 0;
+            repository.updateProgress(jobId, nodeId, SAVING_RESULT, plannedDeliveries);
+
+            // Log the delivery attempt, same as the synchronous endpoint
+            if (response != null && response.getDronePaths() != null && !response.getDronePaths().isEmpty()) {
+                deliveryHistoryService.logSuccess(dispatches, response);
+            } else {
+                deliveryHistoryService.logFailure(dispatches);
+            }
+
+            String result = toJson(response);
+            if (result == null) {
+                finish(jobId, PlanningJobState.FAILED, null, "Result could not be serialized", plannedDeliveries);
+                return;
+            }
+            finish(jobId, PlanningJobState.COMPLETED, result, null, plannedDeliveries);
+            log.debug("Planning job {} completed", jobId);
+        } catch (Throwable e) {
+            log.error("Planning job {} failed", jobId, e);
+            try {
+                finish(jobId, PlanningJobState.FAILED, null,
+                        e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName(), null);
+            } catch (RuntimeException notRecorded) {
+                log.warn("Could not record the failure of planning job {}, it is resumed once its lease runs out: {}",
+                        jobId, notRecorded.getMessage());
+            }
+            if (e instanceof Error error) {
+                throw error;
+            }
+        } finally {
+            // no longer renewed, so a job whose outcome was not recorded is resumed once its lease runs out
+            inFlight.remove(jobId);
+        }
+    }
+
+    private void finish(String jobId, PlanningJobState state, String resultPayload, String errorMessage,
+                        Integer plannedDeliveries) {
+        int updated = repository.finish(jobId, nodeId, state, DONE, resultPayload, errorMessage, plannedDeliveries,
+                LocalDateTime.now());
+        if (updated == 0) {
+            log.warn("Planning job {} was taken over by another instance, dropping this instance's outcome", jobId);
+        }
+    }
+
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plus(leaseMs, ChronoUnit.MILLIS);
+    }
+
+    private PlanningJobStatus entityToStatus(PlanningJobEntity entity) {
+        return new PlanningJobStatus(
+                entity.getId(),
+                entity.getState(),
+                entity.getDispatchCount(),
+                entity.getPhase(),
+                entity.getPlannedDeliveries(),
+                entity.getSubmittedAt(),
+                entity.getStartedAt(),
+                entity.getCompletedAt(),
+                entity.getErrorMessage()
+        );
+    }
+
+    private String toJson(Object obj) {
+        try {
+            return objectMapper.writeValueAsString(obj);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize planning job payload to JSON", e);
+            return null;
+        }
+    }
+
+    private List<MedDispatchRec> fromJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<>() {
+            });
+        } catch (JsonProcessingException e) {
+            log.error("Failed to parse stored planning job request", e);
+            return null;
+        }
+    }
+}
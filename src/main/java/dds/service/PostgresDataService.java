@@ -3,6 +3,7 @@ package dds.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dds.configuration.ConditionalOnDatabase;
 import dds.dto.*;
 import dds.entity.DroneAvailabilityEntity;
 import dds.entity.DroneEntity;
@@ -13,36 +14,55 @@ import dds.repository.DroneRepository;
 import dds.repository.RestrictedAreaRepository;
 import dds.repository.ServicePointRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.DayOfWeek;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * Service that reads ILP data from PostgreSQL database.
  * Provides the same interface as IlpDataService but uses local database.
  */
+@ConditionalOnDatabase
 @Service
 @Slf4j
-public class PostgresDataService {
+public class PostgresDataService implements AdminDataStore {
 
     private final DroneRepository droneRepository;
     private final ServicePointRepository servicePointRepository;
     private final RestrictedAreaRepository restrictedAreaRepository;
     private final DroneAvailabilityRepository droneAvailabilityRepository;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong availabilityGeneration = new AtomicLong();
+    private volatile CachedAvailability availabilityView;
 
     public PostgresDataService(DroneRepository droneRepository,
                                 ServicePointRepository servicePointRepository,
                                 RestrictedAreaRepository restrictedAreaRepository,
                                 DroneAvailabilityRepository droneAvailabilityRepository,
-                                ObjectMapper objectMapper) {
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                JdbcTemplate jdbcTemplate) {
         this.droneRepository = droneRepository;
         this.servicePointRepository = servicePointRepository;
         this.restrictedAreaRepository = restrictedAreaRepository;
         this.droneAvailabilityRepository = droneAvailabilityRepository;
         this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     /**
@@ -74,12 +94,14 @@ public class PostgresDataService {
         DroneEntity entity = droneToEntity(drone);
         DroneEntity saved = droneRepository.save(entity);
         log.debug("Successfully saved drone: {}", drone.getId());
+        changed(ReferenceDataChangedEvent.Dataset.DRONES);
         return entityToDrone(saved);
     }
 
     public void deleteDrone(String id) {
         log.debug("Deleting drone: {}", id);
         droneRepository.deleteById(id);
+        changed(ReferenceDataChangedEvent.Dataset.DRONES);
     }
 
     private Drone entityToDrone(DroneEntity entity) {
@@ -134,12 +156,14 @@ public class PostgresDataService {
         ServicePointEntity entity = servicePointToEntity(servicePoint);
         ServicePointEntity saved = servicePointRepository.save(entity);
         log.debug("Successfully saved service point: {}", servicePoint.getId());
+        changed(ReferenceDataChangedEvent.Dataset.SERVICE_POINTS);
         return entityToServicePoint(saved);
     }
 
     public void deleteServicePoint(Integer id) {
         log.debug("Deleting service point: {}", id);
         servicePointRepository.deleteById(id);
+        changed(ReferenceDataChangedEvent.Dataset.SERVICE_POINTS);
     }
 
     private ServicePoint entityToServicePoint(ServicePointEntity entity) {
@@ -183,125 +207,282 @@ public class PostgresDataService {
         RestrictedAreaEntity entity = restrictedAreaToEntity(area);
         RestrictedAreaEntity saved = restrictedAreaRepository.save(entity);
         log.debug("Successfully saved restricted area: {}", area.getId());
+        changed(ReferenceDataChangedEvent.Dataset.RESTRICTED_AREAS);
         return entityToRestrictedArea(saved);
     }
 
     public void deleteRestrictedArea(Integer id) {
         log.debug("Deleting restricted area: {}", id);
         restrictedAreaRepository.deleteById(id);
+        changed(ReferenceDataChangedEvent.Dataset.RESTRICTED_AREAS);
     }
 
     private RestrictedArea entityToRestrictedArea(RestrictedAreaEntity entity) {
         RestrictedArea area = new RestrictedArea();
         area.setId(entity.getId());
         area.setName(entity.getName());
-        
-        // Parse vertices from JSON
-        if (entity.getVerticesJson() != null) {
-            try {
-                List<Position> vertices = objectMapper.readValue(
-                        entity.getVerticesJson(),
-                        new TypeReference<>() {
-                        }
-                );
-                area.setVertices(vertices);
-            } catch (JsonProcessingException e) {
-                log.error("Failed to parse vertices JSON for restricted area {}", entity.getId(), e);
-                area.setVertices(new ArrayList<>());
-            }
-        }
-        
+        area.setVertices(verticesOf(entity));
         return area;
     }
 
+    /**
+     * Vertices of a stored area, decoded straight from the packed bytes (or, for rows written before they
+     * existed, parsed from the JSON). Areas are only read when the dataset changes, as
+     * {@link ReferenceDataStore} keeps the decoded list in its snapshot until then.
+     */
+    private List<Position> verticesOf(RestrictedAreaEntity entity) {
+        if (entity.getVerticesPacked() != null) {
+            return GeometryCodec.unpack(entity.getVerticesPacked());
+        }
+        if (entity.getVerticesJson() == null) {
+            return null;
+        }
+        try {
+            return Collections.unmodifiableList(objectMapper.readValue(entity.getVerticesJson(), new TypeReference<List<Position>>() {
+            }));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to parse vertices JSON for restricted area {}", entity.getId(), e);
+            return new ArrayList<>();
+        }
+    }
+
     private RestrictedAreaEntity restrictedAreaToEntity(RestrictedArea area) {
         RestrictedAreaEntity entity = new RestrictedAreaEntity();
         entity.setId(area.getId());
         entity.setName(area.getName());
         entity.setLowerLimit(0);
         entity.setUpperLimit(-1);
-        
-        // Convert vertices to JSON
+
+        // Vertices are stored packed; the JSON column is only read for older rows
         if (area.getVertices() != null) {
-            try {
-                entity.setVerticesJson(objectMapper.writeValueAsString(area.getVertices()));
-            } catch (JsonProcessingException e) {
-                log.error("Failed to serialize vertices for restricted area {}", area.getId(), e);
-                entity.setVerticesJson("[]");
-            }
+            entity.setVerticesPacked(GeometryCodec.pack(area.getVertices()));
         }
-        
+
         return entity;
     }
 
     // ==================== DRONE AVAILABILITY OPERATIONS ====================
 
+    /**
+     * Availability grouped by service point and drone, read with one joined query that comes back
+     * already ordered by service point and drone, so grouping is a single pass. The result is cached until
+     * service points or availability change (here or, through notifications, on another instance).
+     * The returned list is shared and must not be modified.
+     */
     @Transactional(readOnly = true)
     public List<DroneForServicePoint> getDronesForServicePoints() {
-        List<ServicePointEntity> servicePoints = servicePointRepository.findAll();
-        List<DroneAvailabilityEntity> allAvailability = droneAvailabilityRepository.findAll();
-
-        // Group availability by service point
-        Map<Integer, List<DroneAvailabilityEntity>> byServicePoint = allAvailability.stream()
-                .collect(Collectors.groupingBy(DroneAvailabilityEntity::getServicePointId));
+        CachedAvailability cached = availabilityView;
+        long generation = availabilityGeneration.get();
+        if (cached != null && cached.generation() == generation) {
+            return cached.view();
+        }
 
         List<DroneForServicePoint> result = new ArrayList<>();
-
-        for (ServicePointEntity sp : servicePoints) {
-            DroneForServicePoint dfsp = new DroneForServicePoint();
-            dfsp.setServicePointId(sp.getId());
-
-            List<DroneAvailabilityEntity> spAvailability = byServicePoint.getOrDefault(sp.getId(), new ArrayList<>());
-            
-            // Group by drone
-            Map<String, List<DroneAvailabilityEntity>> byDrone = spAvailability.stream()
-                    .collect(Collectors.groupingBy(DroneAvailabilityEntity::getDroneId));
-
-            List<ServicePointDroneAvailability> drones = new ArrayList<>();
-            for (Map.Entry<String, List<DroneAvailabilityEntity>> entry : byDrone.entrySet()) {
-                ServicePointDroneAvailability spda = new ServicePointDroneAvailability();
-                spda.setId(entry.getKey());
-                
-                List<DroneAvailabilityWindow> windows = entry.getValue().stream()
-                        .map(this::entityToAvailabilityWindow)
-                        .collect(Collectors.toList());
-                spda.setAvailability(windows);
-                
+        jdbcTemplate.query("""
+                SELECT sp.id AS service_point_id, a.drone_id, a.day_of_week, a.from_time, a.until_time
+                FROM service_points sp
+                LEFT JOIN drone_availability a ON a.service_point_id = sp.id
+                ORDER BY sp.id, a.drone_id, a.id""", rs -> {
+            int servicePointId = rs.getInt("service_point_id");
+            DroneForServicePoint dfsp = result.isEmpty() ? null : result.getLast();
+            if (dfsp == null || dfsp.getServicePointId() != servicePointId) {
+                dfsp = new DroneForServicePoint(servicePointId, new ArrayList<>());
+                result.add(dfsp);
+            }
+            String droneId = rs.getString("drone_id");
+            if (droneId == null) {
+                return;  // service point without availability
+            }
+            List<ServicePointDroneAvailability> drones = dfsp.getDrones();
+            ServicePointDroneAvailability spda = drones.isEmpty() ? null : drones.getLast();
+            if (spda == null || !spda.getId().equals(droneId)) {
+                spda = new ServicePointDroneAvailability();
+                spda.setId(droneId);
+                spda.setAvailability(new ArrayList<>());
                 drones.add(spda);
             }
-            
-            dfsp.setDrones(drones);
-            result.add(dfsp);
+            String day = rs.getString("day_of_week");
+            spda.getAvailability().add(new DroneAvailabilityWindow(
+                    day != null ? DayOfWeek.valueOf(day) : null,
+                    rs.getObject("from_time", LocalTime.class),
+                    rs.getObject("until_time", LocalTime.class)));
+        });
+
+        List<DroneForServicePoint> view = Collections.unmodifiableList(result);
+        // a change that committed while we were reading bumps the generation, so this one is not kept
+        if (availabilityGeneration.get() == generation) {
+            availabilityView = new CachedAvailability(generation, view);
         }
+        return view;
+    }
 
-        return result;
+    // before the reference data store reloads, so it does not read the stale view
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        if (event.getDataset() == ReferenceDataChangedEvent.Dataset.AVAILABILITY
+                || event.getDataset() == ReferenceDataChangedEvent.Dataset.SERVICE_POINTS) {
+            availabilityGeneration.incrementAndGet();
+            availabilityView = null;
+        }
     }
 
+    /**
+     * Replace the availability of one drone at one service point. Only the windows that differ are written.
+     */
     @Transactional
-    public void saveAvailability(String droneId, Integer servicePointId, List<DroneAvailabilityWindow> windows) {
+    public AvailabilityUpdateResult saveAvailability(String droneId, Integer servicePointId, List<DroneAvailabilityWindow> windows) {
         log.debug("Saving availability for drone {} at service point {}", droneId, servicePointId);
-        // Delete existing availability for this drone at this service point
-        List<DroneAvailabilityEntity> existing = droneAvailabilityRepository
-                .findByDroneIdAndServicePointId(droneId, servicePointId);
-        droneAvailabilityRepository.deleteAll(existing);
-
-        // Save new availability windows
-        for (DroneAvailabilityWindow window : windows) {
-            DroneAvailabilityEntity entity = new DroneAvailabilityEntity();
-            entity.setDroneId(droneId);
-            entity.setServicePointId(servicePointId);
-            entity.setDayOfWeek(window.getDayOfWeek());
-            entity.setFromTime(window.getFrom());
-            entity.setUntilTime(window.getUntil());
-            droneAvailabilityRepository.save(entity);
-        }
+        ServicePointDroneAvailability availability = new ServicePointDroneAvailability();
+        availability.setId(droneId);
+        availability.setAvailability(windows);
+        AvailabilityUpdateResult result = applyAvailability(
+                List.of(new DroneForServicePoint(servicePointId, List.of(availability))), false);
         log.debug("Successfully saved availability for drone {}", droneId);
+        return result;
+    }
+
+    /**
+     * Apply an availability schedule by diffing it against what is stored. For every drone and service
+     * point pair in the schedule, stored windows that are no longer wanted are deleted and missing ones
+     * inserted, each with one JDBC batch; windows present in both are left alone, keeping their IDs.
+     * With {@code replaceAll} the schedule is the whole fleet's, and pairs it does not mention are cleared too.
+     */
+    @Transactional
+    public AvailabilityUpdateResult applyAvailability(List<DroneForServicePoint> schedule, boolean replaceAll) {
+        // requested windows per pair, as a multiset so duplicate windows are kept as sent
+        Map<AvailabilityPair, Map<WindowKey, Integer>> requested = new HashMap<>();
+        for (DroneForServicePoint dfsp : schedule) {
+            if (dfsp.getDrones() == null) {
+                continue;
+            }
+            for (ServicePointDroneAvailability spda : dfsp.getDrones()) {
+                if (spda == null || spda.getAvailability() == null) {
+                    continue;
+                }
+                Map<WindowKey, Integer> windows = requested.computeIfAbsent(
+                        new AvailabilityPair(spda.getId(), dfsp.getServicePointId()), pair -> new HashMap<>());
+                for (DroneAvailabilityWindow window : spda.getAvailability()) {
+                    windows.merge(WindowKey.of(window), 1, Integer::sum);
+                }
+            }
+        }
+
+        List<DroneAvailabilityEntity> stored = replaceAll
+                ? droneAvailabilityRepository.findAll()
+                : droneAvailabilityRepository.findByDroneIdIn(
+                        requested.keySet().stream().map(AvailabilityPair::droneId).collect(Collectors.toSet()));
+
+        List<Object[]> deletes = new ArrayList<>();
+        int unchanged = 0;
+        for (DroneAvailabilityEntity entity : stored) {
+            Map<WindowKey, Integer> wanted = requested.get(new AvailabilityPair(entity.getDroneId(), entity.getServicePointId()));
+            if (wanted == null) {
+                if (replaceAll) {
+                    deletes.add(new Object[]{entity.getId()});
+                }
+                continue;
+            }
+            WindowKey key = new WindowKey(entity.getDayOfWeek(), entity.getFromTime(), entity.getUntilTime());
+            Integer remaining = wanted.get(key);
+            if (remaining != null && remaining > 0) {
+                wanted.put(key, remaining - 1);  // already stored
+                unchanged++;
+            } else {
+                deletes.add(new Object[]{entity.getId()});
+            }
+        }
+
+        List<Object[]> inserts = new ArrayList<>();
+        requested.forEach((pair, windows) -> windows.forEach((key, count) -> {
+            for (int i = 0; i < count; i++) {
+                inserts.add(new Object[]{pair.droneId(), pair.servicePointId(),
+                        key.dayOfWeek() != null ? key.dayOfWeek().name() : null, key.from(), key.until()});
+            }
+        }));
+
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM drone_availability WHERE id = ?", deletes);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO drone_availability (drone_id, service_point_id, day_of_week, from_time, until_time)
+                    VALUES (?, ?, ?, ?, ?)""", inserts);
+        }
+        log.debug("Availability diff applied: {} inserted, {} deleted, {} unchanged", inserts.size(), deletes.size(), unchanged);
+        if (!deletes.isEmpty() || !inserts.isEmpty()) {
+            changed(ReferenceDataChangedEvent.Dataset.AVAILABILITY);
+        }
+        return new AvailabilityUpdateResult(inserts.size(), deletes.size(), unchanged);
     }
 
     public void deleteAvailabilityByDroneId(String droneId) {
         log.debug("Deleting availability for drone: {}", droneId);
         List<DroneAvailabilityEntity> toDelete = droneAvailabilityRepository.findByDroneId(droneId);
         droneAvailabilityRepository.deleteAll(toDelete);
+        changed(ReferenceDataChangedEvent.Dataset.AVAILABILITY);
+    }
+
+    // ==================== BULK SAVE OPERATIONS (for seeding) ====================
+
+    /**
+     * Insert or update many drones with one JDBC batch, in one transaction.
+     */
+    @Transactional
+    public void saveDrones(List<Drone> drones) {
+        List<Object[]> rows = new ArrayList<>(drones.size());
+        for (Drone drone : drones) {
+            DroneEntity e = droneToEntity(drone);
+            rows.add(new Object[]{e.getId(), e.getName(), e.getCooling(), e.getHeating(), e.getCapacity(),
+                    e.getMaxMoves(), e.getCostPerMove(), e.getCostInitial(), e.getCostFinal()});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO drones (id, name, cooling, heating, capacity, max_moves, cost_per_move, cost_initial, cost_final)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, cooling = EXCLUDED.cooling,
+                    heating = EXCLUDED.heating, capacity = EXCLUDED.capacity, max_moves = EXCLUDED.max_moves,
+                    cost_per_move = EXCLUDED.cost_per_move, cost_initial = EXCLUDED.cost_initial,
+                    cost_final = EXCLUDED.cost_final""", rows);
+        log.debug("Batch saved {} drones", rows.size());
+        changed(ReferenceDataChangedEvent.Dataset.DRONES);
+    }
+
+    /**
+     * Insert or update many service points with one JDBC batch, in one transaction.
+     */
+    @Transactional
+    public void saveServicePoints(List<ServicePoint> servicePoints) {
+        List<Object[]> rows = new ArrayList<>(servicePoints.size());
+        for (ServicePoint servicePoint : servicePoints) {
+            ServicePointEntity e = servicePointToEntity(servicePoint);
+            rows.add(new Object[]{e.getId(), e.getName(), e.getLng(), e.getLat(), e.getAlt()});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO service_points (id, name, lng, lat, alt) VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, lng = EXCLUDED.lng,
+                    lat = EXCLUDED.lat, alt = EXCLUDED.alt""", rows);
+        log.debug("Batch saved {} service points", rows.size());
+        changed(ReferenceDataChangedEvent.Dataset.SERVICE_POINTS);
+    }
+
+    /**
+     * Insert or update many restricted areas with one JDBC batch, in one transaction.
+     */
+    @Transactional
+    public void saveRestrictedAreas(List<RestrictedArea> areas) {
+        List<Object[]> rows = new ArrayList<>(areas.size());
+        for (RestrictedArea area : areas) {
+            RestrictedAreaEntity e = restrictedAreaToEntity(area);
+            rows.add(new Object[]{e.getId(), e.getName(), e.getLowerLimit(), e.getUpperLimit(), e.getVerticesPacked()});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO restricted_areas (id, name, lower_limit, upper_limit, vertices_packed, vertices_json)
+                VALUES (?, ?, ?, ?, ?, NULL)
+                ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, lower_limit = EXCLUDED.lower_limit,
+                    upper_limit = EXCLUDED.upper_limit, vertices_packed = EXCLUDED.vertices_packed,
+                    vertices_json = NULL""", rows);
+        log.debug("Batch saved {} restricted areas", rows.size());
+        changed(ReferenceDataChangedEvent.Dataset.RESTRICTED_AREAS);
     }
 
     // ==================== BULK DELETE OPERATIONS (for reseeding) ====================
@@ -311,6 +492,7 @@ public class PostgresDataService {
      */
     public void deleteAllDrones() {
         droneRepository.deleteAll();
+        changed(ReferenceDataChangedEvent.Dataset.DRONES);
     }
 
     /**
@@ -318,6 +500,7 @@ public class PostgresDataService {
      */
     public void deleteAllServicePoints() {
         servicePointRepository.deleteAll();
+        changed(ReferenceDataChangedEvent.Dataset.SERVICE_POINTS);
     }
 
     /**
@@ -325,6 +508,7 @@ public class PostgresDataService {
      */
     public void deleteAllRestrictedAreas() {
         restrictedAreaRepository.deleteAll();
+        changed(ReferenceDataChangedEvent.Dataset.RESTRICTED_AREAS);
     }
 
     /**
@@ -332,13 +516,25 @@ public class PostgresDataService {
      */
     public void deleteAllAvailability() {
         droneAvailabilityRepository.deleteAll();
+        changed(ReferenceDataChangedEvent.Dataset.AVAILABILITY);
     }
 
-    private DroneAvailabilityWindow entityToAvailabilityWindow(DroneAvailabilityEntity entity) {
-        DroneAvailabilityWindow window = new DroneAvailabilityWindow();
-        window.setDayOfWeek(entity.getDayOfWeek());
-        window.setFrom(entity.getFromTime());
-        window.setUntil(entity.getUntilTime());
-        return window;
+    /**
+     * Tell in-memory views that a dataset changed. Listeners act once the surrounding transaction commits.
+     */
+    private void changed(ReferenceDataChangedEvent.Dataset dataset) {
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(dataset));
+    }
+
+    private record CachedAvailability(long generation, List<DroneForServicePoint> view) {
+    }
+
+    private record AvailabilityPair(String droneId, Integer servicePointId) {
+    }
+
+    private record WindowKey(DayOfWeek dayOfWeek, LocalTime from, LocalTime until) {
+        static WindowKey of(DroneAvailabilityWindow window) {
+            return new WindowKey(window.getDayOfWeek(), window.getFrom(), window.getUntil());
+        }
     }
 }
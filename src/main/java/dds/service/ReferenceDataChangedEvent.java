@@ -0,0 +1,28 @@
+package dds.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever reference data (drones, service points, restricted areas or availability)
+ * is written, so in-memory views of it can be refreshed once the write has committed.
+ * Remote events stand for a write made by another instance, received through {@link ReferenceDataNotifications}.
+ */
+@Getter
+@AllArgsConstructor
+public class ReferenceDataChangedEvent {
+
+    public enum Dataset {
+        DRONES,
+        SERVICE_POINTS,
+        RESTRICTED_AREAS,
+        AVAILABILITY
+    }
+
+    private final Dataset dataset;
+    private final boolean remote;
+
+    public ReferenceDataChangedEvent(Dataset dataset) {
+        this(dataset, false);
+    }
+}
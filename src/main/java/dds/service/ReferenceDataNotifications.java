@@ -0,0 +1,224 @@
+package dds.service;
+
+import dds.configuration.ConditionalOnDatabase;
+import dds.entity.ReferenceDataVersionEntity;
+import dds.repository.ReferenceDataVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps in-memory reference data consistent across instances using Postgres LISTEN/NOTIFY.
+ *
+ * <p>Once a local write has committed, the dataset's row in {@code reference_data_versions} is bumped
+ * and a notification with the new version is sent, in a transaction of their own. Other instances so
+ * never hear about a write that rolled back, and a failed bump cannot abort the write. Every instance
+ * listens on a dedicated connection and republishes notifications from other instances as remote
+ * {@link ReferenceDataChangedEvent}s.
+ * The reference data store then reloads just that dataset, and everything derived from it follows.
+ * Versions let duplicate or late notifications be ignored. After a reconnect, any notifications
+ * missed while disconnected are caught up by comparing against the versions table. In-memory data is
+ * local to each instance, so with {@code ilp.data.source=memory} there is nothing to tell the others.
+ */
+@ConditionalOnDatabase
+@Service
+@Slf4j
+public class ReferenceDataNotifications implements SmartLifecycle {
+
+    static final String CHANNEL = "dds_reference_data";
+
+    private static final String BUMP_VERSION = """
+            INSERT INTO reference_data_versions (dataset, version) VALUES (?, 1)
+            ON CONFLICT (dataset) DO UPDATE SET version = reference_data_versions.version + 1
+            RETURNING version""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final ReferenceDataVersionRepository versionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate requiresNew;
+
+    @Value("${reference.notifications.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${reference.notifications.poll-ms:1000}")
+    private int pollMs = 1000;
+
+    @Value("${reference.notifications.reconnect-ms:5000}")
+    private long reconnectMs = 5000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<ReferenceDataChangedEvent.Dataset, Long> lastSeen = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public ReferenceDataNotifications(JdbcTemplate jdbcTemplate,
+                                      DataSource dataSource,
+                                      ReferenceDataVersionRepository versionRepository,
+                                      ApplicationEventPublisher eventPublisher,
+                                      PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.versionRepository = versionRepository;
+        this.eventPublisher = eventPublisher;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Runs after the writing transaction has committed, and bumps the version and notifies in a new
+     * transaction, since the writer's connection may still be bound to the thread at that point.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        if (!enabled || event.isRemote()) {
+            return;
+        }
+        try {
+            String dataset = event.getDataset().name();
+            Long version = requiresNew.execute(status -> {
+                Long bumped = jdbcTemplate.queryForObject(BUMP_VERSION, Long.class, dataset);
+                if (bumped != null) {
+                    jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload(event.getDataset(), bumped));
+                }
+                return bumped;
+            });
+            if (version != null) {
+                lastSeen.merge(event.getDataset(), version, Math::max);
+            }
+        } catch (DataAccessException | TransactionException e) {
+            // other instances catch up from the versions table on reconnect or expire their snapshots
+            log.warn("Could not notify other instances of {} change: {}", event.getDataset(), e.getMessage());
+        }
+    }
+
+    /**
+     * Handle one notification payload ({@code node:dataset:version}).
+     */
+    void handle(String payload) {
+        String[] parts = payload.split(":");
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        try {
+            remoteChange(ReferenceDataChangedEvent.Dataset.valueOf(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed reference data notification '{}'", payload);
+        }
+    }
+
+    String payload(ReferenceDataChangedEvent.Dataset dataset, long version) {
+        return nodeId + ":" + dataset.name() + ":" + version;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "reference-data-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void remoteChange(ReferenceDataChangedEvent.Dataset dataset, long version) {
+        Long previous = lastSeen.get(dataset);
+        if (previous != null && previous >= version) {
+            return;
+        }
+        lastSeen.merge(dataset, version, Math::max);
+        log.debug("Reference data {} changed on another instance (version {})", dataset, version);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(dataset, true));
+    }
+
+    private void listen() {
+        boolean firstConnect = true;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                catchUp(firstConnect);
+                firstConnect = false;
+                log.info("Listening for reference data changes on '{}'", CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        handle(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | DataAccessException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Reference data listener disconnected, retrying in {} ms: {}", reconnectMs, e.getMessage());
+                try {
+                    Thread.sleep(reconnectMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compare against the versions table, treating any dataset that moved on as changed. On the first
+     * connect the versions are only recorded, since nothing has been loaded from before them yet.
+     */
+    private void catchUp(boolean firstConnect) {
+        for (ReferenceDataVersionEntity row : versionRepository.findAll()) {
+            ReferenceDataChangedEvent.Dataset dataset;
+            try {
+                dataset = ReferenceDataChangedEvent.Dataset.valueOf(row.getDataset());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (firstConnect) {
+                lastSeen.merge(dataset, row.getVersion(), Math::max);
+            } else {
+                remoteChange(dataset, row.getVersion());
+            }
+        }
+    }
+}
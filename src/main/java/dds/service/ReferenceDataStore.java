@@ -0,0 +1,284 @@
+package dds.service;
+
+import dds.dto.Drone;
+import dds.dto.DroneForServicePoint;
+import dds.dto.RestrictedArea;
+import dds.dto.ServicePoint;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the current {@link ReferenceSnapshot}. Readers get it with a single volatile read and no locks;
+ * only the very first read, before anything has been loaded, waits for the data source.
+ *
+ * <p>Once a local write (admin endpoints, seeding and re-seeding) commits, the datasets it touched are
+ * reloaded and a new snapshot is published copy-on-write, with a version one higher than the last, before
+ * the write returns: the writer's next read sees its own change. Changes made by other instances are only
+ * marked stale, and a background thread reloads them; readers keep getting the previous snapshot until
+ * then, and changes that arrive while a rebuild is pending share it. Everything is also reloaded in the
+ * background every max age, since the Azure source never publishes change events. Each snapshot records
+ * the data source it was read from, and when that changes (say the last PostgreSQL drone was deleted, so
+ * reads fall back to Azure) every dataset is reloaded, never just the stale ones.
+ *
+ * <p>The snapshot can be exported to a binary file ({@link ReferenceSnapshotCodec}). If
+ * {@code reference.snapshot.file} points at one on startup, it is memory-mapped and served straight away,
+ * while the datasets are reloaded from the data source in the background.
+ */
+@Service
+@Slf4j
+public class ReferenceDataStore {
+
+    private final UnifiedDataService dataService;
+
+    @Value("${reference.snapshot.max-age-ms:60000}")
+    private long maxAgeMs = 60000;
+
+    @Value("${reference.snapshot.file:}")
+    private String snapshotFile = "";
+
+    private final AtomicLong versions = new AtomicLong();
+    private final Set<ReferenceDataChangedEvent.Dataset> stale = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicBoolean refreshDue = new AtomicBoolean();
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("reference-snapshot-rebuild").daemon().factory());
+    private volatile ReferenceSnapshot snapshot;
+
+    public ReferenceDataStore(UnifiedDataService dataService) {
+        this.dataService = dataService;
+    }
+
+    /**
+     * Current snapshot. Callers should read it once and use it for the whole request, so every lookup
+     * sees the same version.
+     */
+    public ReferenceSnapshot current() {
+        ReferenceSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            return current != null ? current : reload(null, true);
+        }
+    }
+
+    /**
+     * Schedule the max-age refresh and boot from the snapshot file, if one is configured.
+     */
+    @PostConstruct
+    public void start() {
+        if (maxAgeMs > 0) {
+            rebuilder.scheduleWithFixedDelay(this::refresh, maxAgeMs, maxAgeMs, TimeUnit.MILLISECONDS);
+        }
+        bootFromFile();
+    }
+
+    /**
+     * Reload every dataset in the background, e.g. once the data source decision has been made again.
+     */
+    public void refresh() {
+        refreshDue.set(true);
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Serve the snapshot file, if one is configured and present, until a background reload from the
+     * data source replaces it. A missing or unreadable file just means the first read loads as usual.
+     */
+    public void bootFromFile() {
+        if (snapshotFile == null || snapshotFile.isBlank()) {
+            return;
+        }
+        Path path = Path.of(snapshotFile);
+        if (!Files.isRegularFile(path)) {
+            log.info("No reference snapshot file at {}, loading from the data source", path);
+            return;
+        }
+        try {
+            ReferenceSnapshot loaded = readFrom(path);
+            synchronized (this) {
+                versions.accumulateAndGet(loaded.getVersion(), Math::max);
+                snapshot = loaded.with(versions.incrementAndGet(), System.currentTimeMillis(), null, null, null, null);
+            }
+            log.info("Serving reference snapshot from {} ({} drones, exported at version {})",
+                    path, loaded.getDrones().size(), loaded.getVersion());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not boot from reference snapshot file {}: {}", path, e.getMessage());
+            return;
+        }
+        // reconcile with the data source in the background; until then, and if that fails, the file is served
+        refresh();
+    }
+
+    /**
+     * Write the current snapshot in binary form.
+     */
+    public ReferenceSnapshot export(OutputStream out) throws IOException {
+        ReferenceSnapshot current = current();
+        ReferenceSnapshotCodec.write(current, out);
+        return current;
+    }
+
+    /**
+     * Write the current snapshot to the configured snapshot file, replacing it atomically.
+     * @throws IllegalStateException if no snapshot file is configured
+     */
+    public Path exportToFile() throws IOException {
+        if (snapshotFile == null || snapshotFile.isBlank()) {
+            throw new IllegalStateException("No reference snapshot file configured (reference.snapshot.file)");
+        }
+        Path path = Path.of(snapshotFile).toAbsolutePath();
+        Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                export(out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return path;
+    }
+
+    static ReferenceSnapshot readFrom(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return ReferenceSnapshotCodec.read(mapped);
+        }
+    }
+
+    /**
+     * Runs after the cache invalidations of the data sources, so the reload reads the committed data.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        log.debug("Reference data {} marked stale", event.getDataset());
+        stale.add(event.getDataset());
+        // availability is read per service point, so a service point change affects it too
+        if (event.getDataset() == ReferenceDataChangedEvent.Dataset.SERVICE_POINTS) {
+            stale.add(ReferenceDataChangedEvent.Dataset.AVAILABILITY);
+        }
+        if (event.isRemote()) {
+            scheduleRebuild();
+        } else {
+            // publish before the write returns, so the writer's next read already plans with it
+            rebuild(false);
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (!rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuilder.execute(() -> {
+                // cleared first, so a change arriving during the reload schedules another one
+                rebuildScheduled.set(false);
+                rebuild(refreshDue.getAndSet(false));
+            });
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            rebuildScheduled.set(false);
+        }
+    }
+
+    private void rebuild(boolean all) {
+        try {
+            synchronized (this) {
+                ReferenceSnapshot previous = snapshot;
+                // before the first read there is nothing to replace: that read loads everything
+                if (previous != null && (all || !stale.isEmpty())) {
+                    reload(previous, all);
+                }
+            }
+        } catch (RuntimeException e) {
+            // the current snapshot stays in place; the datasets stay stale until the next change or max age
+            log.warn("Rebuilding the reference snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    private ReferenceSnapshot reload(ReferenceSnapshot previous, boolean all) {
+        String source = dataService.currentSource();
+        // datasets read from different sources must not be mixed, so a switch reloads all of them
+        if (previous != null && !all && !Objects.equals(previous.getSource(), source)) {
+            log.info("Reference data source changed from {} to {}, reloading everything", previous.getSource(), source);
+            all = true;
+        }
+        Set<ReferenceDataChangedEvent.Dataset> toLoad = all
+                ? EnumSet.allOf(ReferenceDataChangedEvent.Dataset.class)
+                : EnumSet.copyOf(stale);
+        // cleared before reading, so a write committed during the reload marks its dataset again
+        stale.removeAll(toLoad);
+
+        List<Drone> drones;
+        List<ServicePoint> servicePoints;
+        List<RestrictedArea> restrictedAreas;
+        List<DroneForServicePoint> dronesForServicePoints;
+        try {
+            drones = toLoad.contains(ReferenceDataChangedEvent.Dataset.DRONES)
+                    ? copy(dataService.getAllDrones()) : null;
+            servicePoints = toLoad.contains(ReferenceDataChangedEvent.Dataset.SERVICE_POINTS)
+                    ? copy(dataService.getServicePoints()) : null;
+            restrictedAreas = toLoad.contains(ReferenceDataChangedEvent.Dataset.RESTRICTED_AREAS)
+                    ? copy(dataService.getRestrictedAreas()) : null;
+            dronesForServicePoints = toLoad.contains(ReferenceDataChangedEvent.Dataset.AVAILABILITY)
+                    ? copy(dataService.getDronesForServicePoints()) : null;
+        } catch (RuntimeException e) {
+            stale.addAll(toLoad);
+            throw e;
+        }
+
+        long version = versions.incrementAndGet();
+        long now = System.currentTimeMillis();
+        ReferenceSnapshot reloaded = previous == null || all
+                ? new ReferenceSnapshot(version, now, source, drones, servicePoints, restrictedAreas, dronesForServicePoints)
+                : previous.with(version, previous.getBuiltAt(), drones, servicePoints, restrictedAreas, dronesForServicePoints);
+        snapshot = reloaded;
+        log.debug("Reference snapshot version {} published from {} (reloaded {})", version, source, toLoad);
+        if (!Objects.equals(source, dataService.currentSource())) {
+            // the source switched while we were reading: this one may be mixed, so replace it all
+            refresh();
+        }
+        return reloaded;
+    }
+
+    private static <T> List<T> copy(List<T> items) {
+        if (items == null) {
+            return List.of();
+        }
+        // List.copyOf rejects null elements, which the data sources do not rule out
+        return Collections.unmodifiableList(new ArrayList<>(items));
+    }
+}
@@ -0,0 +1,70 @@
+package dds.service;
+
+import dds.dto.Drone;
+import dds.dto.DroneForServicePoint;
+import dds.dto.RestrictedArea;
+import dds.dto.ServicePoint;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * All four reference datasets (drones, service points, restricted areas and availability) at one version.
+ * Lists and maps are unmodifiable, and a new version shares every dataset that did not change with the
+ * previous one, so readers can compare datasets by identity to see whether anything they derived from
+ * them is still current.
+ *
+ * <p>The snapshot also records which data source it was read from, since datasets read from different
+ * sources must never be mixed; it is null when that is not known (a snapshot read from a file).
+ */
+@Getter
+public class ReferenceSnapshot {
+
+    private final long version;
+    private final long builtAt;
+    private final String source;
+    private final List<Drone> drones;
+    private final List<ServicePoint> servicePoints;
+    private final Map<Integer, ServicePoint> servicePointsById;
+    private final List<RestrictedArea> restrictedAreas;
+    private final List<DroneForServicePoint> dronesForServicePoints;
+
+    ReferenceSnapshot(long version, long builtAt, List<Drone> drones, List<ServicePoint> servicePoints,
+                      List<RestrictedArea> restrictedAreas, List<DroneForServicePoint> dronesForServicePoints) {
+        this(version, builtAt, null, drones, servicePoints, restrictedAreas, dronesForServicePoints);
+    }
+
+    ReferenceSnapshot(long version, long builtAt, String source, List<Drone> drones, List<ServicePoint> servicePoints,
+                      List<RestrictedArea> restrictedAreas, List<DroneForServicePoint> dronesForServicePoints) {
+        this.version = version;
+        this.builtAt = builtAt;
+        this.source = source;
+        this.drones = drones;
+        this.servicePoints = servicePoints;
+        this.restrictedAreas = restrictedAreas;
+        this.dronesForServicePoints = dronesForServicePoints;
+
+        Map<Integer, ServicePoint> byId = new HashMap<>();
+        for (ServicePoint servicePoint : servicePoints) {
+            byId.putIfAbsent(servicePoint.getId(), servicePoint);
+        }
+        this.servicePointsById = Collections.unmodifiableMap(byId);
+    }
+
+    public ServicePoint getServicePoint(Integer id) {
+        return id == null ? null : servicePointsById.get(id);
+    }
+
+    /**
+     * Copy of this snapshot at a new version, replacing only the datasets that were reloaded (non-null)
+     * from the same source.
+     */
+    ReferenceSnapshot with(long newVersion, long newBuiltAt, List<Drone> newDrones, List<ServicePoint> newServicePoints,
+                           List<RestrictedArea> newRestrictedAreas, List<DroneForServicePoint> newDronesForServicePoints) {
+        return new ReferenceSnapshot(newVersion, newBuiltAt, source,
+                newDrones != null ? newDrones : drones,
+                newServicePoints != null ? newServicePoints : servicePoints,
+                newRestrictedAreas != null ? newRestrictedAreas : restrictedAreas,
+                newDronesForServicePoints != null ? newDronesForServicePoints : dronesForServicePoints);
+    }
+}
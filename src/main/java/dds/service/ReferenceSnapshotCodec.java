@@ -0,0 +1,297 @@
+package dds.service;
+
+import dds.dto.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary form of a {@link ReferenceSnapshot}, for exporting it to a file and booting from it.
+ *
+ * <p>Layout (big-endian): the magic {@code DDSR}, the format version, the body length and the CRC-32 of
+ * the body. The body holds the snapshot version and build time, then drones, service points, restricted
+ * areas and availability, each as a count followed by its entries. Nullable values carry a presence byte;
+ * strings are length-prefixed UTF-8. Vertices use the packed form of {@link GeometryCodec}. Derived
+ * indexes are not stored, since they are rebuilt from these datasets in memory without any I/O.
+ *
+ * <p>Reading never trusts the file: the checksum is verified before decoding, every count and length is
+ * checked against the bytes left, and any decoding failure is reported as an
+ * {@link IllegalArgumentException}.
+ */
+final class ReferenceSnapshotCodec {
+
+    static final int MAGIC = 0x44445352;  // "DDSR"
+    static final int FORMAT_VERSION = 2;
+
+    private ReferenceSnapshotCodec() {
+    }
+
+    static void write(ReferenceSnapshot snapshot, OutputStream target) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeBody(snapshot, new DataOutputStream(body));
+        CRC32 crc = new CRC32();
+        crc.update(body.toByteArray());
+
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(body.size());
+        out.writeInt((int) crc.getValue());
+        body.writeTo(out);
+        out.flush();
+    }
+
+    private static void writeBody(ReferenceSnapshot snapshot, DataOutputStream out) throws IOException {
+        out.writeLong(snapshot.getVersion());
+        out.writeLong(snapshot.getBuiltAt());
+
+        out.writeInt(snapshot.getDrones().size());
+        for (Drone drone : snapshot.getDrones()) {
+            writeString(out, drone.getId());
+            writeString(out, drone.getName());
+            DroneCapability capability = drone.getCapability();
+            out.writeBoolean(capability != null);
+            if (capability != null) {
+                writeBoolean(out, capability.getCooling());
+                writeBoolean(out, capability.getHeating());
+                writeDouble(out, capability.getCapacity());
+                writeInteger(out, capability.getMaxMoves());
+                writeDouble(out, capability.getCostPerMove());
+                writeDouble(out, capability.getCostInitial());
+                writeDouble(out, capability.getCostFinal());
+            }
+        }
+
+        out.writeInt(snapshot.getServicePoints().size());
+        for (ServicePoint servicePoint : snapshot.getServicePoints()) {
+            writeString(out, servicePoint.getName());
+            writeInteger(out, servicePoint.getId());
+            writePosition(out, servicePoint.getLocation());
+        }
+
+        out.writeInt(snapshot.getRestrictedAreas().size());
+        for (RestrictedArea area : snapshot.getRestrictedAreas()) {
+            writeString(out, area.getName());
+            writeInteger(out, area.getId());
+            out.writeBoolean(area.getVertices() != null);
+            if (area.getVertices() != null) {
+                byte[] packed = GeometryCodec.pack(area.getVertices());
+                out.writeInt(packed.length);
+                out.write(packed);
+            }
+        }
+
+        out.writeInt(snapshot.getDronesForServicePoints().size());
+        for (DroneForServicePoint dfsp : snapshot.getDronesForServicePoints()) {
+            writeInteger(out, dfsp.getServicePointId());
+            List<ServicePointDroneAvailability> drones = dfsp.getDrones() != null ? dfsp.getDrones() : List.of();
+            out.writeInt(drones.size());
+            for (ServicePointDroneAvailability spda : drones) {
+                writeString(out, spda.getId());
+                List<DroneAvailabilityWindow> windows = spda.getAvailability() != null ? spda.getAvailability() : List.of();
+                out.writeInt(windows.size());
+                for (DroneAvailabilityWindow window : windows) {
+                    out.writeByte(window.getDayOfWeek() != null ? window.getDayOfWeek().getValue() : 0);
+                    out.writeLong(window.getFrom() != null ? window.getFrom().toNanoOfDay() : -1);
+                    out.writeLong(window.getUntil() != null ? window.getUntil().toNanoOfDay() : -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode a snapshot, e.g. from a memory-mapped file.
+     * @throws IllegalArgumentException if the data is not a snapshot in a format this version can read
+     */
+    static ReferenceSnapshot read(ByteBuffer source) {
+        try {
+            if (source.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a reference snapshot");
+            }
+            int format = source.getInt();
+            if (format != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported reference snapshot format " + format);
+            }
+            int length = source.getInt();
+            int checksum = source.getInt();
+            if (length < 0 || length > source.remaining()) {
+                throw new IllegalArgumentException("Reference snapshot is truncated");
+            }
+            ByteBuffer in = source.slice(source.position(), length);
+            CRC32 crc = new CRC32();
+            crc.update(in.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                throw new IllegalArgumentException("Reference snapshot checksum mismatch");
+            }
+            return readBody(in);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Reference snapshot is truncated", e);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Reference snapshot has an invalid availability window", e);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Reference snapshot is corrupt", e);
+        }
+    }
+
+    private static ReferenceSnapshot readBody(ByteBuffer in) {
+        long version = in.getLong();
+        long builtAt = in.getLong();
+
+        List<Drone> drones = new ArrayList<>();
+        for (int i = readCount(in); i > 0; i--) {
+            Drone drone = new Drone(readString(in), readString(in), null);
+            if (in.get() != 0) {
+                DroneCapability capability = new DroneCapability();
+                capability.setCooling(readBoolean(in));
+                capability.setHeating(readBoolean(in));
+                capability.setCapacity(readDouble(in));
+                capability.setMaxMoves(readInteger(in));
+                capability.setCostPerMove(readDouble(in));
+                capability.setCostInitial(readDouble(in));
+                capability.setCostFinal(readDouble(in));
+                drone.setCapability(capability);
+            }
+            drones.add(drone);
+        }
+
+        List<ServicePoint> servicePoints = new ArrayList<>();
+        for (int i = readCount(in); i > 0; i--) {
+            servicePoints.add(new ServicePoint(readString(in), readInteger(in), readPosition(in)));
+        }
+
+        List<RestrictedArea> areas = new ArrayList<>();
+        for (int i = readCount(in); i > 0; i--) {
+            RestrictedArea area = new RestrictedArea(readString(in), readInteger(in), null);
+            if (in.get() != 0) {
+                byte[] packed = new byte[readLength(in)];
+                in.get(packed);
+                area.setVertices(GeometryCodec.unpack(packed));
+            }
+            areas.add(area);
+        }
+
+        List<DroneForServicePoint> dronesForServicePoints = new ArrayList<>();
+        for (int i = readCount(in); i > 0; i--) {
+            DroneForServicePoint dfsp = new DroneForServicePoint(readInteger(in), new ArrayList<>());
+            for (int j = readCount(in); j > 0; j--) {
+                ServicePointDroneAvailability spda = new ServicePointDroneAvailability();
+                spda.setId(readString(in));
+                spda.setAvailability(new ArrayList<>());
+                for (int k = readCount(in); k > 0; k--) {
+                    int day = in.get();
+                    long from = in.getLong();
+                    long until = in.getLong();
+                    spda.getAvailability().add(new DroneAvailabilityWindow(
+                            day != 0 ? DayOfWeek.of(day) : null,
+                            from >= 0 ? LocalTime.ofNanoOfDay(from) : null,
+                            until >= 0 ? LocalTime.ofNanoOfDay(until) : null));
+                }
+                dfsp.getDrones().add(spda);
+            }
+            dronesForServicePoints.add(dfsp);
+        }
+
+        return new ReferenceSnapshot(version, builtAt,
+                Collections.unmodifiableList(drones),
+                Collections.unmodifiableList(servicePoints),
+                Collections.unmodifiableList(areas),
+                Collections.unmodifiableList(dronesForServicePoints));
+    }
+
+    // every entry takes at least one byte, so a count beyond the bytes left cannot be genuine
+    private static int readCount(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Reference snapshot has an invalid count " + count);
+        }
+        return count;
+    }
+
+    private static int readLength(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Reference snapshot has an invalid length " + length);
+        }
+        return length;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Reference snapshot has an invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : value ? 1 : 0);
+    }
+
+    private static Boolean readBoolean(ByteBuffer in) {
+        byte value = in.get();
+        return value < 0 ? null : value == 1;
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(ByteBuffer in) {
+        return in.get() != 0 ? in.getDouble() : null;
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(ByteBuffer in) {
+        return in.get() != 0 ? in.getInt() : null;
+    }
+
+    private static void writePosition(DataOutputStream out, Position position) throws IOException {
+        out.writeBoolean(position != null);
+        if (position != null) {
+            writeDouble(out, position.getLng());
+            writeDouble(out, position.getLat());
+        }
+    }
+
+    private static Position readPosition(ByteBuffer in) {
+        return in.get() != 0 ? new Position(readDouble(in), readDouble(in)) : null;
+    }
+}
@@ -15,17 +15,20 @@ public class RouteCalculationHelper {
 
     private final DroneService droneService;
     private final PathfindingService pathfindingService;
-    private final UnifiedDataService dataService;
+    private final ReferenceDataStore referenceDataStore;
     private final LocationService locationService;
+    private final FleetRegistry fleetRegistry;
 
     public RouteCalculationHelper(DroneService droneService,
                                    PathfindingService pathfindingService,
-                                   UnifiedDataService dataService,
-                                   LocationService locationService) {
+                                   ReferenceDataStore referenceDataStore,
+                                   LocationService locationService,
+                                   FleetRegistry fleetRegistry) {
         this.droneService = droneService;
         this.pathfindingService = pathfindingService;
-        this.dataService = dataService;
+        this.referenceDataStore = referenceDataStore;
         this.locationService = locationService;
+        this.fleetRegistry = fleetRegistry;
     }
 
     /**
@@ -43,28 +46,24 @@ public class RouteCalculationHelper {
      * Find a valid service point for the given drone and dispatches.
      */
     public Position findValidServicePoint(String droneId, List<MedDispatchRec> dispatches) {
-        List<DroneForServicePoint> servicePoints = dataService.getDronesForServicePoints();
-        List<ServicePoint> allServicePoints = dataService.getServicePoints();
-
-        for (DroneForServicePoint sp : servicePoints) {
-            if (sp.getDrones() == null) continue;
-
-            ServicePointDroneAvailability availability = sp.getDrones().stream()
-                    .filter(d -> droneId.equals(d.getId()))
-                    .findFirst()
-                    .orElse(null);
+        return findValidServicePoint(fleetRegistry.snapshot(), droneId, dispatches);
+    }
 
-            if (availability == null) continue;
+    /**
+     * {@link #findValidServicePoint(String, List)} against a fleet snapshot the caller has already resolved.
+     */
+    public Position findValidServicePoint(FleetRegistry.FleetSnapshot fleet, String droneId, List<MedDispatchRec> dispatches) {
+        // the drone's service points come straight from the fleet snapshot, in service point order
+        for (FleetRegistry.Assignment assignment : fleet.getAssignments(droneId)) {
+            if (assignment.getLocation() == null) {
+                continue;
+            }
 
             boolean allValid = dispatches.stream()
-                    .allMatch(d -> droneService.isDispatchWithinAvailability(d, availability));
+                    .allMatch(d -> droneService.isDispatchWithinAvailability(d, assignment.getWeekly()));
 
             if (allValid) {
-                for (ServicePoint servicePoint : allServicePoints) {
-                    if (Objects.equals(servicePoint.getId(), sp.getServicePointId())) {
-                        return servicePoint.getLocation();
-                    }
-                }
+                return assignment.getLocation();
             }
         }
 
@@ -75,7 +74,11 @@ public class RouteCalculationHelper {
      * Get the default service point (first one available).
      */
     public Position getDefaultServicePoint() {
-        List<ServicePoint> servicePoints = dataService.getServicePoints();
+        return getDefaultServicePoint(referenceDataStore.current());
+    }
+
+    private Position getDefaultServicePoint(ReferenceSnapshot reference) {
+        List<ServicePoint> servicePoints = reference.getServicePoints();
         if (!servicePoints.isEmpty()) {
             return servicePoints.getFirst().getLocation();
         }
@@ -86,13 +89,18 @@ public class RouteCalculationHelper {
      * Calculate the complete path for all dispatches starting and ending at service point.
      */
     public List<Position> calculateCompletePath(Position servicePoint, List<MedDispatchRec> dispatches) {
+        return calculateCompletePath(referenceDataStore.current(), servicePoint, dispatches);
+    }
+
+    private List<Position> calculateCompletePath(ReferenceSnapshot reference, Position servicePoint,
+                                                 List<MedDispatchRec> dispatches) {
         List<Position> completePath = new ArrayList<>();
         Position currentLocation = servicePoint;
 
         for (MedDispatchRec dispatch : dispatches) {
             Position deliveryLocation = dispatch.getDelivery();
 
-            List<Position> pathToDelivery = pathfindingService.findPath(currentLocation, deliveryLocation);
+            List<Position> pathToDelivery = pathfindingService.findPath(reference, currentLocation, deliveryLocation, Integer.MAX_VALUE);
             if (pathToDelivery.isEmpty() || !locationService.isCloseTo(pathToDelivery.getLast(), deliveryLocation)) {
                 return null;
             }
@@ -108,7 +116,7 @@ public class RouteCalculationHelper {
             currentLocation = pathToDelivery.getLast();
         }
 
-        List<Position> returnPath = pathfindingService.findPath(currentLocation, servicePoint);
+        List<Position> returnPath = pathfindingService.findPath(reference, currentLocation, servicePoint, Integer.MAX_VALUE);
         if (returnPath.isEmpty() || !locationService.isCloseTo(returnPath.getLast(), servicePoint)) {
             return null;
         }
@@ -183,19 +191,26 @@ public class RouteCalculationHelper {
      * Calculate delivery option for a specific drone.
      */
     public DeliveryOption calculateOptionForDrone(Drone drone, List<MedDispatchRec> dispatches) {
+        return calculateOptionForDrone(fleetRegistry.snapshot(), drone, dispatches);
+    }
+
+    /**
+     * {@link #calculateOptionForDrone(Drone, List)} against a fleet snapshot the caller has already resolved.
+     */
+    public DeliveryOption calculateOptionForDrone(FleetRegistry.FleetSnapshot fleet, Drone drone, List<MedDispatchRec> dispatches) {
         if (drone == null || drone.getCapability() == null) {
             return null;
         }
 
-        Position servicePoint = findValidServicePoint(drone.getId(), dispatches);
+        Position servicePoint = findValidServicePoint(fleet, drone.getId(), dispatches);
         if (servicePoint == null) {
-            servicePoint = getDefaultServicePoint();
+            servicePoint = getDefaultServicePoint(fleet.getReference());
             if (servicePoint == null) {
                 return null;
             }
         }
 
-        List<Position> completePath = calculateCompletePath(servicePoint, dispatches);
+        List<Position> completePath = calculateCompletePath(fleet.getReference(), servicePoint, dispatches);
         if (completePath == null || completePath.isEmpty()) {
             return null;
         }
@@ -17,11 +17,14 @@ public class RouteComparisonService {
 
     private final DroneService droneService;
     private final RouteCalculationHelper routeHelper;
+    private final FleetRegistry fleetRegistry;
 
     public RouteComparisonService(DroneService droneService,
-                                   RouteCalculationHelper routeHelper) {
+                                   RouteCalculationHelper routeHelper,
+                                   FleetRegistry fleetRegistry) {
         this.droneService = droneService;
         this.routeHelper = routeHelper;
+        this.fleetRegistry = fleetRegistry;
     }
 
     /**
@@ -33,8 +36,11 @@ public class RouteComparisonService {
             return RouteComparisonResponse.noOptions("No dispatches provided");
         }
 
+        // Every option is calculated against the same reference data
+        FleetRegistry.FleetSnapshot fleet = fleetRegistry.snapshot();
+
         // Get all available drones for this request
-        List<String> availableDroneIds = droneService.queryAvailableDrones(dispatches);
+        List<String> availableDroneIds = droneService.queryAvailableDrones(fleet, dispatches);
         
         if (availableDroneIds.isEmpty()) {
             return RouteComparisonResponse.noOptions("No drones available for the requested time and requirements");
@@ -44,8 +50,8 @@ public class RouteComparisonService {
         List<DeliveryOption> options = new ArrayList<>();
         
         for (String droneId : availableDroneIds) {
-            Drone drone = droneService.getDroneById(droneId);
-            DeliveryOption option = routeHelper.calculateOptionForDrone(drone, dispatches);
+            Drone drone = fleet.getDronesById().get(droneId);
+            DeliveryOption option = routeHelper.calculateOptionForDrone(fleet, drone, dispatches);
             if (option != null) {
                 options.add(option);
             }
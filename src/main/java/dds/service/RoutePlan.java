@@ -0,0 +1,21 @@
+package dds.service;
+
+import dds.dto.MedDispatchRec;
+import dds.dto.Position;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A planned multi-delivery trip: which drone flies it, from which base, and the visiting order.
+ * The cost is an estimate from the leg matrix; exact paths are computed afterwards.
+ */
+@Getter
+@AllArgsConstructor
+public class RoutePlan {
+    private final String droneId;
+    private final Position base;
+    private final List<MedDispatchRec> dispatches;
+    private final double estimatedCost;
+}
@@ -0,0 +1,141 @@
+package dds.service;
+
+import dds.dto.*;
+
+import java.util.*;
+
+/**
+ * Routing problem for one delivery date: the dispatches to serve, the vehicles (drone at a base)
+ * that could serve them, and a cached leg matrix over dispatch locations and bases.
+ *
+ * <p>Point indices in the leg matrix are the dispatch indices {@code 0..n-1}, followed by one
+ * point per distinct base. Routes are lists of dispatch indices in visiting order.
+ * Instances are read-only once built, so one model can be searched by several threads.
+ */
+final class RoutingModel {
+
+    final List<MedDispatchRec> dispatches;
+    final List<Vehicle> vehicles;
+    final LegMatrix legs;
+
+    private final BitSet[] feasibleVehicles;
+    private final RouteCalculationHelper routeHelper;
+
+    RoutingModel(List<MedDispatchRec> dispatches,
+                 List<Vehicle> vehicles,
+                 LegMatrix legs,
+                 BitSet[] feasibleVehicles,
+                 RouteCalculationHelper routeHelper) {
+        this.dispatches = dispatches;
+        this.vehicles = vehicles;
+        this.legs = legs;
+        this.feasibleVehicles = feasibleVehicles;
+        this.routeHelper = routeHelper;
+    }
+
+    int size() {
+        return dispatches.size();
+    }
+
+    /**
+     * Whether at least one vehicle can serve the dispatch on its own.
+     */
+    boolean isServable(int dispatch) {
+        return !feasibleVehicles[dispatch].isEmpty();
+    }
+
+    /**
+     * Find the cheapest vehicle able to fly the route as one multi-delivery trip.
+     * Applies the same rules as exact planning: combined capacity, cooling/heating, availability,
+     * {@code maxMoves} over the whole trip, and the shared-cost rule for per-dispatch {@code maxCost}.
+     *
+     * @return the best evaluation, or null if no vehicle can fly the route
+     */
+    Evaluation evaluate(List<Integer> route) {
+        if (route.isEmpty()) {
+            return null;
+        }
+
+        BitSet candidates = (BitSet) feasibleVehicles[route.getFirst()].clone();
+        double capacityRequired = 0;
+        double tightestMaxCost = Double.POSITIVE_INFINITY;
+        for (int dispatch : route) {
+            candidates.and(feasibleVehicles[dispatch]);
+            MedDispatchRequirements requirements = dispatches.get(dispatch).getRequirements();
+            if (requirements != null) {
+                capacityRequired += requirements.getCapacity();
+                if (requirements.getMaxCost() > 0) {
+                    tightestMaxCost = Math.min(tightestMaxCost, requirements.getMaxCost());
+                }
+            }
+        }
+
+        // Trip length only depends on the base, so compute it once per base point
+        Map<Integer, Integer> movesByBase = new HashMap<>();
+        Evaluation best = null;
+
+        for (int v = candidates.nextSetBit(0); v >= 0; v = candidates.nextSetBit(v + 1)) {
+            Vehicle vehicle = vehicles.get(v);
+            DroneCapability capability = vehicle.drone.getCapability();
+
+            if (capability.getCapacity() == null || Double.compare(capability.getCapacity(), capacityRequired) < 0) {
+                continue;
+            }
+
+            int moves = movesByBase.computeIfAbsent(vehicle.basePoint, base -> tripMoves(base, route));
+            if (capability.getMaxMoves() != null && moves > capability.getMaxMoves()) {
+                continue;
+            }
+
+            double cost = routeHelper.calculateFlightCost(capability, moves);
+            if (Double.compare(cost / route.size(), tightestMaxCost) > 0) {
+                continue;
+            }
+
+            if (best == null || cost < best.cost) {
+                best = new Evaluation(v, cost);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Estimated moves for base -> dispatches in order -> base, including one hover move per delivery.
+     */
+    private int tripMoves(int basePoint, List<Integer> route) {
+        double total = legs.moves(basePoint, route.getFirst());
+        for (int i = 1; i < route.size(); i++) {
+            total += legs.moves(route.get(i - 1), route.get(i));
+        }
+        total += legs.moves(route.getLast(), basePoint);
+        return (int) total + route.size();
+    }
+
+    /**
+     * A drone stationed at a particular service point.
+     */
+    static final class Vehicle {
+        final Drone drone;
+        final Position base;
+        final int basePoint;
+
+        Vehicle(Drone drone, Position base, int basePoint) {
+            this.drone = drone;
+            this.base = base;
+            this.basePoint = basePoint;
+        }
+    }
+
+    /**
+     * Result of evaluating a route: the chosen vehicle index and its estimated cost.
+     */
+    static final class Evaluation {
+        final int vehicle;
+        final double cost;
+
+        Evaluation(int vehicle, double cost) {
+            this.vehicle = vehicle;
+            this.cost = cost;
+        }
+    }
+}
@@ -6,16 +6,27 @@ import dds.dto.RestrictedArea;
 import dds.dto.ServicePoint;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Unified data service that can read from either PostgreSQL (local) or Azure API.
  * By default, uses PostgreSQL if data is available, otherwise falls back to Azure.
+ * With {@code ilp.data.source=memory}, reads go to {@link InMemoryDataService}; there is no
+ * {@link PostgresDataService} then, and the database is never touched.
  * This allows the system to work with local CRUD operations while maintaining
  * compatibility with the original Azure-based system.
+ *
+ * <p>Which source to read from is decided once and kept until reference data changes
+ * (seeding or admin writes), so reads do not pay for a count query each time.
  */
 @Service
 @Slf4j
@@ -23,25 +34,84 @@ public class UnifiedDataService {
 
     private final PostgresDataService postgresDataService;
     private final IlpDataService ilpDataService;
+    private final InMemoryDataService inMemoryDataService;
     
     @Value("${ilp.data.source:postgres}")
-    private String dataSource;  // "postgres" or "azure"
+    private String dataSource = "postgres";  // "postgres", "azure" or "memory"
 
-    public UnifiedDataService(PostgresDataService postgresDataService, IlpDataService ilpDataService) {
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Resolution resolution;
+
+    public UnifiedDataService(@Nullable PostgresDataService postgresDataService, IlpDataService ilpDataService,
+                              InMemoryDataService inMemoryDataService) {
         this.postgresDataService = postgresDataService;
         this.ilpDataService = ilpDataService;
+        this.inMemoryDataService = inMemoryDataService;
+    }
+
+    /**
+     * The current data source decision, resolving it first if needed.
+     */
+    public Resolution resolve() {
+        Resolution current = resolution;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = resolution;
+            if (current != null) {
+                return current;
+            }
+            long startGeneration = generation.get();
+            String source;
+            if ("memory".equalsIgnoreCase(dataSource)) {
+                source = "memory";
+            } else {
+                source = "postgres".equalsIgnoreCase(dataSource) && postgresDataService != null
+                        && postgresDataService.hasData() ? "postgres" : "azure";
+            }
+            current = new Resolution(source, dataSource, Instant.now());
+            log.info("Data source resolved to {} (configured: {})", current.source(), dataSource);
+            // a write committed while we were counting: answer with this one, but do not keep it
+            if (generation.get() == startGeneration) {
+                resolution = current;
+            }
+            return current;
+        }
     }
 
     /**
-     * Check if we should use PostgreSQL.
+     * The source reads currently go to, resolving it first if needed.
      */
-    private boolean usePostgres() {
-        return "postgres".equalsIgnoreCase(dataSource) && postgresDataService.hasData();
+    public String currentSource() {
+        return resolve().source();
+    }
+
+    /**
+     * Forget the current decision, so the next read resolves the data source again.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        resolution = null;
+    }
+
+    // before the reference data store reloads, so it reads from the source decided afresh
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        // only the drone count decides the source
+        if (event.getDataset() == ReferenceDataChangedEvent.Dataset.DRONES) {
+            invalidate();
+        }
     }
 
-    @Transactional(readOnly = true)
     public List<Drone> getAllDrones() {
-        if (usePostgres()) {
+        Resolution source = resolve();
+        if (source.memory()) {
+            log.debug("Using in-memory data source for drones");
+            return inMemoryDataService.getAllDrones();
+        }
+        if (source.postgres()) {
             log.debug("Using PostgreSQL data source for drones");
             return postgresDataService.getAllDrones();
         }
@@ -49,9 +119,13 @@ public class UnifiedDataService {
         return ilpDataService.getAllDrones();
     }
 
-    @Transactional(readOnly = true)
     public List<ServicePoint> getServicePoints() {
-        if (usePostgres()) {
+        Resolution source = resolve();
+        if (source.memory()) {
+            log.debug("Using in-memory data source for service points");
+            return inMemoryDataService.getServicePoints();
+        }
+        if (source.postgres()) {
             log.debug("Using PostgreSQL data source for service points");
             return postgresDataService.getServicePoints();
         }
@@ -59,9 +133,13 @@ public class UnifiedDataService {
         return ilpDataService.getServicePoints();
     }
 
-    @Transactional(readOnly = true)
     public List<RestrictedArea> getRestrictedAreas() {
-        if (usePostgres()) {
+        Resolution source = resolve();
+        if (source.memory()) {
+            log.debug("Using in-memory data source for restricted areas");
+            return inMemoryDataService.getRestrictedAreas();
+        }
+        if (source.postgres()) {
             log.debug("Using PostgreSQL data source for restricted areas");
             return postgresDataService.getRestrictedAreas();
         }
@@ -69,13 +147,30 @@ public class UnifiedDataService {
         return ilpDataService.getRestrictedAreas();
     }
 
-    @Transactional(readOnly = true)
     public List<DroneForServicePoint> getDronesForServicePoints() {
-        if (usePostgres()) {
+        Resolution source = resolve();
+        if (source.memory()) {
+            log.debug("Using in-memory data source for drone availability");
+            return inMemoryDataService.getDronesForServicePoints();
+        }
+        if (source.postgres()) {
             log.debug("Using PostgreSQL data source for drone availability");
             return postgresDataService.getDronesForServicePoints();
         }
         log.debug("Using Azure API data source for drone availability");
         return ilpDataService.getDronesForServicePoints();
     }
+
+    /**
+     * A data source decision: the source reads go to, the configured preference and when it was made.
+     */
+    public record Resolution(String source, String configured, Instant resolvedAt) {
+        public boolean postgres() {
+            return "postgres".equals(source);
+        }
+
+        public boolean memory() {
+            return "memory".equals(source);
+        }
+    }
 }
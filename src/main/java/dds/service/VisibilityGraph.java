@@ -0,0 +1,236 @@
+package dds.service;
+
+import dds.dto.Position;
+import dds.dto.RestrictedArea;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Visibility graph over the restricted-area vertices, giving the length of the shortest path
+ * between two points that does not pass through any restricted area.
+ *
+ * <p>Every drone path avoids the areas too, so this length never exceeds the length of a real
+ * drone path. Visibility is deliberately lenient: a segment only counts as blocked if it properly
+ * crosses an area edge or its midpoint lies clearly inside an area. Misjudging a blocked segment
+ * as visible only makes the distance shorter, which keeps it a valid lower bound.
+ *
+ * <p>Shortest distances from a source to every vertex ("distance fields") are cached per source,
+ * since planning asks for distances from the same service points over and over.
+ * Immutable apart from that cache, and safe to share between threads.
+ */
+final class VisibilityGraph {
+
+    private static final int MAX_CACHED_FIELDS = 4096;
+    private static final double INSIDE_MARGIN = 1e-9;
+
+    private final List<double[][]> polygons = new ArrayList<>();  // per polygon: {xs, ys}
+    private final double[] xs;
+    private final double[] ys;
+    private final double[][] vertexDistances;
+    private final Map<String, double[]> fields = new ConcurrentHashMap<>();
+
+    VisibilityGraph(List<RestrictedArea> areas) {
+        List<double[]> vertices = new ArrayList<>();
+        for (RestrictedArea area : areas) {
+            double[][] polygon = toPolygon(area.getVertices());
+            if (polygon == null) {
+                continue;
+            }
+            polygons.add(polygon);
+            for (int i = 0; i < polygon[0].length; i++) {
+                vertices.add(new double[]{polygon[0][i], polygon[1][i]});
+            }
+        }
+
+        int n = vertices.size();
+        xs = new double[n];
+        ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = vertices.get(i)[0];
+            ys[i] = vertices.get(i)[1];
+        }
+
+        vertexDistances = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double d = isVisible(xs[i], ys[i], xs[j], ys[j])
+                        ? Math.hypot(xs[i] - xs[j], ys[i] - ys[j])
+                        : Double.POSITIVE_INFINITY;
+                vertexDistances[i][j] = d;
+                vertexDistances[j][i] = d;
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return polygons.isEmpty();
+    }
+
+    /**
+     * Shortest area-avoiding distance from {@code from} to {@code to}, or NaN if either point is
+     * inside an area (the graph cannot say anything useful then).
+     */
+    double shortestDistance(Position from, Position to) {
+        double ax = from.getLng();
+        double ay = from.getLat();
+        double bx = to.getLng();
+        double by = to.getLat();
+
+        if (isInsideAny(ax, ay) || isInsideAny(bx, by)) {
+            return Double.NaN;
+        }
+        if (isVisible(ax, ay, bx, by)) {
+            return Math.hypot(ax - bx, ay - by);
+        }
+
+        double[] field = field(ax, ay);
+        double best = Double.POSITIVE_INFINITY;
+        for (int v = 0; v < xs.length; v++) {
+            if (field[v] < best && isVisible(xs[v], ys[v], bx, by)) {
+                best = Math.min(best, field[v] + Math.hypot(xs[v] - bx, ys[v] - by));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Shortest distances from a source point to every vertex (Dijkstra over the dense graph).
+     */
+    private double[] field(double sx, double sy) {
+        String key = sx + ":" + sy;
+        double[] cached = fields.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int n = xs.length;
+        double[] dist = new double[n];
+        boolean[] done = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            dist[v] = isVisible(sx, sy, xs[v], ys[v]) ? Math.hypot(sx - xs[v], sy - ys[v]) : Double.POSITIVE_INFINITY;
+        }
+        for (int round = 0; round < n; round++) {
+            int u = -1;
+            for (int v = 0; v < n; v++) {
+                if (!done[v] && (u < 0 || dist[v] < dist[u])) {
+                    u = v;
+                }
+            }
+            if (u < 0 || Double.isInfinite(dist[u])) {
+                break;
+            }
+            done[u] = true;
+            for (int v = 0; v < n; v++) {
+                double through = dist[u] + vertexDistances[u][v];
+                if (through < dist[v]) {
+                    dist[v] = through;
+                }
+            }
+        }
+
+        if (fields.size() < MAX_CACHED_FIELDS) {
+            fields.putIfAbsent(key, dist);
+        }
+        return dist;
+    }
+
+    private boolean isVisible(double ax, double ay, double bx, double by) {
+        for (double[][] polygon : polygons) {
+            double[] px = polygon[0];
+            double[] py = polygon[1];
+            for (int i = 0, j = px.length - 1; i < px.length; j = i++) {
+                if (properlyIntersect(ax, ay, bx, by, px[j], py[j], px[i], py[i])) {
+                    return false;
+                }
+            }
+        }
+        // catches diagonals between vertices of the same area, which touch no edge properly
+        return !isInsideAny((ax + bx) / 2, (ay + by) / 2);
+    }
+
+    private boolean isInsideAny(double x, double y) {
+        for (double[][] polygon : polygons) {
+            if (isClearlyInside(x, y, polygon[0], polygon[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isClearlyInside(double x, double y, double[] px, double[] py) {
+        boolean inside = false;
+        for (int i = 0, j = px.length - 1; i < px.length; j = i++) {
+            if (((py[i] > y) != (py[j] > y)) && (x < (px[j] - px[i]) * (y - py[i]) / (py[j] - py[i]) + px[i])) {
+                inside = !inside;
+            }
+        }
+        if (!inside) {
+            return false;
+        }
+        // points on (or within rounding of) the boundary are not inside
+        for (int i = 0, j = px.length - 1; i < px.length; j = i++) {
+            if (distanceToSegment(x, y, px[j], py[j], px[i], py[i]) <= INSIDE_MARGIN) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean properlyIntersect(double ax, double ay, double bx, double by,
+                                             double cx, double cy, double dx, double dy) {
+        double o1 = cross(ax, ay, bx, by, cx, cy);
+        double o2 = cross(ax, ay, bx, by, dx, dy);
+        double o3 = cross(cx, cy, dx, dy, ax, ay);
+        double o4 = cross(cx, cy, dx, dy, bx, by);
+        return ((o1 > 0 && o2 < 0) || (o1 < 0 && o2 > 0))
+                && ((o3 > 0 && o4 < 0) || (o3 < 0 && o4 > 0));
+    }
+
+    private static double cross(double ax, double ay, double bx, double by, double cx, double cy) {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+
+    private static double distanceToSegment(double x, double y, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((x - ax) * dx + (y - ay) * dy) / lengthSquared));
+        return Math.hypot(x - (ax + t * dx), y - (ay + t * dy));
+    }
+
+    /**
+     * Polygon as coordinate arrays, without a repeated closing vertex, or null if it has no area.
+     */
+    private static double[][] toPolygon(List<Position> vertices) {
+        if (vertices == null) {
+            return null;
+        }
+        List<Position> distinct = new ArrayList<>();
+        for (Position vertex : vertices) {
+            if (vertex != null && (distinct.isEmpty() || !samePoint(distinct.getLast(), vertex))) {
+                distinct.add(vertex);
+            }
+        }
+        if (distinct.size() > 1 && samePoint(distinct.getFirst(), distinct.getLast())) {
+            distinct.removeLast();
+        }
+        if (distinct.size() < 3) {
+            return null;
+        }
+
+        double[] px = new double[distinct.size()];
+        double[] py = new double[distinct.size()];
+        for (int i = 0; i < distinct.size(); i++) {
+            px[i] = distinct.get(i).getLng();
+            py[i] = distinct.get(i).getLat();
+        }
+        return new double[][]{px, py};
+    }
+
+    private static boolean samePoint(Position a, Position b) {
+        return Double.compare(a.getLng(), b.getLng()) == 0 && Double.compare(a.getLat(), b.getLat()) == 0;
+    }
+}
@@ -0,0 +1,90 @@
+package dds.service;
+
+import dds.dto.DroneAvailabilityWindow;
+import dds.dto.ServicePointDroneAvailability;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A drone's availability at one service point as a minute-resolution weekly bitmap.
+ * Checking a dispatch is a single bit lookup. Times with seconds, and windows without
+ * bounds, are checked exactly against the windows instead, so the answer is always the same
+ * as comparing against each window. Immutable and safe to share between threads.
+ */
+final class WeeklyAvailability {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private final List<DroneAvailabilityWindow> windows;
+    private final BitSet week = new BitSet(MINUTES_PER_WEEK);
+    private final BitSet anyDay = new BitSet(MINUTES_PER_DAY);
+    private final boolean[] dayHasWindow = new boolean[7];
+    private final boolean hasWindow;
+    private final boolean exactOnly;
+
+    WeeklyAvailability(ServicePointDroneAvailability availability) {
+        this.windows = availability != null ? availability.getAvailability() : null;
+
+        boolean incomplete = false;
+        for (DroneAvailabilityWindow window : windows != null ? windows : Collections.<DroneAvailabilityWindow>emptyList()) {
+            if (window.getDayOfWeek() != null) {
+                dayHasWindow[window.getDayOfWeek().ordinal()] = true;
+            }
+            if (window.getFrom() == null || window.getUntil() == null) {
+                incomplete = true;
+                continue;
+            }
+
+            // minutes m with from <= m <= until, so a window starting mid-minute skips that minute
+            int first = minuteOf(window.getFrom()) + (isWholeMinute(window.getFrom()) ? 0 : 1);
+            int last = minuteOf(window.getUntil());
+            if (first > last) {
+                continue;
+            }
+            anyDay.set(first, last + 1);
+            // a window without a day only matches dispatches without a date
+            if (window.getDayOfWeek() != null) {
+                int offset = window.getDayOfWeek().ordinal() * MINUTES_PER_DAY;
+                week.set(offset + first, offset + last + 1);
+            }
+        }
+        this.hasWindow = windows != null && !windows.isEmpty();
+        this.exactOnly = incomplete;
+    }
+
+    /**
+     * Whether the drone is available on {@code day} at {@code time}; a null day or time matches any.
+     */
+    boolean covers(DayOfWeek day, LocalTime time) {
+        if (windows == null) {
+            return false;
+        }
+        if (time == null) {
+            return day == null ? hasWindow : dayHasWindow[day.ordinal()];
+        }
+        if (exactOnly || !isWholeMinute(time)) {
+            return coversExactly(day, time);
+        }
+        int minute = minuteOf(time);
+        return day == null ? anyDay.get(minute) : week.get(day.ordinal() * MINUTES_PER_DAY + minute);
+    }
+
+    private boolean coversExactly(DayOfWeek day, LocalTime time) {
+        return windows.stream()
+                .filter(slot -> day == null || slot.getDayOfWeek() == day)
+                .anyMatch(slot -> !time.isBefore(slot.getFrom()) && !time.isAfter(slot.getUntil()));
+    }
+
+    static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    static boolean isWholeMinute(LocalTime time) {
+        return time.getSecond() == 0 && time.getNano() == 0;
+    }
+}
@@ -0,0 +1,86 @@
+package dds;
+
+import dds.service.PlanningJobService;
+import dds.service.PostgresDataService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Starts with the memory profile and a database URL nothing listens on, so the context only loads if
+ * nothing touches the database.
+ */
+@SpringBootTest(properties = {
+        "ilp.service.url=http://localhost:9/",
+        "ilp.data.memory.fixture=classpath:memory-fixture.json",
+        "spring.datasource.url=jdbc:postgresql://localhost:9/none"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("memory")
+public class MemoryModeApplicationTests {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Memory mode should start without a database or any database-backed beans")
+    public void shouldStartWithoutDatabase() {
+        assertTrue(context.getBeansOfType(DataSource.class).isEmpty());
+        assertTrue(context.getBeansOfType(PostgresDataService.class).isEmpty());
+        assertTrue(context.getBeansOfType(PlanningJobService.class).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Admin reads should be served from the in-memory fixture")
+    public void adminShouldReadFixture() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/drones"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value("1"));
+    }
+
+    @Test
+    @DisplayName("Delivery analytics should be empty without a database")
+    public void statsShouldBeEmpty() throws Exception {
+        mockMvc.perform(get("/api/v1/deliveries/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalAttempts").value(0));
+        mockMvc.perform(get("/api/v1/deliveries/history"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("A drone written through the admin API should be planned with by the very next request")
+    public void writeShouldBeReadStraightAway() throws Exception {
+        mockMvc.perform(get("/api/v1/droneDetails/1")).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/admin/drones")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": \"42\", \"name\": \"Drone 42\", \"capability\": {\"capacity\": 2.0}}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/droneDetails/42")).andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/v1/admin/drones/42")).andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/v1/droneDetails/42")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,158 @@
+package dds.configuration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the ILP RestTemplate against a local stub server.
+ */
+class IlpRestServiceConfigTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private final AtomicInteger slowCalls = new AtomicInteger();
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+    private final AtomicInteger brokenCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/gzip", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write("[\"drone\"]".getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            respond(exchange, 200, compressed.toByteArray());
+        });
+        server.createContext("/slow", exchange -> {
+            slowCalls.incrementAndGet();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "[]".getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/flaky", exchange -> {
+            int call = flakyCalls.incrementAndGet();
+            respond(exchange, call == 1 ? 503 : 200, "[]".getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/broken", exchange -> {
+            brokenCalls.incrementAndGet();
+            respond(exchange, 500, new byte[0]);
+        });
+        // one thread per exchange, so a retry is not queued behind the slow call it gave up on
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        IlpRestServiceConfig config = new IlpRestServiceConfig();
+        httpClient = config.ilpHttpClient(4, 1000, 30000);
+        restTemplate = config.restTemplate(httpClient, 2000, Map.of("/slow", 100L),
+                2, 10, 0.2, 10, 2, 60000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Gzip responses should be decompressed and 5xx responses retried")
+    void shouldDecompressAndRetry() {
+        assertEquals("[\"drone\"]", restTemplate.getForObject(baseUrl + "/gzip", String.class));
+
+        assertEquals("[]", restTemplate.getForObject(baseUrl + "/flaky", String.class));
+        assertEquals(2, flakyCalls.get());
+    }
+
+    @Test
+    @DisplayName("A slow endpoint should hit its own read deadline instead of hanging")
+    void shouldApplyEndpointReadDeadline() {
+        long start = System.currentTimeMillis();
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForObject(baseUrl + "/slow", String.class));
+
+        assertEquals(2, slowCalls.get());
+        assertTrue(System.currentTimeMillis() - start < 1000, "should not wait for the slow response");
+    }
+
+    @Test
+    @DisplayName("Repeated failures should open the circuit and stop calling the endpoint")
+    void shouldOpenCircuitAfterRepeatedFailures() {
+        assertThrows(HttpServerErrorException.class, () -> restTemplate.getForObject(baseUrl + "/broken", String.class));
+        assertThrows(HttpServerErrorException.class, () -> restTemplate.getForObject(baseUrl + "/broken", String.class));
+        int callsWhenOpened = brokenCalls.get();
+
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForObject(baseUrl + "/broken", String.class));
+        assertEquals(callsWhenOpened, brokenCalls.get());
+    }
+
+    @Test
+    @DisplayName("A half-open trial that throws an unexpected exception should reopen the circuit")
+    void shouldReopenCircuitWhenTrialThrows() throws Exception {
+        IlpResilienceInterceptor interceptor = new IlpResilienceInterceptor(1, 0, 0.2, 10, 1, 50);
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getURI()).thenReturn(URI.create(baseUrl + "/trial"));
+        when(request.getMethod()).thenReturn(HttpMethod.GET);
+        ClientHttpResponse ok = mock(ClientHttpResponse.class);
+        when(ok.getStatusCode()).thenReturn(HttpStatus.OK);
+        ClientHttpRequestExecution execution = mock(ClientHttpRequestExecution.class);
+        when(execution.execute(any(), any()))
+                .thenThrow(new IOException("connection reset"))
+                .thenThrow(new IllegalStateException("connection pool shut down"))
+                .thenReturn(ok);
+
+        assertThrows(IOException.class, () -> interceptor.intercept(request, new byte[0], execution));
+        assertEquals("OPEN", interceptor.state("/trial"));
+
+        Thread.sleep(60);
+        assertThrows(IllegalStateException.class, () -> interceptor.intercept(request, new byte[0], execution));
+        assertEquals("OPEN", interceptor.state("/trial"));
+        assertThrows(ResourceAccessException.class, () -> interceptor.intercept(request, new byte[0], execution));
+
+        Thread.sleep(60);
+        assertSame(ok, interceptor.intercept(request, new byte[0], execution));
+        assertEquals("CLOSED", interceptor.state("/trial"));
+        verify(execution, times(3)).execute(any(), any());
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package dds.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dds.dto.*;
+import dds.service.*;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class DispatchStreamEndpointTest {
+
+    private static final String DISPATCH = """
+            {"id": %d, "date": "2025-12-22", "time": "14:30", "requirements": {"capacity": 2.0}, \
+            "delivery": {"lng": -3.19, "lat": 55.94}}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private DeliveryPlanningService deliveryPlanningService;
+    private DeliveryHistoryService deliveryHistoryService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        deliveryPlanningService = mock(DeliveryPlanningService.class);
+        deliveryHistoryService = mock(DeliveryHistoryService.class);
+        DispatchStreamService streamService = new DispatchStreamService(deliveryPlanningService, deliveryHistoryService,
+                objectMapper, Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(streamService, "batchSize", 25);
+        ServiceController controller = new ServiceController(null, null, deliveryPlanningService, null, null,
+                deliveryHistoryService, streamService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    @DisplayName("Rejected lines should be reported with their line number and reason")
+    void shouldReportRejectedLines() throws Exception {
+        when(deliveryPlanningService.calcDeliveryPath(anyList(), isNull())).thenReturn(planFor("1", 1, 2));
+
+        List<JsonNode> lines = stream(String.join("\n",
+                DISPATCH.formatted(1),
+                "{not json",
+                "{\"date\": \"2025-12-22\", \"requirements\": {\"capacity\": 1.0}}",
+                "",
+                DISPATCH.formatted(2)));
+
+        assertEquals(3, lines.size());
+        assertEquals(2, lines.get(0).get("line").asInt());
+        assertTrue(lines.get(0).get("error").asText().startsWith("unparseable"));
+        assertEquals(3, lines.get(1).get("line").asInt());
+        assertTrue(lines.get(1).get("error").asText().contains("id"));
+        assertEquals("1", lines.get(2).get("droneId").asText());
+        verify(deliveryPlanningService).calcDeliveryPath(argThat(batch -> batch.size() == 2), isNull());
+    }
+
+    @Test
+    @DisplayName("Dispatches left out of the plan should each be reported by ID")
+    void shouldReportUnplannedDispatches() throws Exception {
+        when(deliveryPlanningService.calcDeliveryPath(anyList(), isNull())).thenReturn(planFor("1", 1));
+
+        List<JsonNode> lines = stream(DISPATCH.formatted(1) + "\n" + DISPATCH.formatted(2));
+
+        assertEquals(2, lines.size());
+        assertEquals("1", lines.get(0).get("droneId").asText());
+        assertEquals(2, lines.get(1).get("dispatchId").asInt());
+        assertEquals("not planned", lines.get(1).get("error").asText());
+        assertFalse(lines.get(1).has("line"));
+    }
+
+    @Test
+    @DisplayName("A micro-batch that cannot be planned at all should report every dispatch")
+    void shouldReportWholeUnplannedBatch() throws Exception {
+        when(deliveryPlanningService.calcDeliveryPath(anyList(), isNull())).thenReturn(null);
+
+        List<JsonNode> lines = stream(DISPATCH.formatted(4) + "\n" + DISPATCH.formatted(5));
+
+        assertEquals(List.of(4, 5), lines.stream().map(line -> line.get("dispatchId").asInt()).toList());
+        verify(deliveryHistoryService).logFailure(anyList());
+    }
+
+    private List<JsonNode> stream(String body) throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/v1/calcDeliveryPath/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    private static DeliveryPathResponse planFor(String droneId, Integer... dispatchIds) {
+        List<Delivery> deliveries = new ArrayList<>();
+        for (Integer id : dispatchIds) {
+            deliveries.add(new Delivery(id, List.of(new Position(-3.19, 55.94))));
+        }
+        DeliveryPathResponse response = new DeliveryPathResponse();
+        response.setDronePaths(List.of(new DronePath(droneId, deliveries)));
+        return response;
+    }
+}
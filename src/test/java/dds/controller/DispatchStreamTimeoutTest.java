@@ -0,0 +1,63 @@
+package dds.controller;
+
+import dds.dto.*;
+import dds.service.DeliveryPlanningService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+/**
+ * Streams through a real servlet container whose default async timeout is shorter than the upload takes,
+ * so the stream only completes if the endpoint applies its own timeout.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "ilp.service.url=http://localhost:9/",
+        "ilp.data.memory.fixture=classpath:memory-fixture.json",
+        "spring.mvc.async.request-timeout=500",
+        "planner.stream.timeout-ms=10000"
+})
+@ActiveProfiles("memory")
+public class DispatchStreamTimeoutTest {
+
+    @LocalServerPort
+    private int port;
+
+    @MockitoBean
+    private DeliveryPlanningService deliveryPlanningService;
+
+    @Test
+    @DisplayName("A stream that runs past the default async timeout should still complete")
+    public void streamShouldOutliveDefaultAsyncTimeout() throws Exception {
+        when(deliveryPlanningService.calcDeliveryPath(anyList(), isNull())).thenAnswer(invocation -> {
+            Thread.sleep(1500);
+            return new DeliveryPathResponse(1.0, 2, List.of(new DronePath("1",
+                    List.of(new Delivery(1, List.of(new Position(-3.19, 55.94)))))));
+        });
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port + "/api/v1/calcDeliveryPath/stream"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString("""
+                                {"id": 1, "date": "2025-12-22", "time": "14:30", "requirements": {"capacity": 2.0}}
+                                """))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"droneId\":\"1\""), response.body());
+    }
+}
@@ -0,0 +1,117 @@
+package dds.service;
+
+import dds.dto.Drone;
+import dds.dto.DroneCapability;
+import dds.dto.QueryAttribute;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapabilityIndexTest {
+
+    private List<Drone> drones;
+    private CapabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        drones = List.of(
+                drone("1", true, false, 4.0, 1000),
+                drone("2", false, true, 8.0, 2000),
+                drone("3", true, true, 12.0, null),
+                new Drone("4", "No capability", null),
+                drone("5", null, false, 8.0, 1500));
+        index = new CapabilityIndex(drones);
+    }
+
+    @Test
+    @DisplayName("Boolean attributes should treat null as false and skip drones without capability")
+    void shouldMatchBooleans() {
+        assertEquals(List.of("1", "3"), index.ids(match(index, "cooling", "true", "=")));
+        assertEquals(List.of("2", "5"), index.ids(match(index, " Cooling ", "true", "!=")));
+        assertEquals(List.of("2", "5"), index.ids(match(index, "cooling", "false", "=")));
+        assertTrue(match(index, "heating", "true", "<").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Numeric attributes should support all operators and keep fleet order")
+    void shouldMatchNumbers() {
+        assertEquals(List.of("2", "5"), index.ids(match(index, "capacity", "8", null)));
+        assertEquals(List.of("1", "3"), index.ids(match(index, "capacity", "8", "!=")));
+        assertEquals(List.of("1"), index.ids(match(index, "capacity", "8", "<")));
+        assertEquals(List.of("3"), index.ids(match(index, "CAPACITY", "8", " > ")));
+        assertEquals(List.of("2", "5"), index.ids(match(index, "maxMoves", "1000", ">")));
+        assertTrue(match(index, "unknown", "1", "=").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Index lookups should agree with comparing every drone")
+    void shouldAgreeWithLinearScan() {
+        Random random = new Random(42);
+        List<Drone> fleet = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            fleet.add(drone(String.valueOf(i), random.nextBoolean(), random.nextBoolean(),
+                    (double) random.nextInt(10), random.nextInt(5) == 0 ? null : random.nextInt(5) * 500));
+        }
+        CapabilityIndex fleetIndex = new CapabilityIndex(fleet);
+
+        for (String op : List.of("=", "!=", "<", ">")) {
+            for (int target = -1; target <= 10; target++) {
+                double value = target;
+                List<String> expected = fleet.stream()
+                        .filter(d -> compare(d.getCapability().getCapacity(), value, op))
+                        .map(Drone::getId)
+                        .toList();
+                assertEquals(expected, fleetIndex.ids(match(fleetIndex, "capacity", String.valueOf(target), op)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Equivalent queries should compile to the same cache key")
+    void shouldNormaliseQueryKeys() {
+        CapabilityQuery first = CapabilityQuery.compile(List.of(
+                attribute("Capacity", ">", "8"), attribute("cooling", null, "true")));
+        CapabilityQuery second = CapabilityQuery.compile(List.of(
+                attribute(" cooling ", "=", "TRUE"), attribute("capacity", " > ", "8.0")));
+
+        assertEquals(first.key(), second.key());
+        assertEquals(List.of("3"), index.ids(first.evaluate(index)));
+    }
+
+    private static BitSet match(CapabilityIndex index, String attribute, String value, String operator) {
+        return CapabilityQuery.compile(List.of(attribute(attribute, operator, value))).evaluate(index);
+    }
+
+    private static QueryAttribute attribute(String attribute, String operator, String value) {
+        QueryAttribute queryAttribute = new QueryAttribute();
+        queryAttribute.setAttribute(attribute);
+        queryAttribute.setOperator(operator);
+        queryAttribute.setValue(value);
+        return queryAttribute;
+    }
+
+    private static boolean compare(double actual, double target, String op) {
+        return switch (op) {
+            case "=" -> Double.compare(actual, target) == 0;
+            case "!=" -> Double.compare(actual, target) != 0;
+            case "<" -> actual < target;
+            default -> actual > target;
+        };
+    }
+
+    private static Drone drone(String id, Boolean cooling, Boolean heating, Double capacity, Integer maxMoves) {
+        DroneCapability capability = new DroneCapability();
+        capability.setCooling(cooling);
+        capability.setHeating(heating);
+        capability.setCapacity(capacity);
+        capability.setMaxMoves(maxMoves);
+        return new Drone(id, "Drone " + id, capability);
+    }
+}
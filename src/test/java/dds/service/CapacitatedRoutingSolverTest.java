@@ -0,0 +1,103 @@
+package dds.service;
+
+import dds.dto.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CapacitatedRoutingSolverTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 12, 22);
+    private static final Position BASE = new Position(-3.186, 55.944);
+
+    private UnifiedDataService dataService;
+    private CapacitatedRoutingSolver solver;
+
+    @BeforeEach
+    void setUp() {
+        dataService = mock(UnifiedDataService.class);
+        LocationService locationService = new LocationService();
+        ReferenceDataStore referenceDataStore = new ReferenceDataStore(dataService);
+        FleetRegistry fleetRegistry = new FleetRegistry(referenceDataStore);
+        DroneService droneService = new DroneService(fleetRegistry, new DistanceOracle(referenceDataStore));
+        RouteCalculationHelper routeHelper = new RouteCalculationHelper(droneService, null, referenceDataStore, locationService, fleetRegistry);
+        solver = new CapacitatedRoutingSolver(fleetRegistry, droneService, routeHelper);
+        ReflectionTestUtils.setField(solver, "timeBudgetMs", 100L);
+
+        when(dataService.getServicePoints()).thenReturn(List.of(new ServicePoint("Base", 1, BASE)));
+    }
+
+    @Test
+    @DisplayName("Nearby dispatches should be merged into one trip when capacity allows")
+    void shouldMergeNearbyDispatches() {
+        givenFleet(drone("1", 10.0));
+
+        List<RoutePlan> plans = solver.solve(List.of(
+                dispatch(1, 4.0, -3.180, 55.944),
+                dispatch(2, 4.0, -3.180, 55.945)));
+
+        assertEquals(1, plans.size());
+        assertEquals(2, plans.getFirst().getDispatches().size());
+        assertEquals("1", plans.getFirst().getDroneId());
+    }
+
+    @Test
+    @DisplayName("Trips should never exceed drone capacity")
+    void shouldRespectCapacity() {
+        givenFleet(drone("1", 5.0));
+
+        List<RoutePlan> plans = solver.solve(List.of(
+                dispatch(1, 4.0, -3.180, 55.944),
+                dispatch(2, 4.0, -3.180, 55.945)));
+
+        assertEquals(2, plans.size());
+        plans.forEach(plan -> assertEquals(1, plan.getDispatches().size()));
+    }
+
+    @Test
+    @DisplayName("Dispatches no drone can serve should be left out")
+    void shouldSkipUnservableDispatches() {
+        givenFleet(drone("1", 5.0));
+
+        List<RoutePlan> plans = solver.solve(List.of(dispatch(1, 50.0, -3.180, 55.944)));
+
+        assertTrue(plans.isEmpty());
+    }
+
+    private void givenFleet(Drone drone) {
+        ServicePointDroneAvailability availability = new ServicePointDroneAvailability();
+        availability.setId(drone.getId());
+        availability.setAvailability(List.of(
+                new DroneAvailabilityWindow(DayOfWeek.MONDAY, LocalTime.MIN, LocalTime.of(23, 59, 59))));
+
+        when(dataService.getAllDrones()).thenReturn(List.of(drone));
+        when(dataService.getDronesForServicePoints()).thenReturn(List.of(new DroneForServicePoint(1, List.of(availability))));
+    }
+
+    private static Drone drone(String id, double capacity) {
+        DroneCapability capability = new DroneCapability();
+        capability.setCooling(false);
+        capability.setHeating(false);
+        capability.setCapacity(capacity);
+        capability.setMaxMoves(2000);
+        capability.setCostPerMove(0.01);
+        capability.setCostInitial(4.0);
+        capability.setCostFinal(4.0);
+        return new Drone(id, "Drone " + id, capability);
+    }
+
+    private static MedDispatchRec dispatch(int id, double capacity, double lng, double lat) {
+        return new MedDispatchRec(id, MONDAY, LocalTime.of(14, 30),
+                new MedDispatchRequirements(capacity, false, false, 0),
+                new Position(lng, lat));
+    }
+}
@@ -0,0 +1,42 @@
+package dds.service;
+
+import dds.dto.AvailabilityUpdateResult;
+import dds.dto.Drone;
+import dds.dto.DroneCapability;
+import dds.dto.DroneForServicePoint;
+import dds.dto.Position;
+import dds.dto.ServicePoint;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DataSeederServiceTest {
+
+    @Test
+    @DisplayName("Seeding should write each dataset with one bulk call")
+    void shouldSeedEachDatasetInBulk() {
+        IlpDataService ilpDataService = mock(IlpDataService.class);
+        PostgresDataService postgresDataService = mock(PostgresDataService.class);
+        List<Drone> drones = List.of(new Drone("1", "Drone 1", new DroneCapability()),
+                new Drone("2", "Drone 2", new DroneCapability()));
+        List<ServicePoint> servicePoints = List.of(new ServicePoint("Base", 1, new Position(-3.186, 55.944)));
+        List<DroneForServicePoint> availability = List.of(new DroneForServicePoint(1, List.of()));
+        when(ilpDataService.getAllDrones()).thenReturn(drones);
+        when(ilpDataService.getServicePoints()).thenReturn(servicePoints);
+        when(ilpDataService.getRestrictedAreas()).thenReturn(List.of());
+        when(ilpDataService.getDronesForServicePoints()).thenReturn(availability);
+        when(postgresDataService.applyAvailability(availability, true)).thenReturn(new AvailabilityUpdateResult(0, 0, 0));
+
+        new DataSeederService(ilpDataService, postgresDataService).seedAllData();
+
+        verify(postgresDataService).saveDrones(drones);
+        verify(postgresDataService).saveServicePoints(servicePoints);
+        verify(postgresDataService).saveRestrictedAreas(List.of());
+        verify(postgresDataService).applyAvailability(availability, true);
+        verify(postgresDataService, never()).saveDrone(any());
+    }
+}
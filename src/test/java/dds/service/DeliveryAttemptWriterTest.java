@@ -0,0 +1,129 @@
+package dds.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dds.dto.MedDispatchRec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class DeliveryAttemptWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private DeliveryAttemptWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new DeliveryAttemptWriter(jdbcTemplate, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(writer, "capacity", 2);
+        ReflectionTestUtils.setField(writer, "batchSize", 10);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 60000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+    }
+
+    @Test
+    @DisplayName("Queued attempts should be written as one batch when the writer stops")
+    @SuppressWarnings("unchecked")
+    void shouldBatchQueuedAttemptsAndFlushOnStop() {
+        writer.start();
+        writer.submit(attempt(true));
+        writer.submit(attempt(false));
+
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(2.0, meterRegistry.get("delivery.history.queue.depth").gauge().value());
+
+        writer.stop();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        assertEquals(true, rows.getValue().get(0)[1]);
+        assertEquals("[]", rows.getValue().get(0)[2]);
+        assertEquals(0, writer.depth());
+        assertEquals(1, meterRegistry.get("delivery.history.flush").timer().count());
+    }
+
+    @Test
+    @DisplayName("A full queue should write in the caller's thread by default")
+    void shouldWriteInCallerWhenFull() {
+        writer.start();
+        writer.submit(attempt(true));
+        writer.submit(attempt(true));
+        writer.submit(attempt(true));
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertEquals(2, writer.depth());
+    }
+
+    @Test
+    @DisplayName("With drop-oldest a full queue should make room by discarding its oldest attempt")
+    void shouldDropOldestWhenFull() {
+        ReflectionTestUtils.setField(writer, "overflow", "drop-oldest");
+        writer.start();
+        writer.submit(attempt(true));
+        writer.submit(attempt(true));
+        writer.submit(attempt(false));
+
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(2, writer.depth());
+        assertEquals(1.0, meterRegistry.get("delivery.history.dropped").tag("reason", "drop-oldest").counter().count());
+    }
+
+    @Test
+    @DisplayName("An unknown overflow policy should fail startup")
+    void shouldRejectUnknownOverflowPolicy() {
+        ReflectionTestUtils.setField(writer, "overflow", "drop-newset");
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, writer::start);
+
+        assertTrue(error.getMessage().contains("drop-newset"));
+        assertFalse(writer.isRunning());
+    }
+
+    @Test
+    @DisplayName("An attempt queued just after the final flush of stop should still be written")
+    @SuppressWarnings("unchecked")
+    void shouldWriteAttemptQueuedWhileStopping() {
+        // stop() runs to completion between submit's running check and its enqueue
+        ReflectionTestUtils.setField(writer, "queue", new ConcurrentLinkedQueue<DeliveryAttemptWriter.PendingAttempt>() {
+            @Override
+            public boolean add(DeliveryAttemptWriter.PendingAttempt attempt) {
+                writer.stop();
+                return super.add(attempt);
+            }
+        });
+        writer.start();
+
+        writer.submit(attempt(true));
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals(0, writer.depth());
+    }
+
+    private static DeliveryAttemptWriter.PendingAttempt attempt(boolean success) {
+        return new DeliveryAttemptWriter.PendingAttempt(LocalDateTime.now(), success, List.<MedDispatchRec>of(),
+                success ? "1" : null, success ? 12.5 : null, success ? 40 : null);
+    }
+}
@@ -0,0 +1,115 @@
+package dds.service;
+
+import dds.dto.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DispatchAssignmentEngineTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 12, 22);
+    private static final Position BASE = new Position(-3.186, 55.944);
+
+    private DispatchAssignmentEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        UnifiedDataService dataService = mock(UnifiedDataService.class);
+        ReferenceDataStore referenceDataStore = new ReferenceDataStore(dataService);
+        FleetRegistry fleetRegistry = new FleetRegistry(referenceDataStore);
+        DroneService droneService = new DroneService(fleetRegistry, new DistanceOracle(referenceDataStore));
+        RouteCalculationHelper routeHelper = new RouteCalculationHelper(droneService, null, referenceDataStore, new LocationService(), fleetRegistry);
+        engine = new DispatchAssignmentEngine(fleetRegistry, droneService, routeHelper);
+
+        when(dataService.getServicePoints()).thenReturn(List.of(new ServicePoint("Base", 1, BASE)));
+        when(dataService.getAllDrones()).thenReturn(List.of(drone("1", 4.0), drone("2", 8.0)));
+        when(dataService.getDronesForServicePoints()).thenReturn(List.of(
+                new DroneForServicePoint(1, List.of(availability("1"), availability("2")))));
+    }
+
+    @Test
+    @DisplayName("Each dispatch should get the cheapest drone still free")
+    void shouldMatchCheapestDrones() {
+        List<DispatchAssignmentEngine.DispatchAssignment> assignments =
+                engine.assign(List.of(dispatch(1, 3.0), dispatch(2, 3.0)), Set.of());
+
+        assertEquals(2, assignments.size());
+        assertEquals(Set.of("1", "2"), Set.of(assignments.get(0).getDroneId(), assignments.get(1).getDroneId()));
+        assertEquals("1", assignments.get(0).getDroneId(), "Cheapest pair should come first");
+    }
+
+    @Test
+    @DisplayName("Rejected pair should be re-matched to another drone")
+    void shouldRematchAfterRejectedPair() {
+        MedDispatchRec dispatch = dispatch(1, 3.0);
+
+        List<DispatchAssignmentEngine.DispatchAssignment> first = engine.assign(List.of(dispatch), Set.of());
+        List<DispatchAssignmentEngine.DispatchAssignment> second =
+                engine.assign(List.of(dispatch), Set.of(DispatchAssignmentEngine.pairKey(dispatch, "1")));
+
+        assertEquals("1", first.get(0).getDroneId());
+        assertEquals(1, second.size());
+        assertEquals("2", second.get(0).getDroneId());
+        assertTrue(second.get(0).getEstimatedCost() > first.get(0).getEstimatedCost());
+    }
+
+    @Test
+    @DisplayName("Dispatch no drone can carry should be left unmatched")
+    void shouldLeaveInfeasibleDispatchUnmatched() {
+        MedDispatchRec tooHeavy = dispatch(1, 50.0);
+        MedDispatchRec feasible = dispatch(2, 3.0);
+
+        List<DispatchAssignmentEngine.DispatchAssignment> assignments =
+                engine.assign(List.of(tooHeavy, feasible), Set.of());
+
+        assertEquals(1, assignments.size());
+        assertEquals(2, assignments.get(0).getDispatch().getId());
+        assertEquals("1", assignments.get(0).getDroneId());
+    }
+
+    @Test
+    @DisplayName("Dispatch whose every pair is rejected should be left unmatched")
+    void shouldReturnNothingWhenAllPairsRejected() {
+        MedDispatchRec dispatch = dispatch(1, 3.0);
+
+        List<DispatchAssignmentEngine.DispatchAssignment> assignments = engine.assign(List.of(dispatch),
+                Set.of(DispatchAssignmentEngine.pairKey(dispatch, "1"), DispatchAssignmentEngine.pairKey(dispatch, "2")));
+
+        assertTrue(assignments.isEmpty());
+    }
+
+    private static ServicePointDroneAvailability availability(String droneId) {
+        ServicePointDroneAvailability availability = new ServicePointDroneAvailability();
+        availability.setId(droneId);
+        availability.setAvailability(List.of(
+                new DroneAvailabilityWindow(DayOfWeek.MONDAY, LocalTime.MIN, LocalTime.of(23, 59, 59))));
+        return availability;
+    }
+
+    private static Drone drone(String id, double costInitial) {
+        DroneCapability capability = new DroneCapability();
+        capability.setCooling(false);
+        capability.setHeating(false);
+        capability.setCapacity(10.0);
+        capability.setMaxMoves(2000);
+        capability.setCostPerMove(0.01);
+        capability.setCostInitial(costInitial);
+        capability.setCostFinal(4.0);
+        return new Drone(id, "Drone " + id, capability);
+    }
+
+    private static MedDispatchRec dispatch(int id, double capacity) {
+        return new MedDispatchRec(id, MONDAY, LocalTime.of(14, 30),
+                new MedDispatchRequirements(capacity, false, false, 0),
+                new Position(-3.184, 55.945));
+    }
+}
@@ -0,0 +1,73 @@
+package dds.service;
+
+import dds.dto.Position;
+import dds.dto.RestrictedArea;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DistanceOracleTest {
+
+    private static final double STEP = DroneService.MOVE_DISTANCE;
+    private static final Position START = new Position(-3.190, 55.944);
+    private static final Position END = new Position(-3.190 + 20.5 * STEP, 55.944);
+
+    private UnifiedDataService dataService;
+    private ReferenceDataStore referenceDataStore;
+    private DistanceOracle oracle;
+
+    @BeforeEach
+    void setUp() {
+        dataService = mock(UnifiedDataService.class);
+        referenceDataStore = new ReferenceDataStore(dataService);
+        oracle = new DistanceOracle(referenceDataStore);
+    }
+
+    @Test
+    @DisplayName("Without restricted areas the bound should be the straight-line estimate")
+    void shouldUseStraightLineWithoutAreas() {
+        when(dataService.getRestrictedAreas()).thenReturn(List.of());
+
+        assertEquals(21, oracle.minimumMoves(START, END));
+    }
+
+    @Test
+    @DisplayName("A wall between the points should raise the bound, but never above a real path")
+    void shouldAccountForDetours() {
+        // thin wall across the straight line, much taller than the distance between the points
+        double wallX = START.getLng() + 10 * STEP;
+        RestrictedArea wall = new RestrictedArea("Wall", 1, List.of(
+                new Position(wallX, START.getLat() - 8 * STEP),
+                new Position(wallX + STEP, START.getLat() - 8 * STEP),
+                new Position(wallX + STEP, START.getLat() + 8 * STEP),
+                new Position(wallX, START.getLat() + 8 * STEP),
+                new Position(wallX, START.getLat() - 8 * STEP)));
+        when(dataService.getRestrictedAreas()).thenReturn(List.of(wall));
+
+        double bound = oracle.minimumMoves(START, END);
+        List<Position> path = new PathfindingService(new LocationService(), referenceDataStore).findPath(START, END);
+
+        assertTrue(bound > 21, "bound should include the detour, was " + bound);
+        assertTrue(bound <= path.size() - 1, "bound " + bound + " exceeds real path of " + (path.size() - 1));
+    }
+
+    @Test
+    @DisplayName("A restricted area change should rebuild the graph")
+    void shouldRebuildOnRestrictedAreaChange() {
+        when(dataService.getRestrictedAreas()).thenReturn(List.of());
+        oracle.minimumMoves(START, END);
+        oracle.minimumMoves(START, END);
+        verify(dataService, times(1)).getRestrictedAreas();
+
+        ReferenceSnapshot before = referenceDataStore.current();
+        referenceDataStore.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.RESTRICTED_AREAS));
+        ReferenceDataStoreTest.awaitNewerThan(referenceDataStore, before);
+        oracle.minimumMoves(START, END);
+        verify(dataService, times(2)).getRestrictedAreas();
+    }
+}
@@ -0,0 +1,80 @@
+package dds.service;
+
+import dds.dto.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DroneServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 12, 22);
+    private static final Position BASE = new Position(-3.186, 55.944);
+
+    private UnifiedDataService dataService;
+    private DroneService droneService;
+
+    @BeforeEach
+    void setUp() {
+        dataService = mock(UnifiedDataService.class);
+        droneService = new DroneService(new FleetRegistry(new ReferenceDataStore(dataService)),
+                new DistanceOracle(new ReferenceDataStore(dataService)));
+
+        when(dataService.getAllDrones()).thenReturn(List.of(drone("1", 5.0, false), drone("2", 10.0, true)));
+        when(dataService.getServicePoints()).thenReturn(List.of(new ServicePoint("Base", 1, BASE)));
+        when(dataService.getDronesForServicePoints()).thenReturn(List.of(new DroneForServicePoint(1, List.of(
+                availability("1", LocalTime.of(9, 0), LocalTime.of(17, 0)),
+                availability("2", LocalTime.of(12, 0), LocalTime.of(23, 0))))));
+    }
+
+    @Test
+    @DisplayName("Batch query should give the same answer per group as single queries, in request order")
+    void batchShouldMatchSingleQueries() {
+        List<List<MedDispatchRec>> groups = List.of(
+                List.of(dispatch(1, 4.0, false, LocalTime.of(10, 0))),
+                List.of(dispatch(2, 4.0, false, LocalTime.of(14, 30))),
+                List.of(dispatch(3, 4.0, true, LocalTime.of(14, 30)), dispatch(4, 4.0, false, LocalTime.of(20, 0))),
+                List.of(dispatch(5, 20.0, false, LocalTime.of(14, 30))),
+                List.of());
+
+        List<List<String>> batch = droneService.queryAvailableDronesBatch(groups);
+
+        assertEquals(List.of(List.of("1"), List.of("1", "2"), List.of("2"), List.of(), List.of()), batch);
+        for (int i = 0; i < groups.size() - 1; i++) {
+            assertEquals(droneService.queryAvailableDrones(groups.get(i)), batch.get(i));
+        }
+        verify(dataService, times(1)).getAllDrones();
+    }
+
+    private static ServicePointDroneAvailability availability(String droneId, LocalTime from, LocalTime until) {
+        ServicePointDroneAvailability availability = new ServicePointDroneAvailability();
+        availability.setId(droneId);
+        availability.setAvailability(List.of(new DroneAvailabilityWindow(DayOfWeek.MONDAY, from, until)));
+        return availability;
+    }
+
+    private static Drone drone(String id, double capacity, boolean cooling) {
+        DroneCapability capability = new DroneCapability();
+        capability.setCooling(cooling);
+        capability.setHeating(false);
+        capability.setCapacity(capacity);
+        capability.setMaxMoves(2000);
+        capability.setCostPerMove(0.01);
+        capability.setCostInitial(4.0);
+        capability.setCostFinal(4.0);
+        return new Drone(id, "Drone " + id, capability);
+    }
+
+    private static MedDispatchRec dispatch(int id, double capacity, boolean cooling, LocalTime time) {
+        return new MedDispatchRec(id, MONDAY, time,
+                new MedDispatchRequirements(capacity, cooling, false, 0),
+                new Position(-3.180, 55.944));
+    }
+}
@@ -0,0 +1,91 @@
+package dds.service;
+
+import dds.dto.Drone;
+import dds.dto.DroneCapability;
+import dds.dto.DroneForServicePoint;
+import dds.dto.Position;
+import dds.dto.ServicePoint;
+import dds.dto.ServicePointDroneAvailability;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FleetRegistryTest {
+
+    private static final Position BASE = new Position(-3.186, 55.944);
+
+    private UnifiedDataService dataService;
+    private ReferenceDataStore referenceDataStore;
+    private FleetRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        dataService = mock(UnifiedDataService.class);
+        referenceDataStore = new ReferenceDataStore(dataService);
+        registry = new FleetRegistry(referenceDataStore);
+
+        ServicePointDroneAvailability availability = new ServicePointDroneAvailability();
+        availability.setId("1");
+        availability.setAvailability(Collections.emptyList());
+
+        when(dataService.getAllDrones()).thenReturn(List.of(drone("1"), drone("2")));
+        when(dataService.getServicePoints()).thenReturn(List.of(new ServicePoint("Base", 7, BASE)));
+        when(dataService.getDronesForServicePoints())
+                .thenReturn(List.of(new DroneForServicePoint(7, List.of(availability))));
+    }
+
+    @Test
+    @DisplayName("Lookups should be served from one snapshot without reloading")
+    void shouldServeLookupsFromSnapshot() {
+        assertEquals("2", registry.getDrone("2").getId());
+        assertNull(registry.getDrone("missing"));
+        assertEquals(7, registry.snapshot().getAssignments("1").getFirst().getServicePointId());
+        assertEquals(BASE, registry.snapshot().getAssignments("1").getFirst().getLocation());
+        assertTrue(registry.snapshot().getAssignments("2").isEmpty());
+
+        verify(dataService, times(1)).getAllDrones();
+    }
+
+    @Test
+    @DisplayName("A fleet change should rebuild the snapshot, a restricted area change should keep its indexes")
+    void shouldRebuildOnlyForFleetChanges() {
+        FleetRegistry.FleetSnapshot before = registry.snapshot();
+
+        referenceDataStore.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.RESTRICTED_AREAS));
+        ReferenceSnapshot areasChanged = ReferenceDataStoreTest.awaitNewerThan(referenceDataStore, before.getReference());
+        FleetRegistry.FleetSnapshot after = registry.snapshot();
+        assertSame(areasChanged, after.getReference());
+        assertSame(before.getDronesById(), after.getDronesById());
+        assertSame(before.getCapabilityIndex(), after.getCapabilityIndex());
+        verify(dataService, times(1)).getAllDrones();
+        verify(dataService, times(2)).getRestrictedAreas();
+
+        when(dataService.getAllDrones()).thenReturn(List.of(drone("3")));
+        referenceDataStore.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.DRONES));
+        ReferenceDataStoreTest.awaitNewerThan(referenceDataStore, areasChanged);
+
+        assertNull(registry.getDrone("1"));
+        assertNotNull(registry.getDrone("3"));
+    }
+
+    @Test
+    @DisplayName("A snapshot should be resolved for the reference data it is given")
+    void shouldResolveSnapshotForGivenReferenceData() {
+        ReferenceSnapshot reference = referenceDataStore.current();
+        FleetRegistry.FleetSnapshot fleet = registry.snapshot(reference);
+
+        assertSame(reference, fleet.getReference());
+        assertSame(fleet, registry.snapshot(reference));
+        assertEquals(reference.getVersion(), fleet.getVersion());
+    }
+
+    private static Drone drone(String id) {
+        return new Drone(id, "Drone " + id, new DroneCapability());
+    }
+}
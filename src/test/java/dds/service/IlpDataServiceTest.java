@@ -0,0 +1,114 @@
+package dds.service;
+
+import dds.dto.Drone;
+import dds.dto.DroneCapability;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IlpDataServiceTest {
+
+    private static final String URL = "http://ilp.test/drones";
+
+    private RestTemplate restTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private IlpDataService ilpDataService;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = mock(RestTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ilpDataService = new IlpDataService(restTemplate, "http://ilp.test", meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Reads within the TTL should be served from the cache")
+    void shouldServeFreshReadsFromCache() {
+        when(restTemplate.exchange(eq(URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Drone[].class)))
+                .thenReturn(ResponseEntity.ok(new Drone[]{drone("1")}));
+
+        assertEquals("1", ilpDataService.getAllDrones().getFirst().getId());
+        assertEquals("1", ilpDataService.getAllDrones().getFirst().getId());
+
+        verify(restTemplate, times(1)).exchange(eq(URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Drone[].class));
+        assertEquals(1, meterRegistry.counter("ilp.cache.requests", "endpoint", "/drones", "result", "hit").count());
+    }
+
+    @Test
+    @DisplayName("Revalidation should send the ETag, and a failed refresh should keep the last known good copy")
+    void shouldRevalidateAndFallBackToLastKnownGood() {
+        ReflectionTestUtils.setField(ilpDataService, "maxStaleMs", 0L);
+        when(restTemplate.exchange(eq(URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Drone[].class)))
+                .thenReturn(ResponseEntity.ok().eTag("\"v1\"").body(new Drone[]{drone("1")}))
+                .thenReturn(ResponseEntity.status(HttpStatus.NOT_MODIFIED).build())
+                .thenThrow(new ResourceAccessException("timed out"));
+
+        ilpDataService.getAllDrones();
+        ilpDataService.invalidate();
+        assertEquals("1", ilpDataService.getAllDrones().getFirst().getId());
+        ilpDataService.invalidate();
+        List<Drone> afterFailure = ilpDataService.getAllDrones();
+
+        assertEquals("1", afterFailure.getFirst().getId());
+        verify(restTemplate, atLeastOnce()).exchange(eq(URL), eq(HttpMethod.GET),
+                argThat((HttpEntity<?> request) -> "\"v1\"".equals(request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH))),
+                eq(Drone[].class));
+        assertEquals(1, meterRegistry.timer("ilp.cache.refresh", "endpoint", "/drones", "outcome", "not_modified").count());
+        assertEquals(1, meterRegistry.timer("ilp.cache.refresh", "endpoint", "/drones", "outcome", "error").count());
+    }
+
+    @Test
+    @DisplayName("A miss during a background refresh should wait for it instead of fetching again")
+    void shouldWaitForBackgroundRefreshOnMiss() throws InterruptedException {
+        ReflectionTestUtils.setField(ilpDataService, "ttlMs", 0L);
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch releaseRefresh = new CountDownLatch(1);
+        when(restTemplate.exchange(eq(URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Drone[].class)))
+                .thenReturn(ResponseEntity.ok(new Drone[]{drone("1")}))
+                .thenAnswer(invocation -> {
+                    refreshStarted.countDown();
+                    releaseRefresh.await(5, TimeUnit.SECONDS);
+                    return ResponseEntity.ok(new Drone[]{drone("2")});
+                });
+
+        ilpDataService.getAllDrones();
+        Thread.sleep(5);
+        // stale read starts the background refresh, which blocks in the HTTP call
+        assertEquals("1", ilpDataService.getAllDrones().getFirst().getId());
+        assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+
+        ilpDataService.invalidate();
+        Thread.ofPlatform().start(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            releaseRefresh.countDown();
+        });
+
+        assertEquals("2", ilpDataService.getAllDrones().getFirst().getId());
+        verify(restTemplate, times(2)).exchange(eq(URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Drone[].class));
+    }
+
+    private static Drone drone(String id) {
+        return new Drone(id, "Drone " + id, new DroneCapability());
+    }
+}
@@ -0,0 +1,101 @@
+package dds.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dds.dto.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class InMemoryDataServiceTest {
+
+    private static final String FIXTURE = """
+            {
+              "drones": [{"id": "1", "name": "Drone 1", "capability": {"cooling": true, "capacity": 4.0}}],
+              "servicePoints": [{"name": "Base", "id": 7, "location": {"lng": -3.186, "lat": 55.944}},
+                                {"name": "Annex", "id": 8, "location": {"lng": -3.17, "lat": 55.98}}],
+              "restrictedAreas": [],
+              "dronesForServicePoints": [{"servicePointId": 7, "drones": [{"id": "1", "availability": [
+                {"dayOfWeek": "MONDAY", "from": "09:00:00", "until": "17:00:00"},
+                {"dayOfWeek": "TUESDAY", "from": "09:00:00", "until": "17:00:00"}]}]}]
+            }""";
+
+    private IlpDataService ilpDataService;
+    private ApplicationEventPublisher eventPublisher;
+    private InMemoryDataService dataService;
+
+    @BeforeEach
+    void setUp() {
+        ilpDataService = mock(IlpDataService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        dataService = new InMemoryDataService(ilpDataService, new ObjectMapper().registerModule(new JavaTimeModule()),
+                eventPublisher);
+    }
+
+    @Test
+    @DisplayName("A JSON fixture should be loaded on first read")
+    void shouldLoadJsonFixture(@TempDir Path dir) throws Exception {
+        Path fixture = dir.resolve("fixture.json");
+        Files.writeString(fixture, FIXTURE);
+        ReflectionTestUtils.setField(dataService, "fixture", fixture.toUri().toString());
+
+        assertTrue(dataService.hasData());
+        assertEquals("Drone 1", dataService.getDroneById("1").getName());
+        assertEquals(2, dataService.getServicePoints().size());
+
+        List<DroneForServicePoint> availability = dataService.getDronesForServicePoints();
+        assertEquals(2, availability.size());
+        assertEquals(2, availability.get(0).getDrones().get(0).getAvailability().size());
+        assertTrue(availability.get(1).getDrones().isEmpty());
+        verifyNoInteractions(ilpDataService);
+    }
+
+    @Test
+    @DisplayName("Admin writes should change the held data and publish change events")
+    void shouldApplyWritesInMemory() {
+        when(ilpDataService.getServicePoints()).thenReturn(List.of(new ServicePoint("Base", 7, new Position(-3.186, 55.944))));
+
+        dataService.saveDrone(new Drone("2", "Drone 2", new DroneCapability()));
+        AvailabilityUpdateResult first = dataService.saveAvailability("2", 7, List.of(
+                new DroneAvailabilityWindow(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(17, 0))));
+        AvailabilityUpdateResult second = dataService.saveAvailability("2", 7, List.of(
+                new DroneAvailabilityWindow(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(17, 0)),
+                new DroneAvailabilityWindow(DayOfWeek.FRIDAY, LocalTime.of(9, 0), LocalTime.of(12, 0))));
+        dataService.deleteDrone("2");
+
+        assertEquals(new AvailabilityUpdateResult(1, 0, 0), first);
+        assertEquals(new AvailabilityUpdateResult(1, 0, 1), second);
+        assertNull(dataService.getDroneById("2"));
+        assertEquals(2, dataService.getDronesForServicePoints().get(0).getDrones().get(0).getAvailability().size());
+        verify(eventPublisher, times(4)).publishEvent(any(ReferenceDataChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("A snapshot from another instance should replace everything held")
+    void shouldReplaceFromSnapshot() throws Exception {
+        ReferenceSnapshot snapshot = new ReferenceSnapshot(5, 0,
+                List.of(new Drone("9", "Drone 9", new DroneCapability())), List.of(), List.of(), List.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReferenceSnapshotCodec.write(snapshot, out);
+
+        dataService.replaceAll(out.toByteArray());
+
+        assertEquals(List.of("9"), dataService.getAllDrones().stream().map(Drone::getId).toList());
+        verifyNoInteractions(ilpDataService);
+        assertThrows(IllegalArgumentException.class, () -> dataService.replaceAll(new byte[]{1, 2, 3, 4}));
+    }
+}
@@ -0,0 +1,148 @@
+package dds.service;
+
+import dds.dto.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LargeNeighbourhoodSearchTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 12, 22);
+    private static final Position BASE = new Position(-3.186, 55.944);
+
+    private FleetRegistry fleetRegistry;
+    private CapacitatedRoutingSolver solver;
+    private ThreadPoolExecutor executor;
+    private LargeNeighbourhoodSearch search;
+    private List<MedDispatchRec> dispatches;
+
+    @BeforeEach
+    void setUp() {
+        UnifiedDataService dataService = mock(UnifiedDataService.class);
+        LocationService locationService = new LocationService();
+        ReferenceDataStore referenceDataStore = new ReferenceDataStore(dataService);
+        fleetRegistry = new FleetRegistry(referenceDataStore);
+        DroneService droneService = new DroneService(fleetRegistry, new DistanceOracle(referenceDataStore));
+        RouteCalculationHelper routeHelper = new RouteCalculationHelper(droneService, null, referenceDataStore, locationService, fleetRegistry);
+        solver = new CapacitatedRoutingSolver(fleetRegistry, droneService, routeHelper);
+        ReflectionTestUtils.setField(solver, "timeBudgetMs", 100L);
+
+        executor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        search = new LargeNeighbourhoodSearch(solver, executor);
+        ReflectionTestUtils.setField(search, "workers", 2);
+
+        ServicePointDroneAvailability availability = new ServicePointDroneAvailability();
+        availability.setId("1");
+        availability.setAvailability(List.of(
+                new DroneAvailabilityWindow(DayOfWeek.MONDAY, LocalTime.MIN, LocalTime.of(23, 59, 59))));
+        when(dataService.getServicePoints()).thenReturn(List.of(new ServicePoint("Base", 1, BASE)));
+        when(dataService.getAllDrones()).thenReturn(List.of(drone("1", 10.0)));
+        when(dataService.getDronesForServicePoints()).thenReturn(List.of(new DroneForServicePoint(1, List.of(availability))));
+
+        dispatches = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            dispatches.add(dispatch(i, 3.0, -3.186 + 0.002 * (i % 4 + 1), 55.944 + 0.001 * (i / 4 + 1)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Search should stop at the deadline")
+    void shouldRespectDeadline() {
+        long start = System.nanoTime();
+
+        search.optimise(fleetRegistry.snapshot(), dispatches, List.of(), start + TimeUnit.MILLISECONDS.toNanos(200));
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMs < 1000, "search ran for " + elapsedMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Result should never cost more than the starting plan")
+    void shouldNeverBeWorseThanStartingPlan() {
+        List<RoutePlan> initial = solver.solve(dispatches);
+
+        List<RoutePlan> result = search.optimise(fleetRegistry.snapshot(), dispatches, toPaths(initial),
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200));
+
+        assertTrue(served(result).size() >= served(initial).size());
+        assertTrue(totalCost(result) <= totalCost(initial) + 1e-9);
+    }
+
+    @Test
+    @DisplayName("Every dispatch should be planned exactly once")
+    void shouldNotLoseOrDuplicateDispatches() {
+        List<RoutePlan> result = search.optimise(fleetRegistry.snapshot(), dispatches, toPaths(solver.solve(dispatches)),
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200));
+
+        List<Integer> ids = served(result);
+        assertEquals(dispatches.size(), ids.size());
+        assertEquals(dispatches.stream().map(MedDispatchRec::getId).sorted().toList(), ids.stream().sorted().toList());
+    }
+
+    @Test
+    @DisplayName("Interrupted search should return and stop its workers")
+    void shouldCancelWorkersWhenInterrupted() throws InterruptedException {
+        Thread.currentThread().interrupt();
+        try {
+            search.optimise(fleetRegistry.snapshot(), dispatches, List.of(), System.nanoTime() + TimeUnit.SECONDS.toNanos(30));
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static List<DronePath> toPaths(List<RoutePlan> plans) {
+        return plans.stream()
+                .map(plan -> new DronePath(plan.getDroneId(), plan.getDispatches().stream()
+                        .map(dispatch -> new Delivery(dispatch.getId(), List.of()))
+                        .toList()))
+                .toList();
+    }
+
+    private static List<Integer> served(List<RoutePlan> plans) {
+        return plans.stream().flatMap(plan -> plan.getDispatches().stream()).map(MedDispatchRec::getId).toList();
+    }
+
+    private static double totalCost(List<RoutePlan> plans) {
+        return plans.stream().mapToDouble(RoutePlan::getEstimatedCost).sum();
+    }
+
+    private static Drone drone(String id, double capacity) {
+        DroneCapability capability = new DroneCapability();
+        capability.setCooling(false);
+        capability.setHeating(false);
+        capability.setCapacity(capacity);
+        capability.setMaxMoves(2000);
+        capability.setCostPerMove(0.01);
+        capability.setCostInitial(4.0);
+        capability.setCostFinal(4.0);
+        return new Drone(id, "Drone " + id, capability);
+    }
+
+    private static MedDispatchRec dispatch(int id, double capacity, double lng, double lat) {
+        return new MedDispatchRec(id, MONDAY, LocalTime.of(14, 30),
+                new MedDispatchRequirements(capacity, false, false, 0),
+                new Position(lng, lat));
+    }
+}
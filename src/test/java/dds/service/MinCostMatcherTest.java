@@ -0,0 +1,101 @@
+package dds.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinCostMatcherTest {
+
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    @Test
+    @DisplayName("Square matrix should be matched at minimum total cost")
+    void shouldFindMinimumCostForSquareMatrix() {
+        double[][] cost = {
+                {4, 1, 3},
+                {2, 0, 5},
+                {3, 2, 2}
+        };
+
+        int[] matching = MinCostMatcher.solve(cost);
+
+        assertArrayEquals(new int[]{1, 0, 2}, matching);
+    }
+
+    @Test
+    @DisplayName("Greedy first choice should not be taken when a better global matching exists")
+    void shouldBeatGreedyAssignment() {
+        // Greedy row-by-row would give row 0 -> col 0 (1) and row 1 -> col 1 (100)
+        double[][] cost = {
+                {1, 2},
+                {3, 100}
+        };
+
+        int[] matching = MinCostMatcher.solve(cost);
+
+        assertArrayEquals(new int[]{1, 0}, matching);
+    }
+
+    @Test
+    @DisplayName("More rows than columns should leave the most expensive rows unmatched")
+    void shouldHandleMoreRowsThanColumns() {
+        double[][] cost = {
+                {5},
+                {1},
+                {3}
+        };
+
+        int[] matching = MinCostMatcher.solve(cost);
+
+        assertArrayEquals(new int[]{-1, 0, -1}, matching);
+    }
+
+    @Test
+    @DisplayName("Infeasible pairs should never be matched")
+    void shouldNotMatchInfeasiblePairs() {
+        double[][] cost = {
+                {INF, INF},
+                {INF, 7}
+        };
+
+        int[] matching = MinCostMatcher.solve(cost);
+
+        assertEquals(-1, matching[0], "Row without feasible columns should stay unmatched");
+        assertEquals(1, matching[1]);
+    }
+
+    @Test
+    @DisplayName("Larger matching should win over a cheaper smaller one")
+    void shouldPreferMoreMatchesOverLowerCost() {
+        // Row 0 alone would take column 0 for 1, but that leaves row 1 with nothing
+        List<List<MinCostMatcher.Candidate>> candidates = List.of(
+                List.of(new MinCostMatcher.Candidate(0, 1), new MinCostMatcher.Candidate(1, 1_000_000)),
+                List.of(new MinCostMatcher.Candidate(0, 5)));
+
+        int[] matching = MinCostMatcher.solve(candidates, 2);
+
+        assertArrayEquals(new int[]{1, 0}, matching);
+    }
+
+    @Test
+    @DisplayName("Negative costs should still give the cheapest matching")
+    void shouldHandleNegativeCosts() {
+        double[][] cost = {
+                {-5, -1},
+                {-4, 2}
+        };
+
+        int[] matching = MinCostMatcher.solve(cost);
+
+        assertArrayEquals(new int[]{1, 0}, matching);
+    }
+
+    @Test
+    @DisplayName("Empty matrix should return empty matching")
+    void shouldHandleEmptyMatrix() {
+        assertEquals(0, MinCostMatcher.solve(new double[0][0]).length);
+    }
+}
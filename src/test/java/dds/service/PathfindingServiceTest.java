@@ -0,0 +1,60 @@
+package dds.service;
+
+import dds.dto.Position;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PathfindingServiceTest {
+
+    private static final Position START = new Position(-3.186, 55.944);
+    private static final Position END = new Position(-3.186 + 10 * DroneService.MOVE_DISTANCE, 55.944);
+
+    private LocationService locationService;
+    private PathfindingService pathfindingService;
+
+    @BeforeEach
+    void setUp() {
+        UnifiedDataService dataService = mock(UnifiedDataService.class);
+        when(dataService.getRestrictedAreas()).thenReturn(Collections.emptyList());
+        locationService = new LocationService();
+        pathfindingService = new PathfindingService(locationService, new ReferenceDataStore(dataService));
+    }
+
+    @Test
+    @DisplayName("A budget that fits the shortest path should give the same path as an unbounded search")
+    void shouldMatchUnboundedSearchWithinBudget() {
+        List<Position> unbounded = pathfindingService.findPath(START, END);
+        int moves = unbounded.size() - 1;
+
+        List<Position> bounded = pathfindingService.findPath(START, END, moves);
+
+        assertEquals(unbounded, bounded);
+        assertTrue(locationService.isCloseTo(bounded.getLast(), END));
+    }
+
+    @Test
+    @DisplayName("A budget below the shortest path should fail with only the start position")
+    void shouldFailWhenBudgetTooSmall() {
+        int moves = pathfindingService.findPath(START, END).size() - 1;
+
+        List<Position> bounded = pathfindingService.findPath(START, END, moves - 1);
+
+        assertEquals(List.of(START), bounded);
+    }
+
+    @Test
+    @DisplayName("Minimum moves should never exceed the moves of an actual path")
+    void minimumMovesShouldBeLowerBound() {
+        int moves = pathfindingService.findPath(START, END).size() - 1;
+
+        assertTrue(pathfindingService.minimumMoves(START, END) <= moves);
+        assertEquals(0, pathfindingService.minimumMoves(START, START));
+    }
+}
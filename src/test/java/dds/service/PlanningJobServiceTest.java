@@ -0,0 +1,197 @@
+package dds.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dds.dto.*;
+import dds.entity.PlanningJobEntity;
+import dds.entity.PlanningJobState;
+import dds.repository.PlanningJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PlanningJobServiceTest {
+
+    private PlanningJobRepository repository;
+    private DeliveryPlanningService deliveryPlanningService;
+    private DeliveryHistoryService deliveryHistoryService;
+    private ThreadPoolExecutor executor;
+    private ObjectMapper objectMapper;
+    private PlanningJobService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PlanningJobRepository.class);
+        deliveryPlanningService = mock(DeliveryPlanningService.class);
+        deliveryHistoryService = mock(DeliveryHistoryService.class);
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10));
+        objectMapper = spy(new ObjectMapper().registerModule(new JavaTimeModule()));
+        service = new PlanningJobService(repository, deliveryPlanningService, deliveryHistoryService, executor, objectMapper);
+        when(repository.markRunning(anyString(), anyString(), any())).thenReturn(1);
+        when(repository.finish(anyString(), anyString(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("A submitted job should report its progress and store its result")
+    void shouldRunSubmittedJob() throws Exception {
+        when(deliveryPlanningService.calcDeliveryPath(anyList(), isNull(), isNull(), any())).thenAnswer(invocation -> {
+            DeliveryPlanningService.PlanningProgress progress = invocation.getArgument(3);
+            progress.update(DeliveryPlanningService.PlanningProgress.SINGLE_DRONE, 0);
+            return response();
+        });
+
+        PlanningJobStatus status = service.submit(List.of(dispatch(1)), null);
+        awaitJobs();
+
+        assertEquals(PlanningJobState.QUEUED, status.getState());
+        verify(repository).updateProgress(status.getJobId(), nodeId(), DeliveryPlanningService.PlanningProgress.SINGLE_DRONE, 0);
+        verify(repository).updateProgress(status.getJobId(), nodeId(), PlanningJobService.SAVING_RESULT, 1);
+        verify(repository).finish(eq(status.getJobId()), eq(nodeId()), eq(PlanningJobState.COMPLETED),
+                eq(PlanningJobService.DONE), contains("\"droneId\":\"1\""), isNull(), eq(1), any());
+        verify(deliveryHistoryService).logSuccess(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("A job whose result cannot be serialized should fail instead of completing without a result")
+    void shouldFailJobWithUnserializableResult() throws Exception {
+        when(deliveryPlanningService.calcDeliveryPath(anyList(), isNull(), isNull(), any())).thenReturn(response());
+        doThrow(new JsonProcessingException("boom") {
+        }).when(objectMapper).writeValueAsString(isA(DeliveryPathResponse.class));
+
+        PlanningJobStatus status = service.submit(List.of(dispatch(1)), null);
+        awaitJobs();
+
+        verify(repository).finish(eq(status.getJobId()), eq(nodeId()), eq(PlanningJobState.FAILED),
+                eq(PlanningJobService.DONE), isNull(), eq("Result could not be serialized"), eq(1), any());
+        verify(repository, never()).finish(anyString(), anyString(), eq(PlanningJobState.COMPLETED),
+                any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Only jobs with an expired lease that this instance manages to claim should be resumed")
+    void shouldResumeOnlyClaimedExpiredJobs() throws Exception {
+        String request = objectMapper.writeValueAsString(List.of(dispatch(1)));
+        PlanningJobEntity live = job("live", request, LocalDateTime.now().plusMinutes(1));
+        PlanningJobEntity taken = job("taken", request, LocalDateTime.now().minusMinutes(1));
+        PlanningJobEntity orphan = job("orphan", request, LocalDateTime.now().minusMinutes(1));
+        when(repository.findByStateInOrderBySubmittedAtAsc(anyCollection())).thenReturn(List.of(live, taken, orphan));
+        when(repository.claim(eq("taken"), anyString(), any(), any())).thenReturn(0);
+        when(repository.claim(eq("orphan"), anyString(), any(), any())).thenReturn(1);
+        when(deliveryPlanningService.calcDeliveryPath(anyList(), any(), isNull(), any())).thenReturn(response());
+
+        service.resumeExpiredJobs();
+        awaitJobs();
+
+        verify(repository, never()).claim(eq("live"), anyString(), any(), any());
+        verify(repository, never()).markRunning(eq("taken"), anyString(), any());
+        verify(repository).markRunning(eq("orphan"), eq(nodeId()), any());
+        verify(deliveryPlanningService, times(1)).calcDeliveryPath(anyList(), any(), isNull(), any());
+    }
+
+    @Test
+    @DisplayName("A job taken over by another instance should not be run here")
+    void shouldSkipJobOwnedElsewhere() throws Exception {
+        when(repository.markRunning(anyString(), anyString(), any())).thenReturn(0);
+
+        service.submit(List.of(dispatch(1)), null);
+        awaitJobs();
+
+        verifyNoInteractions(deliveryPlanningService);
+        verify(repository, never()).finish(anyString(), anyString(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Leases should be renewed only for jobs this instance is still running")
+    void shouldRenewOnlyJobsInFlight() throws Exception {
+        CountDownLatch planning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(deliveryPlanningService.calcDeliveryPath(anyList(), isNull(), isNull(), any())).thenAnswer(invocation -> {
+            planning.countDown();
+            release.await();
+            return response();
+        });
+
+        PlanningJobStatus status = service.submit(List.of(dispatch(1)), null);
+        assertTrue(planning.await(5, TimeUnit.SECONDS));
+        service.maintainLeases();
+        release.countDown();
+        awaitJobs();
+        service.maintainLeases();
+
+        verify(repository, times(1)).renewLeases(eq(List.of(status.getJobId())), eq(nodeId()), any());
+    }
+
+    @Test
+    @DisplayName("A job that throws an Error should be marked failed and its lease no longer renewed")
+    void shouldFailJobOnError() throws Exception {
+        when(deliveryPlanningService.calcDeliveryPath(anyList(), isNull(), isNull(), any()))
+                .thenThrow(new StackOverflowError());
+
+        PlanningJobStatus status = service.submit(List.of(dispatch(1)), null);
+        awaitJobs();
+        service.maintainLeases();
+
+        verify(repository).finish(eq(status.getJobId()), eq(nodeId()), eq(PlanningJobState.FAILED),
+                eq(PlanningJobService.DONE), isNull(), eq("StackOverflowError"), isNull(), any());
+        verify(repository, never()).renewLeases(anyCollection(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("A job whose outcome could not be recorded should be left to expire")
+    void shouldStopRenewingWhenOutcomeNotRecorded() throws Exception {
+        when(deliveryPlanningService.calcDeliveryPath(anyList(), isNull(), isNull(), any())).thenReturn(response());
+        when(repository.finish(anyString(), anyString(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("database unavailable"));
+
+        service.submit(List.of(dispatch(1)), null);
+        awaitJobs();
+        service.maintainLeases();
+
+        verify(repository, times(2)).finish(anyString(), anyString(), any(), any(), any(), any(), any(), any());
+        verify(repository, never()).renewLeases(anyCollection(), anyString(), any());
+    }
+
+    private void awaitJobs() throws InterruptedException {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private String nodeId() {
+        return (String) ReflectionTestUtils.getField(service, "nodeId");
+    }
+
+    private static PlanningJobEntity job(String id, String request, LocalDateTime leaseExpiresAt) {
+        PlanningJobEntity entity = PlanningJobEntity.queued(id, request, 1, null, "other-node", leaseExpiresAt);
+        entity.setState(PlanningJobState.RUNNING);
+        return entity;
+    }
+
+    private static MedDispatchRec dispatch(int id) {
+        return new MedDispatchRec(id, null, null, new MedDispatchRequirements(), new Position(-3.19, 55.94));
+    }
+
+    private static DeliveryPathResponse response() {
+        return new DeliveryPathResponse(10.0, 4, List.of(new DronePath("1",
+                List.of(new Delivery(1, List.of(new Position(-3.19, 55.94)))))));
+    }
+}
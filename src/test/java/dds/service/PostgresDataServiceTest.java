@@ -0,0 +1,143 @@
+package dds.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dds.dto.AvailabilityUpdateResult;
+import dds.dto.DroneAvailabilityWindow;
+import dds.dto.DroneForServicePoint;
+import dds.dto.Position;
+import dds.dto.RestrictedArea;
+import dds.dto.ServicePointDroneAvailability;
+import dds.entity.DroneAvailabilityEntity;
+import dds.entity.RestrictedAreaEntity;
+import dds.repository.DroneAvailabilityRepository;
+import dds.repository.DroneRepository;
+import dds.repository.RestrictedAreaRepository;
+import dds.repository.ServicePointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PostgresDataServiceTest {
+
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+    private static final LocalTime FIVE = LocalTime.of(17, 0);
+
+    private RestrictedAreaRepository restrictedAreaRepository;
+    private DroneAvailabilityRepository availabilityRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private JdbcTemplate jdbcTemplate;
+    private PostgresDataService postgresDataService;
+
+    @BeforeEach
+    void setUp() {
+        restrictedAreaRepository = mock(RestrictedAreaRepository.class);
+        availabilityRepository = mock(DroneAvailabilityRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        postgresDataService = new PostgresDataService(mock(DroneRepository.class), mock(ServicePointRepository.class),
+                restrictedAreaRepository, availabilityRepository, new ObjectMapper(), eventPublisher, jdbcTemplate);
+
+        when(availabilityRepository.findByDroneIdIn(any())).thenReturn(List.of(
+                new DroneAvailabilityEntity(1L, "1", 7, DayOfWeek.MONDAY, NINE, FIVE),
+                new DroneAvailabilityEntity(2L, "1", 7, DayOfWeek.TUESDAY, NINE, FIVE),
+                new DroneAvailabilityEntity(3L, "1", 8, DayOfWeek.MONDAY, NINE, FIVE)));
+    }
+
+    @Test
+    @DisplayName("Only windows that differ should be deleted or inserted")
+    void shouldApplyOnlyTheDiff() {
+        AvailabilityUpdateResult result = postgresDataService.saveAvailability("1", 7, List.of(
+                new DroneAvailabilityWindow(DayOfWeek.MONDAY, NINE, FIVE),
+                new DroneAvailabilityWindow(DayOfWeek.WEDNESDAY, NINE, FIVE)));
+
+        assertEquals(new AvailabilityUpdateResult(1, 1, 1), result);
+        verify(jdbcTemplate).batchUpdate(eq("DELETE FROM drone_availability WHERE id = ?"),
+                argThat((List<Object[]> rows) -> rows.size() == 1 && rows.getFirst()[0].equals(2L)));
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO drone_availability"),
+                argThat((List<Object[]> rows) -> rows.size() == 1 && rows.getFirst()[2].equals("WEDNESDAY")));
+        verify(eventPublisher).publishEvent(any(ReferenceDataChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("An unchanged schedule should write nothing")
+    void shouldWriteNothingForUnchangedSchedule() {
+        ServicePointDroneAvailability availability = new ServicePointDroneAvailability();
+        availability.setId("1");
+        availability.setAvailability(List.of(
+                new DroneAvailabilityWindow(DayOfWeek.TUESDAY, NINE, FIVE),
+                new DroneAvailabilityWindow(DayOfWeek.MONDAY, NINE, FIVE)));
+
+        AvailabilityUpdateResult result = postgresDataService.applyAvailability(
+                List.of(new DroneForServicePoint(7, List.of(availability))), false);
+
+        assertEquals(new AvailabilityUpdateResult(0, 0, 2), result);
+        verifyNoInteractions(jdbcTemplate, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("The availability view should be grouped in one pass and cached until availability changes")
+    void shouldGroupAndCacheAvailabilityView() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getInt("service_point_id")).thenReturn(7, 7, 7, 8);
+        when(rs.getString("drone_id")).thenReturn("1", "1", "2", null);
+        when(rs.getString("day_of_week")).thenReturn("MONDAY", "TUESDAY", "MONDAY");
+        when(rs.getObject("from_time", LocalTime.class)).thenReturn(NINE);
+        when(rs.getObject("until_time", LocalTime.class)).thenReturn(FIVE);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int row = 0; row < 4; row++) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        List<DroneForServicePoint> view = postgresDataService.getDronesForServicePoints();
+
+        assertEquals(2, view.size());
+        assertEquals(2, view.getFirst().getDrones().size());
+        assertEquals(2, view.getFirst().getDrones().getFirst().getAvailability().size());
+        assertTrue(view.get(1).getDrones().isEmpty());
+
+        assertSame(view, postgresDataService.getDronesForServicePoints());
+        postgresDataService.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.AVAILABILITY));
+        postgresDataService.getDronesForServicePoints();
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    @DisplayName("Vertices should be stored packed and read back from packed or legacy JSON")
+    void shouldStorePackedVerticesAndReadLegacyJson() {
+        List<Position> vertices = List.of(new Position(-3.19, 55.94), new Position(-3.18, 55.94), new Position(-3.18, 55.95));
+        when(restrictedAreaRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        postgresDataService.saveRestrictedArea(new RestrictedArea("Zone", 1, vertices));
+
+        ArgumentCaptor<RestrictedAreaEntity> saved = ArgumentCaptor.forClass(RestrictedAreaEntity.class);
+        verify(restrictedAreaRepository).save(saved.capture());
+        assertNull(saved.getValue().getVerticesJson());
+        assertEquals(vertices.size() * 16, saved.getValue().getVerticesPacked().length);
+
+        RestrictedAreaEntity legacy = new RestrictedAreaEntity(2, "Old", 0, -1, null,
+                "[{\"lng\": -3.19, \"lat\": 55.94}, {\"lng\": -3.18, \"lat\": 55.94}, {\"lng\": -3.18, \"lat\": 55.95}]");
+        when(restrictedAreaRepository.findAll()).thenReturn(List.of(saved.getValue(), legacy));
+
+        List<RestrictedArea> areas = postgresDataService.getRestrictedAreas();
+
+        assertEquals(vertices, areas.get(0).getVertices());
+        assertEquals(vertices, areas.get(1).getVertices());
+    }
+}
@@ -0,0 +1,80 @@
+package dds.service;
+
+import dds.repository.ReferenceDataVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReferenceDataNotificationsTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private PlatformTransactionManager transactionManager;
+    private ReferenceDataNotifications notifications;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        notifications = new ReferenceDataNotifications(jdbcTemplate, mock(DataSource.class),
+                mock(ReferenceDataVersionRepository.class), eventPublisher, transactionManager);
+    }
+
+    @Test
+    @DisplayName("A local write should bump the version and notify, a remote one should not")
+    void shouldNotifyOnlyForLocalWrites() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("DRONES"))).thenReturn(4L);
+
+        notifications.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.DRONES));
+        notifications.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.DRONES, true));
+
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), eq("DRONES"));
+        verify(jdbcTemplate).queryForList("SELECT pg_notify(?, ?)", ReferenceDataNotifications.CHANNEL,
+                notifications.payload(ReferenceDataChangedEvent.Dataset.DRONES, 4));
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("A failed version bump should roll back its own transaction and not propagate")
+    void shouldSwallowFailedBump() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("DRONES")))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        assertDoesNotThrow(() -> notifications.onReferenceDataChanged(
+                new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.DRONES)));
+
+        verify(transactionManager).rollback(any());
+        verify(jdbcTemplate, never()).queryForList(anyString(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Notifications from other instances should be republished once per new version")
+    void shouldRepublishNewRemoteVersions() {
+        notifications.handle("other-node:AVAILABILITY:3");
+        notifications.handle("other-node:AVAILABILITY:3");
+        notifications.handle("other-node:AVAILABILITY:2");
+        notifications.handle(notifications.payload(ReferenceDataChangedEvent.Dataset.DRONES, 9));
+        notifications.handle("garbage");
+
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object event) ->
+                event instanceof ReferenceDataChangedEvent changed
+                        && changed.isRemote()
+                        && changed.getDataset() == ReferenceDataChangedEvent.Dataset.AVAILABILITY));
+        verifyNoMoreInteractions(eventPublisher);
+        assertFalse(notifications.isRunning());
+    }
+}
@@ -0,0 +1,172 @@
+package dds.service;
+
+import dds.dto.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReferenceDataStoreTest {
+
+    private UnifiedDataService dataService;
+    private ReferenceDataStore store;
+
+    @BeforeEach
+    void setUp() {
+        dataService = mock(UnifiedDataService.class);
+        store = new ReferenceDataStore(dataService);
+
+        when(dataService.getAllDrones()).thenReturn(List.of(new Drone("1", "Drone 1", new DroneCapability())));
+        when(dataService.getServicePoints()).thenReturn(List.of(new ServicePoint("Base", 7, new Position(-3.186, 55.944))));
+    }
+
+    @Test
+    @DisplayName("Reads should share one snapshot until something changes")
+    void shouldServeOneSnapshotUntilChanged() {
+        ReferenceSnapshot first = store.current();
+
+        assertSame(first, store.current());
+        assertEquals("Base", first.getServicePoint(7).getName());
+        verify(dataService, times(1)).getAllDrones();
+        verify(dataService, times(1)).getRestrictedAreas();
+    }
+
+    @Test
+    @DisplayName("A change should reload only its dataset into a new version")
+    void shouldReloadOnlyChangedDataset() {
+        ReferenceSnapshot first = store.current();
+
+        store.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.DRONES));
+        ReferenceSnapshot second = store.current();
+
+        assertTrue(second.getVersion() > first.getVersion());
+        assertNotSame(first.getDrones(), second.getDrones());
+        assertSame(first.getServicePoints(), second.getServicePoints());
+        assertSame(first.getRestrictedAreas(), second.getRestrictedAreas());
+        verify(dataService, times(2)).getAllDrones();
+        verify(dataService, times(1)).getServicePoints();
+    }
+
+    @Test
+    @DisplayName("A local write should be visible to the very next read")
+    void shouldPublishLocalWriteBeforeReturning() {
+        ReferenceSnapshot first = store.current();
+        when(dataService.getAllDrones()).thenReturn(List.of(
+                new Drone("1", "Drone 1", new DroneCapability()), new Drone("2", "Drone 2", new DroneCapability())));
+
+        store.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.DRONES));
+
+        assertEquals(first.getVersion() + 1, store.current().getVersion());
+        assertEquals(List.of("1", "2"), store.current().getDrones().stream().map(Drone::getId).toList());
+    }
+
+    @Test
+    @DisplayName("A change of data source should reload every dataset, not just the stale one")
+    void shouldReloadEverythingWhenSourceChanges() {
+        when(dataService.currentSource()).thenReturn("postgres");
+        ReferenceSnapshot first = store.current();
+        when(dataService.currentSource()).thenReturn("azure");
+
+        store.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.DRONES));
+        ReferenceSnapshot second = store.current();
+
+        assertEquals("postgres", first.getSource());
+        assertEquals("azure", second.getSource());
+        assertNotSame(first.getServicePoints(), second.getServicePoints());
+        assertNotSame(first.getRestrictedAreas(), second.getRestrictedAreas());
+        verify(dataService, times(2)).getServicePoints();
+        verify(dataService, times(2)).getDronesForServicePoints();
+    }
+
+    @Test
+    @DisplayName("Readers should keep the old snapshot while a remote change waits for the data source")
+    void shouldServeOldSnapshotDuringRebuild() throws Exception {
+        ReferenceSnapshot first = store.current();
+        CountDownLatch reloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(dataService.getAllDrones()).thenAnswer(invocation -> {
+            reloading.countDown();
+            release.await();
+            return List.of(new Drone("2", "Drone 2", new DroneCapability()));
+        });
+
+        store.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.DRONES, true));
+        assertTrue(reloading.await(5, TimeUnit.SECONDS));
+
+        assertSame(first, store.current());
+        release.countDown();
+        assertEquals("2", awaitNewerThan(store, first).getDrones().get(0).getId());
+    }
+
+    @Test
+    @DisplayName("A store should boot from an exported snapshot file without waiting for the data source")
+    void shouldBootFromExportedSnapshotFile(@TempDir Path dir) throws Exception {
+        when(dataService.getRestrictedAreas()).thenReturn(List.of(new RestrictedArea("Zone", 3,
+                List.of(new Position(-3.19, 55.94), new Position(-3.18, 55.94), new Position(-3.19, 55.94)))));
+        ServicePointDroneAvailability availability = new ServicePointDroneAvailability();
+        availability.setId("1");
+        availability.setAvailability(List.of(
+                new DroneAvailabilityWindow(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(17, 30)),
+                new DroneAvailabilityWindow(null, null, null)));
+        when(dataService.getDronesForServicePoints()).thenReturn(List.of(new DroneForServicePoint(7, List.of(availability))));
+        Path file = dir.resolve("reference.bin");
+        ReflectionTestUtils.setField(store, "snapshotFile", file.toString());
+        ReferenceSnapshot exported = store.current();
+        store.exportToFile();
+        assertTrue(Files.size(file) > 0);
+
+        // the data source is down, so the reconcile in the background fails and the file keeps serving
+        UnifiedDataService unavailable = mock(UnifiedDataService.class);
+        when(unavailable.getAllDrones()).thenThrow(new IllegalStateException("database unavailable"));
+        ReferenceDataStore booted = new ReferenceDataStore(unavailable);
+        ReflectionTestUtils.setField(booted, "snapshotFile", file.toString());
+        booted.bootFromFile();
+        ReferenceSnapshot served = booted.current();
+
+        assertTrue(served.getVersion() > exported.getVersion());
+        assertEquals(exported.getDrones(), served.getDrones());
+        assertEquals(exported.getServicePoints(), served.getServicePoints());
+        assertEquals(exported.getRestrictedAreas(), served.getRestrictedAreas());
+        assertEquals(exported.getDronesForServicePoints(), served.getDronesForServicePoints());
+        assertEquals("Base", served.getServicePoint(7).getName());
+    }
+
+    @Test
+    @DisplayName("A file that is not a snapshot should be ignored")
+    void shouldIgnoreInvalidSnapshotFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("reference.bin");
+        Files.writeString(file, "not a snapshot");
+        ReflectionTestUtils.setField(store, "snapshotFile", file.toString());
+
+        store.bootFromFile();
+
+        assertEquals("Drone 1", store.current().getDrones().get(0).getName());
+        verify(dataService, times(1)).getAllDrones();
+    }
+
+    /**
+     * Wait for the background rebuild to publish a snapshot newer than {@code previous}.
+     */
+    static ReferenceSnapshot awaitNewerThan(ReferenceDataStore store, ReferenceSnapshot previous) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        ReferenceSnapshot current;
+        while ((current = store.current()).getVersion() <= previous.getVersion()) {
+            assertTrue(System.nanoTime() < deadline, "no new reference snapshot was published");
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        return current;
+    }
+}
@@ -0,0 +1,142 @@
+package dds.service;
+
+import dds.dto.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceSnapshotCodecTest {
+
+    @Test
+    @DisplayName("A written snapshot should read back unchanged")
+    void shouldRoundTrip() throws IOException {
+        ReferenceSnapshot snapshot = snapshot();
+
+        ReferenceSnapshot read = ReferenceSnapshotCodec.read(ByteBuffer.wrap(encode(snapshot)));
+
+        assertEquals(snapshot.getVersion(), read.getVersion());
+        assertEquals(snapshot.getDrones(), read.getDrones());
+        assertEquals(snapshot.getServicePoints(), read.getServicePoints());
+        assertEquals(snapshot.getRestrictedAreas(), read.getRestrictedAreas());
+        assertEquals(snapshot.getDronesForServicePoints(), read.getDronesForServicePoints());
+    }
+
+    @Test
+    @DisplayName("A flipped byte should fail the checksum")
+    void shouldRejectCorruptedBody() throws IOException {
+        byte[] bytes = encode(snapshot());
+        bytes[bytes.length - 3] ^= 0x5A;
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ReferenceSnapshotCodec.read(ByteBuffer.wrap(bytes)));
+        assertTrue(e.getMessage().contains("checksum"));
+    }
+
+    @Test
+    @DisplayName("A truncated snapshot should be rejected")
+    void shouldRejectTruncatedSnapshot() throws IOException {
+        byte[] bytes = encode(snapshot());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ReferenceSnapshotCodec.read(ByteBuffer.wrap(bytes, 0, bytes.length / 2).slice()));
+    }
+
+    @Test
+    @DisplayName("Negative and oversized lengths should be rejected without allocating them")
+    void shouldRejectBadLengths() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> ReferenceSnapshotCodec.read(frame(body -> {
+            body.writeInt(1);
+            body.writeInt(-7);
+        })));
+        assertThrows(IllegalArgumentException.class, () -> ReferenceSnapshotCodec.read(frame(body -> {
+            body.writeInt(1);
+            body.writeInt(Integer.MAX_VALUE);
+        })));
+        assertThrows(IllegalArgumentException.class, () -> ReferenceSnapshotCodec.read(frame(body ->
+                body.writeInt(Integer.MAX_VALUE))));
+    }
+
+    @Test
+    @DisplayName("An out-of-range day or time should be rejected as invalid data")
+    void shouldRejectInvalidAvailabilityWindow() throws IOException {
+        ByteBuffer badDay = frame(body -> availabilityWindow(body, 9, 0));
+        ByteBuffer badTime = frame(body -> availabilityWindow(body, 1, Long.MAX_VALUE));
+
+        assertThrows(IllegalArgumentException.class, () -> ReferenceSnapshotCodec.read(badDay));
+        assertThrows(IllegalArgumentException.class, () -> ReferenceSnapshotCodec.read(badTime));
+    }
+
+    private static void availabilityWindow(DataOutputStream body, int day, long from) throws IOException {
+        body.writeInt(0);  // drones
+        body.writeInt(0);  // service points
+        body.writeInt(0);  // restricted areas
+        body.writeInt(1);  // one service point with availability
+        body.writeBoolean(true);
+        body.writeInt(7);
+        body.writeInt(1);  // one drone
+        body.writeInt(-1);  // null ID
+        body.writeInt(1);  // one window
+        body.writeByte(day);
+        body.writeLong(from);
+        body.writeLong(-1);
+    }
+
+    /**
+     * A snapshot with a valid header and checksum around the given datasets.
+     */
+    private static ByteBuffer frame(BodyWriter datasets) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+        body.writeLong(1);
+        body.writeLong(0);
+        datasets.write(body);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+
+        ByteBuffer framed = ByteBuffer.allocate(16 + bytes.size());
+        framed.putInt(ReferenceSnapshotCodec.MAGIC)
+                .putInt(ReferenceSnapshotCodec.FORMAT_VERSION)
+                .putInt(bytes.size())
+                .putInt((int) crc.getValue())
+                .put(bytes.toByteArray());
+        return framed.flip();
+    }
+
+    private static byte[] encode(ReferenceSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReferenceSnapshotCodec.write(snapshot, out);
+        return out.toByteArray();
+    }
+
+    private static ReferenceSnapshot snapshot() {
+        DroneCapability capability = new DroneCapability();
+        capability.setCooling(true);
+        capability.setCapacity(4.0);
+        capability.setMaxMoves(2000);
+        ServicePointDroneAvailability availability = new ServicePointDroneAvailability();
+        availability.setId("1");
+        availability.setAvailability(List.of(
+                new DroneAvailabilityWindow(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(17, 30))));
+        return new ReferenceSnapshot(3, 0,
+                List.of(new Drone("1", "Drone 1", capability)),
+                List.of(new ServicePoint("Base", 7, new Position(-3.186, 55.944))),
+                List.of(new RestrictedArea("Zone", 2, List.of(
+                        new Position(-3.19, 55.94), new Position(-3.18, 55.94), new Position(-3.19, 55.94)))),
+                List.of(new DroneForServicePoint(7, List.of(availability))));
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(DataOutputStream body) throws IOException;
+    }
+}
@@ -0,0 +1,76 @@
+package dds.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UnifiedDataServiceTest {
+
+    private PostgresDataService postgresDataService;
+    private IlpDataService ilpDataService;
+    private InMemoryDataService inMemoryDataService;
+    private UnifiedDataService dataService;
+
+    @BeforeEach
+    void setUp() {
+        postgresDataService = mock(PostgresDataService.class);
+        ilpDataService = mock(IlpDataService.class);
+        inMemoryDataService = mock(InMemoryDataService.class);
+        dataService = new UnifiedDataService(postgresDataService, ilpDataService, inMemoryDataService);
+        when(postgresDataService.getAllDrones()).thenReturn(List.of());
+        when(ilpDataService.getAllDrones()).thenReturn(List.of());
+    }
+
+    @Test
+    @DisplayName("Data source should be resolved once for many reads")
+    void shouldResolveDataSourceOnce() {
+        when(postgresDataService.hasData()).thenReturn(true);
+
+        dataService.getAllDrones();
+        dataService.getServicePoints();
+        dataService.getRestrictedAreas();
+        dataService.getDronesForServicePoints();
+
+        verify(postgresDataService, times(1)).hasData();
+        verify(postgresDataService).getAllDrones();
+        assertTrue(dataService.resolve().postgres());
+    }
+
+    @Test
+    @DisplayName("Drone changes should trigger a new data source decision")
+    void shouldReevaluateAfterDroneChange() {
+        when(postgresDataService.hasData()).thenReturn(false, true);
+
+        dataService.getAllDrones();
+        verify(ilpDataService).getAllDrones();
+
+        dataService.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.RESTRICTED_AREAS));
+        assertEquals("azure", dataService.resolve().source());
+
+        dataService.onReferenceDataChanged(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Dataset.DRONES));
+        dataService.getAllDrones();
+        verify(postgresDataService).getAllDrones();
+        verify(postgresDataService, times(2)).hasData();
+    }
+
+    @Test
+    @DisplayName("The memory data source should serve reads without touching the database")
+    void shouldReadFromMemoryWithoutDatabase() {
+        ReflectionTestUtils.setField(dataService, "dataSource", "memory");
+        when(inMemoryDataService.getAllDrones()).thenReturn(List.of());
+
+        dataService.getAllDrones();
+        dataService.getDronesForServicePoints();
+
+        assertTrue(dataService.resolve().memory());
+        verify(inMemoryDataService).getAllDrones();
+        verify(inMemoryDataService).getDronesForServicePoints();
+        verifyNoInteractions(postgresDataService, ilpDataService);
+    }
+}
@@ -0,0 +1,78 @@
+package dds.service;
+
+import dds.dto.DroneAvailabilityWindow;
+import dds.dto.ServicePointDroneAvailability;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeeklyAvailabilityTest {
+
+    @Test
+    @DisplayName("Window bounds should be inclusive, including windows starting mid-minute")
+    void shouldTreatBoundsInclusively() {
+        WeeklyAvailability availability = new WeeklyAvailability(availability(
+                new DroneAvailabilityWindow(DayOfWeek.TUESDAY, LocalTime.of(9, 0, 30), LocalTime.of(17, 0))));
+
+        assertFalse(availability.covers(DayOfWeek.TUESDAY, LocalTime.of(9, 0)));
+        assertTrue(availability.covers(DayOfWeek.TUESDAY, LocalTime.of(9, 0, 30)));
+        assertTrue(availability.covers(DayOfWeek.TUESDAY, LocalTime.of(14, 30)));
+        assertTrue(availability.covers(DayOfWeek.TUESDAY, LocalTime.of(17, 0)));
+        assertFalse(availability.covers(DayOfWeek.TUESDAY, LocalTime.of(17, 0, 1)));
+        assertFalse(availability.covers(DayOfWeek.MONDAY, LocalTime.of(14, 30)));
+    }
+
+    @Test
+    @DisplayName("A missing day or time should match any day or time")
+    void shouldMatchMissingDayOrTime() {
+        WeeklyAvailability availability = new WeeklyAvailability(availability(
+                new DroneAvailabilityWindow(DayOfWeek.FRIDAY, LocalTime.of(8, 0), LocalTime.of(12, 0))));
+
+        assertTrue(availability.covers(null, LocalTime.of(10, 0)));
+        assertFalse(availability.covers(null, LocalTime.of(13, 0)));
+        assertTrue(availability.covers(DayOfWeek.FRIDAY, null));
+        assertFalse(availability.covers(DayOfWeek.SATURDAY, null));
+        assertTrue(availability.covers(null, null));
+        assertFalse(new WeeklyAvailability(new ServicePointDroneAvailability()).covers(null, null));
+    }
+
+    @Test
+    @DisplayName("Bitmap lookups should agree with checking every window")
+    void shouldAgreeWithWindowScan() {
+        Random random = new Random(7);
+        List<DroneAvailabilityWindow> windows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            LocalTime from = LocalTime.ofSecondOfDay(random.nextInt(86_400));
+            LocalTime until = LocalTime.ofSecondOfDay(random.nextInt(86_400));
+            windows.add(new DroneAvailabilityWindow(DayOfWeek.of(1 + random.nextInt(7)), from, until));
+        }
+        ServicePointDroneAvailability source = new ServicePointDroneAvailability();
+        source.setAvailability(windows);
+        WeeklyAvailability availability = new WeeklyAvailability(source);
+
+        for (int i = 0; i < 5_000; i++) {
+            DayOfWeek day = random.nextInt(8) == 0 ? null : DayOfWeek.of(1 + random.nextInt(7));
+            LocalTime time = random.nextBoolean()
+                    ? LocalTime.ofSecondOfDay(random.nextInt(1440) * 60L)
+                    : LocalTime.ofSecondOfDay(random.nextInt(86_400));
+            boolean expected = windows.stream()
+                    .filter(slot -> day == null || slot.getDayOfWeek() == day)
+                    .anyMatch(slot -> !time.isBefore(slot.getFrom()) && !time.isAfter(slot.getUntil()));
+            assertEquals(expected, availability.covers(day, time), day + " " + time);
+        }
+    }
+
+    private static ServicePointDroneAvailability availability(DroneAvailabilityWindow... windows) {
+        ServicePointDroneAvailability availability = new ServicePointDroneAvailability();
+        availability.setId("1");
+        availability.setAvailability(List.of(windows));
+        return availability;
+    }
+}